@@ -0,0 +1,28 @@
+-- Drops the legacy users.wallet_balance column. Run by hand, once, after every instance runs a
+-- build with the wallet ledger and WalletLedgerInitializer has imported the balances.
+-- The application no longer reads or writes the column; it is kept until this script runs so a
+-- rolling deploy (old instances still reading it) and a rollback keep working.
+--
+--   psql -v ON_ERROR_STOP=1 -d expense_tracker -f db/drop_users_wallet_balance.sql
+
+BEGIN;
+
+-- Refuse to drop while any non-zero legacy balance has not reached the ledger and balance rows
+DO $$
+DECLARE
+    missing integer;
+BEGIN
+    SELECT COUNT(*) INTO missing
+    FROM users u
+    LEFT JOIN wallet_balances b ON b.user_id = u.user_id
+    WHERE u.wallet_balance IS NOT NULL AND u.wallet_balance <> 0
+      AND (NOT EXISTS (SELECT 1 FROM wallet_ledger l WHERE l.user_id = u.user_id)
+           OR b.user_id IS NULL);
+    IF missing > 0 THEN
+        RAISE EXCEPTION '% users still have a legacy wallet balance that was not imported', missing;
+    END IF;
+END $$;
+
+ALTER TABLE users DROP COLUMN wallet_balance;
+
+COMMIT;
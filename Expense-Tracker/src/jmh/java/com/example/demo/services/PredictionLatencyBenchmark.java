@@ -0,0 +1,167 @@
+package com.example.demo.services;
+
+import com.example.demo.AppConfig;
+import com.example.demo.dto.NextMonthPredictionResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one prediction scored in-process by LocalModelScorer against one round trip over
+ * AppConfig's RestTemplate to a local stub of the Python /predict route, so the HTTP figure is the
+ * transport cost alone, before any model work in Python. SampleTime adds the p50/p99 of each call
+ * next to the average.
+ *
+ * The local model is an export of a trained ensemble: by default a generated one the size
+ * ml_utils.train_model_from_db trains (120 trees of depth 5 over the FeatureStore columns), or a
+ * real models/expense_model.json given with -p model=/path/to/expense_model.json.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="PredictionLatency"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class PredictionLatencyBenchmark {
+
+    private static final byte[] STUB_RESPONSE =
+            "{\"user_id\": 1, \"predicted_next_month_expense\": 32789.305}".getBytes(StandardCharsets.UTF_8);
+
+    private static final int TREES = 120;
+    private static final int DEPTH = 5;
+
+    // "generated", or the path of an export written by ml_utils.save_model
+    @Param({"generated"})
+    private String model;
+
+    private LocalModelScorer localModelScorer;
+    private double[] features;
+    private HttpServer stub;
+    private RestTemplate restTemplate;
+    private String url;
+    private final Map<String, Object> request = Map.of("user_id", 1);
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String modelPath = model;
+        if ("generated".equals(model)) {
+            Path export = Files.createTempFile("expense_model", ".json");
+            export.toFile().deleteOnExit();
+            objectMapper.writeValue(export.toFile(), generatedExport(objectMapper));
+            modelPath = export.toString();
+        }
+        localModelScorer = new LocalModelScorer(objectMapper, modelPath);
+        if (!localModelScorer.isLoaded()) {
+            throw new IllegalStateException("no model with trees at " + modelPath);
+        }
+        features = new double[localModelScorer.getFeatureCount()];
+
+        // The fork sets sun.net.httpserver.nodelay: without TCP_NODELAY the JDK server's split
+        // header/body writes hit the 40 ms delayed-ACK stall
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/predict", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, STUB_RESPONSE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(STUB_RESPONSE);
+            }
+        });
+        stub.start();
+        restTemplate = new AppConfig().restTemplate(1000, 3000);
+        url = "http://127.0.0.1:" + stub.getAddress().getPort() + "/predict";
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        stub.stop(0);
+    }
+
+    // An export in ml_utils.export_model_json's format, with full trees in XGBoost's JSON dump layout
+    private static ObjectNode generatedExport(ObjectMapper objectMapper) {
+        Random random = new Random(42);
+        List<String> columns = FeatureStore.COLUMNS;
+        ObjectNode doc = objectMapper.createObjectNode();
+        doc.put("format", "expense-tree-ensemble/1");
+        doc.set("feature_columns", objectMapper.valueToTree(columns));
+        ArrayNode defaults = doc.putArray("defaults");
+        ObjectNode scaler = doc.putObject("scaler");
+        ArrayNode mean = scaler.putArray("mean");
+        ArrayNode scale = scaler.putArray("scale");
+        for (int i = 0; i < columns.size(); i++) {
+            double average = 1_000 + random.nextInt(10_000);
+            defaults.add(average);
+            mean.add(average);
+            scale.add(average / 2);
+        }
+        doc.put("base_score", 30_000.0);
+        doc.put("fallback_value", 30_000.0);
+        ArrayNode trees = doc.putArray("trees");
+        for (int t = 0; t < TREES; t++) {
+            trees.add(node(objectMapper, random, 0, 0, columns.size()));
+        }
+        return doc;
+    }
+
+    // Breadth-first node ids as XGBoost numbers them: the children of n are 2n + 1 and 2n + 2
+    private static ObjectNode node(ObjectMapper objectMapper, Random random, int nodeId, int depth, int featureCount) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("nodeid", nodeId);
+        if (depth == DEPTH) {
+            node.put("leaf", random.nextGaussian() * 500);
+            return node;
+        }
+        node.put("depth", depth);
+        node.put("split", "f" + random.nextInt(featureCount));
+        node.put("split_condition", random.nextGaussian());
+        node.put("yes", 2 * nodeId + 1);
+        node.put("no", 2 * nodeId + 2);
+        node.put("missing", 2 * nodeId + 1);
+        ArrayNode children = node.putArray("children");
+        children.add(node(objectMapper, random, 2 * nodeId + 1, depth + 1, featureCount));
+        children.add(node(objectMapper, random, 2 * nodeId + 2, depth + 1, featureCount));
+        return node;
+    }
+
+    @Benchmark
+    public double localScore() {
+        // One reused feature vector, as AIPredictionService does
+        Arrays.fill(features, Double.NaN);
+        return localModelScorer.score(features);
+    }
+
+    @Benchmark
+    public Double httpRoundTrip() {
+        return restTemplate.postForObject(url, request, NextMonthPredictionResponse.class).getPredictedNextMonthExpense();
+    }
+}
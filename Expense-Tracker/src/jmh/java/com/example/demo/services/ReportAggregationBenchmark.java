@@ -0,0 +1,155 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CategorySpending;
+import com.example.demo.dto.CategoryTotal;
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.entity.Category;
+import com.example.demo.entity.Expense;
+import com.example.demo.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-process parts of building a report, over synthetic expense lists of 1k to 1M rows.
+ *
+ * spendingByCategory is ReportService.calculateSpendingByCategory on the per-category totals of
+ * the rows (in long cents), spendingByCategoryDecimal the same in BigDecimal arithmetic, for the
+ * allocation rates side by side; spendingByDay is the per-day/per-month grouping
+ * SpendingRollupService does for a batch; topExpenses is a bounded top-5 selection (what
+ * findTopExpenses' ORDER BY ... LIMIT would cost in Java); mapToResponses is the ExpenseResponse
+ * mapping of the export.
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="ReportAggregation"
+ * (the profile adds -prof gc, which reports the allocation rate next to the throughput).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportAggregationBenchmark {
+
+    private static final String[] CATEGORIES = {"Food", "Transport", "Entertainment", "Shopping", "Bills", "Health",
+            "Rent", "Travel", "Education", "Gifts", "Insurance", "Others"};
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int rows;
+
+    private List<Expense> expenses;
+    private List<CategoryTotal> spentPerCategory;
+    private List<CategoryTotal> budgetPerCategory;
+    private BigDecimal totalSpending;
+
+    @Setup(Level.Trial)
+    public void createExpenses() {
+        // Amounts are log-normal like real spending, spread over a year and a dozen categories
+        Random random = new Random(42);
+        User user = new User();
+        user.setUserId(1);
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            Category category = new Category();
+            category.setCategoryId(i + 1);
+            category.setCategoryName(CATEGORIES[i]);
+            categories.add(category);
+        }
+        LocalDate firstDay = LocalDate.now().minusYears(1);
+        expenses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Expense expense = new Expense();
+            expense.setExpenseId(i + 1);
+            expense.setUser(user);
+            expense.setCategory(categories.get(random.nextInt(categories.size())));
+            expense.setExpenseAmount(BigDecimal.valueOf(Math.round(Math.exp(3 + random.nextGaussian()) * 100), 2));
+            expense.setExpenseDate(firstDay.plusDays(random.nextInt(365)));
+            expense.setNote("expense " + i);
+            expenses.add(expense);
+        }
+
+        // What the GROUP BY queries return for these rows; two thirds of the categories have a budget
+        Map<String, BigDecimal> spent = new HashMap<>();
+        Map<String, Long> counts = new HashMap<>();
+        for (Expense expense : expenses) {
+            spent.merge(expense.getCategory().getCategoryName(), expense.getExpenseAmount(), BigDecimal::add);
+            counts.merge(expense.getCategory().getCategoryName(), 1L, Long::sum);
+        }
+        spentPerCategory = new ArrayList<>();
+        budgetPerCategory = new ArrayList<>();
+        totalSpending = BigDecimal.ZERO;
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            BigDecimal total = spent.getOrDefault(CATEGORIES[i], BigDecimal.ZERO);
+            spentPerCategory.add(new CategoryTotal(CATEGORIES[i], total, counts.getOrDefault(CATEGORIES[i], 0L)));
+            totalSpending = totalSpending.add(total);
+            if (i % 3 != 0) {
+                budgetPerCategory.add(new CategoryTotal(CATEGORIES[i], total.multiply(BigDecimal.valueOf(1.1)), 1L));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<CategorySpending> spendingByCategory() {
+        return ReportService.calculateSpendingByCategory(spentPerCategory, totalSpending, budgetPerCategory);
+    }
+
+    @Benchmark
+    public List<CategorySpending> spendingByCategoryDecimal() {
+        return ReportService.calculateSpendingByCategoryDecimal(spentPerCategory, totalSpending, budgetPerCategory);
+    }
+
+    @Benchmark
+    public void spendingByDay(Blackhole blackhole) {
+        Map<SpendingRollupService.RollupKey, SpendingRollupService.RollupDelta> days = new HashMap<>();
+        Map<SpendingRollupService.RollupKey, SpendingRollupService.RollupDelta> months = new HashMap<>();
+        SpendingRollupService.group(expenses, days, months);
+        blackhole.consume(days);
+        blackhole.consume(months);
+    }
+
+    @Benchmark
+    public List<Expense> topExpenses() {
+        // Min-heap of the five largest seen so far, same order as the query (amount desc)
+        Comparator<Expense> byAmount = Comparator.comparing(Expense::getExpenseAmount);
+        PriorityQueue<Expense> top = new PriorityQueue<>(6, byAmount);
+        for (Expense expense : expenses) {
+            if (top.size() < 5) {
+                top.add(expense);
+            } else if (byAmount.compare(expense, top.peek()) > 0) {
+                top.poll();
+                top.add(expense);
+            }
+        }
+        List<Expense> result = new ArrayList<>(top);
+        result.sort(byAmount.reversed());
+        return result;
+    }
+
+    @Benchmark
+    public void mapToResponses(Blackhole blackhole) {
+        for (Expense expense : expenses) {
+            blackhole.consume(new ExpenseResponse(expense));
+        }
+    }
+}
@@ -1,14 +1,75 @@
 package com.example.demo;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class AppConfig {
 
+    /**
+     * Shared RestTemplate on the JDK HttpClient, which keeps connections open and reuses them
+     * across requests. Calls give up after the connect/read timeouts instead of hanging.
+     */
+    @Bean
+    public RestTemplate restTemplate(@Value("${ai.service.connect-timeout-ms:1000}") long connectTimeoutMs,
+                                     @Value("${ai.service.read-timeout-ms:3000}") long readTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // The Flask service speaks plain HTTP/1.1
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Threads for asynchronous prediction calls, so waiting on the Python service
+     * does not hold a request thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor aiPredictionExecutor(@Value("${ai.service.max-concurrent:8}") int maxConcurrent,
+                                                       @Value("${ai.service.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ai-predict-");
+        return executor;
+    }
+
+    /**
+     * Threads for the EmailService queue workers; each one runs for the life of the application.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mailExecutor(@Value("${mail.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("mail-worker-");
+        return executor;
+    }
+
+    /**
+     * Threads for BCrypt hashing and checking (PasswordHasher). Bounded in threads and queue so a burst
+     * of logins cannot take every request thread or CPU; beyond the queue, hashes are refused.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ThreadPoolTaskExecutor passwordHashExecutor(@Value("${password.hash.threads:0}") int threads,
+                                                       @Value("${password.hash.queue-capacity:200}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        return executor;
     }
-}
\ No newline at end of file
+}
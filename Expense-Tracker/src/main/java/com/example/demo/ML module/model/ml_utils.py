@@ -1,4 +1,5 @@
 import os
+import json
 import joblib
 import pandas as pd
 import numpy as np
@@ -10,11 +11,20 @@ from xgboost import XGBRegressor
 
 MODEL_FOLDER = "models"
 MODEL_FILE = "expense_model.pkl"
+MODEL_JSON_FILE = "expense_model.json"  # same model, for the Java in-process scorer
 FALLBACK_DATASET = "fallback_dataset.csv"   # your monthly CSV
 
 os.makedirs(MODEL_FOLDER, exist_ok=True)
 
 
+# Model inputs: one month of a user's spending per category, plus Income. Same names and meaning as
+# FeatureStore.COLUMNS in the Spring app, which builds these vectors for prediction.
+FEATURE_COLUMNS = ["Food", "Transport", "Entertainment", "Shopping", "Bills", "Health", "Others",
+                   "Total_Expense", "Income"]
+SPENDING_COLUMNS = FEATURE_COLUMNS[:7]
+# Target: the Total_Expense of the following month
+
+
 # ------------------------------------------------------------------------------------------------
 # ✅ Load fallback dataset ONCE → acts as default training + demo model
 # ------------------------------------------------------------------------------------------------
@@ -24,44 +34,96 @@ def load_fallback_dataset():
 
     df = pd.read_csv(FALLBACK_DATASET)
 
-    # Remove non-feature columns
-    drop_cols = [c for c in df.columns if c.lower() in ['month', 'savings']]
-    df = df.drop(columns=drop_cols, errors='ignore')
+    missing = [c for c in FEATURE_COLUMNS if c not in df.columns]
+    if missing:
+        raise KeyError(f"❌ ERROR: Fallback dataset is missing columns {missing}.")
+
+    # Months in order, feature columns only (Month and Savings are not features)
+    if "Month" in df.columns:
+        df = df.sort_values("Month")
+    return df[FEATURE_COLUMNS].reset_index(drop=True)
+
+
+fallback_dataset = load_fallback_dataset()
 
-    # Use mean row as baseline representation
-    return df.mean(numeric_only=True)
+# Mean row as baseline representation: the default of every missing feature
+fallback_mean_vector = fallback_dataset.mean(numeric_only=True)
 
 
-fallback_mean_vector = load_fallback_dataset()
+def new_pipeline():
+    return Pipeline([
+        ("scaler", StandardScaler()),
+        ("model", XGBRegressor(n_estimators=120, max_depth=5, learning_rate=0.1))
+    ])
 
 
 # ------------------------------------------------------------------------------------------------
-# ✅ Create a fallback model (DummyRegressor → predicts mean monthly total)
+# ✅ Create a fallback model (XGBoost on the fallback dataset: each month → next month's total)
 # ------------------------------------------------------------------------------------------------
+_fallback_model = None
+
+
 def create_fallback_model():
-    # X (all features)
-    X = np.array([fallback_mean_vector.values])
+    global _fallback_model
+    if _fallback_model is None:
+        X = fallback_dataset[FEATURE_COLUMNS].iloc[:-1]
+        y = fallback_dataset["Total_Expense"].shift(-1).iloc[:-1]
 
-    # ✅ Detect correct target column automatically
-    target_col = None
-    for col in fallback_mean_vector.index:
-        if col.lower().replace(" ", "_") == "total_expense":
-            target_col = col
-            break
+        pipeline = new_pipeline()
+        pipeline.fit(X.to_numpy().astype(float), y.to_numpy().astype(float))
+        _fallback_model = pipeline
+    return _fallback_model, list(FEATURE_COLUMNS)
 
-    if target_col is None:
-        raise KeyError("❌ ERROR: Fallback dataset must contain 'Total_Expense' (case-insensitive).")
 
-    y = np.array([fallback_mean_vector[target_col]])  # target
 
-    pipeline = Pipeline([
-        ("scaler", StandardScaler()),
-        ("model", DummyRegressor(strategy="mean"))
-    ])
+# ------------------------------------------------------------------------------------------------
+# ✅ Save a model as .pkl (for this service) and as .json (for the Java in-process scorer)
+# ------------------------------------------------------------------------------------------------
+def save_model(pipeline, feature_cols):
+    joblib.dump({
+        "pipeline": pipeline,
+        "feature_columns": feature_cols
+    }, os.path.join(MODEL_FOLDER, MODEL_FILE))
+    export_model_json(pipeline, feature_cols)
 
-    pipeline.fit(X, y)
-    return pipeline, list(fallback_mean_vector.index)
 
+def export_model_json(pipeline, feature_cols, path=None):
+    """
+    Writes the scaler + model pipeline as plain JSON (read by LocalModelScorer in the Spring app):
+       feature_columns, defaults (used for missing features), scaler mean/scale,
+       base_score and the XGBoost trees (empty for a constant DummyRegressor).
+    """
+    path = path or os.path.join(MODEL_FOLDER, MODEL_JSON_FILE)
+    scaler = pipeline.named_steps["scaler"]
+    model = pipeline.named_steps["model"]
+
+    doc = {
+        "format": "expense-tree-ensemble/1",
+        "feature_columns": list(feature_cols),
+        # null where the dataset has no mean: the Java scorer then follows the trees' missing branches
+        "defaults": [float(fallback_mean_vector[col]) if col in fallback_mean_vector.index else None
+                     for col in feature_cols],
+        "scaler": {
+            "mean": [float(v) for v in scaler.mean_],
+            "scale": [float(v) for v in scaler.scale_]
+        },
+        # Mean monthly total of the fallback dataset, used if the model produces NaN
+        "fallback_value": float(fallback_mean_vector["Total_Expense"])
+    }
+
+    if isinstance(model, DummyRegressor):
+        doc["base_score"] = float(np.ravel(model.constant_)[0])
+        doc["trees"] = []
+    else:
+        booster = model.get_booster()
+        config = json.loads(booster.save_config())
+        # Stored as "3.5E2" or "[3.5E2]" depending on the XGBoost version
+        doc["base_score"] = float(str(config["learner"]["learner_model_param"]["base_score"]).strip("[]"))
+        doc["trees"] = [json.loads(tree) for tree in booster.get_dump(dump_format="json")]
+
+    with open(path, "w") as f:
+        json.dump(doc, f)
+    return path
 
 
 # ------------------------------------------------------------------------------------------------
@@ -73,6 +135,10 @@ def load_model():
     if os.path.exists(model_path):
         try:
             data = joblib.load(model_path)
+            if list(data["feature_columns"]) != FEATURE_COLUMNS:
+                # Trained on other features (before FEATURE_COLUMNS); the Java app cannot feed it
+                print("[AI WARNING] Trained model uses other feature columns, using fallback model.")
+                return create_fallback_model()
             print("[AI] Loaded trained model successfully.")
             return data["pipeline"], data["feature_columns"]
         except Exception as e:
@@ -93,103 +159,136 @@ def train_model_from_db(expense_df):
     But since this is a demo, if any issue → fallback model.
     """
 
-    model_path = os.path.join(MODEL_FOLDER, MODEL_FILE)
-
     # --------------------------------------------------------------------------------------------
     # ✅ 1. If database is empty → train fallback model
     # --------------------------------------------------------------------------------------------
     if expense_df is None or expense_df.empty:
         print("[AI WARNING] Database empty → training fallback model.")
         pipeline, feature_cols = create_fallback_model()
-        joblib.dump({"pipeline": pipeline, "feature_columns": feature_cols}, model_path)
+        save_model(pipeline, feature_cols)
         return {"status": "fallback_model_trained"}
 
     # --------------------------------------------------------------------------------------------
-    # ✅ 2. Prepare supervised dataset from DB
+    # ✅ 2. Prepare supervised dataset from DB: one row per user and month, in FEATURE_COLUMNS
     # --------------------------------------------------------------------------------------------
-    df = expense_df.copy()
-
     try:
-        df["date"] = pd.to_datetime(df["date"])
-        df["month"] = df["date"].dt.to_period("M").astype(str)
-    except:
-        print("[AI WARNING] Invalid dates → using fallback model.")
+        monthly = monthly_features(expense_df)
+    except Exception as e:
+        print(f"[AI WARNING] Invalid expense data → using fallback model. Reason: {e}")
         pipeline, feature_cols = create_fallback_model()
-        joblib.dump({"pipeline": pipeline, "feature_columns": feature_cols}, model_path)
+        save_model(pipeline, feature_cols)
         return {"status": "fallback_model_trained"}
 
-    monthly = (
-        df.groupby("month")
-          .agg(total_expense=("amount", "sum"))
-          .reset_index()
-    )
+    # Target: the same user's total of the following month
+    monthly["next_total"] = monthly.groupby("user_id")["Total_Expense"].shift(-1)
+    monthly = monthly.dropna(subset=["next_total"])
 
     # Need at least 3 rows for ML to work
     if len(monthly) < 3:
         print("[AI WARNING] Not enough DB data (<3 months) → using fallback model.")
         pipeline, feature_cols = create_fallback_model()
-        joblib.dump({"pipeline": pipeline, "feature_columns": feature_cols}, model_path)
+        save_model(pipeline, feature_cols)
         return {"status": "fallback_model_trained"}
 
     # --------------------------------------------------------------------------------------------
     # ✅ 3. Train real ML model using XGBoost
     # --------------------------------------------------------------------------------------------
     try:
-        monthly["last_month_expense"] = monthly["total_expense"].shift(1)
-        monthly["mean_expense"] = monthly["total_expense"].expanding().mean()
-        monthly = monthly.dropna()
-
-        X = monthly[["last_month_expense", "mean_expense"]]
-        y = monthly["total_expense"]
+        X = monthly[FEATURE_COLUMNS].to_numpy().astype(float)
+        y = monthly["next_total"].to_numpy().astype(float)
 
-        pipeline = Pipeline([
-            ("scaler", StandardScaler()),
-            ("model", XGBRegressor(n_estimators=120, max_depth=5, learning_rate=0.1))
-        ])
+        pipeline = new_pipeline()
         pipeline.fit(X, y)
 
-        joblib.dump({
-            "pipeline": pipeline,
-            "feature_columns": list(X.columns)
-        }, model_path)
+        save_model(pipeline, list(FEATURE_COLUMNS))
 
         return {"status": "trained_using_db"}
 
     except Exception as e:
         print(f"[AI WARNING] Training failed → fallback model. Reason: {e}")
         pipeline, feature_cols = create_fallback_model()
-        joblib.dump({"pipeline": pipeline, "feature_columns": feature_cols}, model_path)
+        save_model(pipeline, feature_cols)
         return {"status": "fallback_model_trained"}
 
 
+def monthly_features(expense_df):
+    """
+    Per user and complete month: spending per category (named categories, the rest as Others),
+    Total_Expense, and Income (unknown in the app, so the dataset mean, as at prediction time).
+    Months without expenses between a user's first and last month count as zero spending.
+    """
+    df = expense_df.copy()
+    df["date"] = pd.to_datetime(df["date"])
+    df["month"] = df["date"].dt.to_period("M")
+    # The current month is not complete yet
+    df = df[df["month"] < pd.Timestamp.now().to_period("M")]
+
+    by_name = {col.lower(): col for col in SPENDING_COLUMNS}
+    df["column"] = df["category"].fillna("").astype(str).str.strip().str.lower().map(by_name).fillna("Others")
+
+    spending = (
+        df.pivot_table(index=["user_id", "month"], columns="column", values="amount", aggfunc="sum", fill_value=0)
+          .reindex(columns=SPENDING_COLUMNS, fill_value=0)
+    )
+
+    frames = []
+    for user_id, rows in spending.groupby(level="user_id"):
+        rows = rows.droplevel("user_id")
+        months = pd.period_range(rows.index.min(), rows.index.max(), freq="M")
+        rows = rows.reindex(months, fill_value=0)
+        rows.insert(0, "user_id", user_id)
+        frames.append(rows)
+
+    if not frames:
+        return pd.DataFrame(columns=["user_id"] + FEATURE_COLUMNS)
+
+    monthly = pd.concat(frames)
+    monthly["Total_Expense"] = monthly[SPENDING_COLUMNS].sum(axis=1)
+    monthly["Income"] = fallback_mean_vector["Income"]
+    return monthly.reset_index(drop=True)
+
+
 # ------------------------------------------------------------------------------------------------
 # ✅ PREDICTION FUNCTION → Always safe
 # ------------------------------------------------------------------------------------------------
 def predict_expense(feature_data):
+    return predict_expenses([feature_data])[0]
+
+
+# ------------------------------------------------------------------------------------------------
+# ✅ BATCH PREDICTION → one model load and one pipeline.predict call for many rows
+# ------------------------------------------------------------------------------------------------
+def predict_expenses(feature_rows):
     pipeline, feature_cols = load_model()
 
-    row = []
-    for col in feature_cols:
-        value = feature_data.get(col, fallback_mean_vector[col])
-        if pd.isna(value):
-            value = 0
-        row.append(value)
+    rows = []
+    for feature_data in feature_rows:
+        row = []
+        for col in feature_cols:
+            value = feature_data.get(col)
+            if value is None or pd.isna(value):
+                value = fallback_mean_vector.get(col, 0)
+            row.append(value)
+        rows.append(row)
 
-    X = pd.DataFrame([row], columns=feature_cols)
+    X = pd.DataFrame(rows, columns=feature_cols)
 
     # ✅ Convert to numpy to avoid StandardScaler warning
     X_values = X.to_numpy().astype(float)
 
-    pred = pipeline.predict(X_values)[0]
+    preds = pipeline.predict(X_values)
 
-    # ✅ Handle invalid predictions
-    if pred is None or pd.isna(pred) or pred == float("nan"):
-        pred = float(fallback_mean_vector.mean())  # safe fallback
+    results = []
+    for pred in preds:
+        # ✅ Handle invalid predictions
+        if pred is None or pd.isna(pred):
+            pred = float(fallback_mean_vector.mean())  # safe fallback
 
-    pred = float(pred)
+        pred = float(pred)
 
-    if pred < 0:
-        pred = 0.0
+        if pred < 0:
+            pred = 0.0
 
-    return pred
+        results.append(pred)
 
+    return results
@@ -13,16 +13,40 @@ def predict():
     if not data or 'user_id' not in data:
         return jsonify({'error': 'Missing user_id'}), 400
 
-    # ✅ You do NOT use db_conn_string currently
     user_id = int(data['user_id'])
 
-    # ✅ Predict without DB features
-    predicted_value = ml_utils.predict_expense({})
+    # ✅ Features come from the Java feature store; missing columns take the dataset means
+    features = data.get('features') or {}
+    predicted_value = ml_utils.predict_expense(features)
 
     return jsonify({
         "user_id": user_id,
         "predicted_next_month_expense": predicted_value,
-        "based_on": "fallback model / limited history"
+        "based_on_month": data.get('based_on_month')
+    }), 200
+
+@app.route('/predict/batch', methods=['POST'])
+def predict_batch():
+    data = request.json
+
+    if not data or not isinstance(data.get('user_ids'), list):
+        return jsonify({'error': 'Missing user_ids'}), 400
+
+    user_ids = [int(user_id) for user_id in data['user_ids']]
+
+    # ✅ Features per user id (JSON keys are strings); one model load and one predict call for the whole list
+    features = data.get('features') or {}
+    predicted_values = ml_utils.predict_expenses([features.get(str(user_id)) or {} for user_id in user_ids])
+
+    return jsonify({
+        "predictions": [
+            {
+                "user_id": user_id,
+                "predicted_next_month_expense": predicted_value,
+                "based_on_month": data.get('based_on_month')
+            }
+            for user_id, predicted_value in zip(user_ids, predicted_values)
+        ]
     }), 200
 
 @app.route('/health', methods=['GET'])
@@ -1,17 +1,9 @@
-from ml_utils import create_fallback_model
-import joblib
-import os
-
-MODEL_FOLDER = "models"
-MODEL_FILE = "expense_model.pkl"
-
-os.makedirs(MODEL_FOLDER, exist_ok=True)
+from ml_utils import create_fallback_model, save_model
 
 pipeline, feature_cols = create_fallback_model()
 
-joblib.dump({
-    "pipeline": pipeline,
-    "feature_columns": feature_cols
-}, os.path.join(MODEL_FOLDER, MODEL_FILE))
+# Writes models/expense_model.pkl and models/expense_model.json (XGBoost trained on the fallback
+# dataset, over the same FEATURE_COLUMNS the Java FeatureStore produces, so the app can score it in-process).
+save_model(pipeline, feature_cols)
 
 print("✅ Fallback model trained and saved successfully.")
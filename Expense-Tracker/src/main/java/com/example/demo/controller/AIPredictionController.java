@@ -2,34 +2,56 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.NextMonthPredictionResponse;
 import com.example.demo.services.AIPredictionService;
+import com.example.demo.services.PredictionStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/api/ai")
 @RequiredArgsConstructor
 public class AIPredictionController {
 
+    private static final int MAX_BATCH_USERS = 10_000;
+
+    private final PredictionStore predictionStore;
     private final AIPredictionService aiPredictionService;
 
     /**
      * Endpoint for the frontend to get a prediction for the next month's total expenses.
+     * Served from the stored predictions; only a user without one for next month waits on the
+     * Python service, and then asynchronously (the request thread is released meanwhile).
      * @param userId The ID of the user to predict for.
      * @return A DTO containing the predicted amount.
      */
     @GetMapping("/predict-expense/{userId}")
-    public ResponseEntity<NextMonthPredictionResponse> getNextMonthPrediction(@PathVariable Integer userId) {
-        try {
-            NextMonthPredictionResponse prediction = aiPredictionService.getPredictionForUser(userId);
-            // If service returned an error inside DTO, reflect it as 200 but include error message (frontend handles it).
-            return ResponseEntity.ok(prediction);
-        } catch (Exception ex) {
-            // Unexpected error
-            NextMonthPredictionResponse fallback = new NextMonthPredictionResponse(userId, 0.0, "Internal error calling prediction service");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(fallback);
+    public CompletableFuture<ResponseEntity<NextMonthPredictionResponse>> getNextMonthPrediction(@PathVariable Integer userId) {
+        return predictionStore.getPrediction(userId)
+                // If service returned an error inside DTO, reflect it as 200 but include error message (frontend handles it).
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(ex -> {
+                    // Unexpected error
+                    NextMonthPredictionResponse fallback = new NextMonthPredictionResponse(userId, 0.0, "Internal error calling prediction service");
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(fallback);
+                });
+    }
+
+    /**
+     * Scores a list of users in one request (admin views). The Python service is called once per
+     * ai.service.batch-size users, with the chunks sent concurrently. Results are in request order;
+     * users that could not be scored get the fallback DTO with an error message.
+     */
+    @PostMapping("/predict-expense/batch")
+    public CompletableFuture<ResponseEntity<List<NextMonthPredictionResponse>>> getNextMonthPredictions(@RequestBody List<Integer> userIds) {
+        if (userIds == null || userIds.isEmpty() || userIds.size() > MAX_BATCH_USERS || userIds.contains(null)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
+        return aiPredictionService.getPredictionsForUsersAsync(userIds)
+                .thenApply(ResponseEntity::ok);
     }
 }
@@ -0,0 +1,34 @@
+package com.example.demo.controller;
+
+import com.example.demo.services.RateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Shared rate limit checks of the auth endpoints: one bucket per client address and one per email.
+ * A refused request gets 429 with Retry-After in seconds.
+ */
+final class Admission {
+
+    private Admission() {
+    }
+
+    /**
+     * @return null if the request may go ahead, otherwise the 429 response to send
+     */
+    static <T> ResponseEntity<T> check(RateLimiter rateLimiter, HttpServletRequest request,
+                                       RateLimiter.Limit clientLimit, RateLimiter.Limit emailLimit, String email) {
+        long waitMillis = rateLimiter.tryAcquire(clientLimit, request.getRemoteAddr());
+        if (waitMillis == 0) {
+            waitMillis = rateLimiter.tryAcquire(emailLimit, email);
+        }
+        if (waitMillis == 0) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000))
+                .build();
+    }
+}
@@ -1,26 +1,58 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.AuthLoadStats;
 import com.example.demo.dto.UserRequest;
 import com.example.demo.dto.UserResponse;
 import com.example.demo.services.AuthService;
+import com.example.demo.services.PasswordHasher;
+import com.example.demo.services.RateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
     @Autowired
     private AuthService authService;
+    @Autowired
+    private PasswordHasher passwordHasher;
+    @Autowired
+    private RateLimiter rateLimiter;
 
+    // Waits for the hash from the PasswordHasher pool; 503 (busy) if the pool refuses it
     @PostMapping("/register")
     public ResponseEntity<String> register(@RequestBody UserRequest userRequest){
         return ResponseEntity.ok(authService.register(userRequest));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<UserResponse> login(@RequestBody UserRequest userRequest){
-        return ResponseEntity.ok(authService.login(userRequest));
+    public CompletableFuture<ResponseEntity<UserResponse>> login(@RequestBody UserRequest userRequest, HttpServletRequest request){
+        ResponseEntity<UserResponse> refused = Admission.check(rateLimiter, request,
+                RateLimiter.Limit.LOGIN_CLIENT, RateLimiter.Limit.LOGIN_EMAIL, userRequest.getEmail());
+        if (refused != null) {
+            return CompletableFuture.completedFuture(refused);
+        }
+        return authService.login(userRequest).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<AuthLoadStats> stats(){
+        return ResponseEntity.ok(new AuthLoadStats(passwordHasher.stats(), rateLimiter.refusedCounts()));
+    }
+
+    // The hashing pool is full
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> busy(RejectedExecutionException e){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
     }
 }
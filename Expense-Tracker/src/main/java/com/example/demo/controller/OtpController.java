@@ -1,9 +1,12 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.MailQueueStats;
 import com.example.demo.dto.MailRequest;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.services.EmailService;
 import com.example.demo.services.OtpService;
+import com.example.demo.services.RateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,25 +25,40 @@ public class OtpController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @PostMapping("/send")
-    public ResponseEntity<String> sendOtp(@RequestBody MailRequest mailRequest){
+    public ResponseEntity<String> sendOtp(@RequestBody MailRequest mailRequest, HttpServletRequest request){
+        ResponseEntity<String> refused = Admission.check(rateLimiter, request,
+                RateLimiter.Limit.OTP_CLIENT, RateLimiter.Limit.OTP_EMAIL, mailRequest.getTo());
+        if(refused != null){
+            return refused;
+        }
         if(userRepository.findByEmail(mailRequest.getTo()).isPresent()){
             return ResponseEntity.status(HttpStatus.CONFLICT).body("Email already exists");
         }
         String otp = otpService.generateOtp(mailRequest.getTo());
         String body = "Your Verification Code Is: "+otp+" Enter It To Login.";
         String subject = "Your Login Verification OTP";
-        emailService.sendEmail(mailRequest.getTo(), subject, body);
+        if(!emailService.sendEmail(mailRequest.getTo(), subject, body)){
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Could not send the OTP right now, try again shortly");
+        }
         return ResponseEntity.ok("OTP sent to " + mailRequest.getTo());
     }
 
+    @GetMapping("/mail/stats")
+    public ResponseEntity<MailQueueStats> mailStats(){
+        return ResponseEntity.ok(emailService.stats());
+    }
+
     @PostMapping("/verify")
     public String verifyOtp(@RequestParam String email, @RequestParam String otp){
-        boolean isValid = otpService.verifyOtp(email, otp);
-        if(isValid){
-            return "OTP verified Successfully";
-        }else{
-            return "Invalid OTP";
-        }
+        return switch (otpService.verify(email, otp)) {
+            case VERIFIED -> "OTP verified Successfully";
+            case EXPIRED -> "OTP expired";
+            case TOO_MANY_ATTEMPTS -> "Too many attempts, request a new OTP";
+            default -> "Invalid OTP";
+        };
     }
 }
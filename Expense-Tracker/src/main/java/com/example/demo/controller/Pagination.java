@@ -0,0 +1,39 @@
+package com.example.demo.controller;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Shared handling of keyset-paginated list endpoints (?after=&lt;id&gt;&amp;limit=&amp;sort=asc|desc).
+ * The page itself is returned as a plain JSON array; when more rows exist, the id to pass as
+ * the next "after" is sent in the X-Next-After header.
+ */
+final class Pagination {
+
+    static final String NEXT_AFTER_HEADER = "X-Next-After";
+    static final String DEFAULT_LIMIT = "50";
+    static final int MAX_LIMIT = 500;
+
+    private Pagination() {
+    }
+
+    static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    static boolean isDescending(String sort) {
+        return "desc".equalsIgnoreCase(sort);
+    }
+
+    static <T> ResponseEntity<List<T>> page(Slice<T> slice, Function<T, ?> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.hasNext() && slice.hasContent()) {
+            List<T> content = slice.getContent();
+            response.header(NEXT_AFTER_HEADER, String.valueOf(idOf.apply(content.get(content.size() - 1))));
+        }
+        return response.body(slice.getContent());
+    }
+}
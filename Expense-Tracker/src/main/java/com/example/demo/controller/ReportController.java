@@ -1,7 +1,13 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BudgetBurnRate;
+import com.example.demo.dto.CategoryForecast;
+import com.example.demo.dto.ReportCacheStats;
 import com.example.demo.dto.ReportResponse;
+import com.example.demo.services.ReportCache;
 import com.example.demo.services.ReportService;
+import com.example.demo.services.SpendingForecaster;
+import com.example.demo.services.SpendingRollupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +23,9 @@ import java.util.List;
 public class ReportController {
 
     private final ReportService reportService;
+    private final SpendingRollupService spendingRollupService;
+    private final ReportCache reportCache;
+    private final SpendingForecaster spendingForecaster;
 
     @GetMapping("/user/{userId}")
     public ResponseEntity<ReportResponse> getReport(
@@ -28,4 +37,40 @@ public class ReportController {
         ReportResponse report = reportService.generateReport(userId, startDate, endDate, categoryIds);
         return ResponseEntity.ok(report);
     }
+
+    /**
+     * This month's and next month's projected spending per category, computed in Java
+     * (available when the AI prediction service is not).
+     */
+    @GetMapping("/user/{userId}/forecast")
+    public ResponseEntity<List<CategoryForecast>> getForecast(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) List<Integer> categoryIds) {
+        return ResponseEntity.ok(spendingForecaster.forecast(userId, categoryIds));
+    }
+
+    /**
+     * Burn rate and projected end-of-budget spending of every budget running today.
+     */
+    @GetMapping("/user/{userId}/budget-burn")
+    public ResponseEntity<List<BudgetBurnRate>> getBudgetBurnRates(@PathVariable Integer userId) {
+        return ResponseEntity.ok(spendingForecaster.budgetBurnRates(userId));
+    }
+
+    /**
+     * Hit, miss and eviction counters of the report cache.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ReportCacheStats> getCacheStats() {
+        return ResponseEntity.ok(reportCache.stats());
+    }
+
+    /**
+     * Regenerates the daily/monthly spending rollups from the expenses table.
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<String> rebuildRollups() {
+        int rows = spendingRollupService.rebuild();
+        return ResponseEntity.ok("Rebuilt spending rollups: " + rows + " daily rows");
+    }
 }
\ No newline at end of file
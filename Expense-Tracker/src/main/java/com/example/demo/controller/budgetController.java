@@ -1,19 +1,21 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.BudgetRequest;
+import com.example.demo.dto.BudgetView;
 import com.example.demo.entity.Budget;
 import com.example.demo.entity.Category;
 import com.example.demo.entity.User;
 import com.example.demo.services.BudgetService;
 import com.example.demo.services.CategoryService;
 import com.example.demo.services.UserService;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Optional;
 
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Pagination.NEXT_AFTER_HEADER)
 @RestController
 @RequestMapping("/api/budget")
 public class budgetController {
@@ -28,7 +30,7 @@ public class budgetController {
     }
 
     @PostMapping
-    public ResponseEntity<Budget> createBudget(@RequestBody BudgetRequest request){
+    public ResponseEntity<BudgetView> createBudget(@RequestBody BudgetRequest request){
         Optional<User> user = userService.getUserById(request.getUserId());
         Optional<Category> category = categoryService.getCategoryById(request.getCategoryId());
 
@@ -43,17 +45,28 @@ public class budgetController {
         budget.setStartDate(request.getStartDate());
         budget.setEndDate(request.getEndDate());
 
-        return ResponseEntity.ok(budgetService.createBudget(budget));
+        return ResponseEntity.ok(new BudgetView(budgetService.createBudget(budget)));
     }
 
+    /**
+     * Admin list, one keyset page at a time: ?after=&lt;last id&gt;&amp;limit=&amp;sort=asc|desc,
+     * optionally filtered by userId and categoryId.
+     */
     @GetMapping
-    public ResponseEntity<List<Budget>> getAllBudgets(){
-        return ResponseEntity.ok(budgetService.getAllBudgets());
+    public ResponseEntity<List<BudgetView>> getAllBudgets(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = Pagination.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) Integer categoryId){
+        Slice<BudgetView> page = budgetService.getBudgetsPage(after, Pagination.clampLimit(limit),
+                Pagination.isDescending(sort), userId, categoryId);
+        return Pagination.page(page, BudgetView::getBudgetId);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Budget> getBudgetById(@PathVariable Integer id){
-        Optional<Budget> budget = budgetService.getBudgetById(id);
+    public ResponseEntity<BudgetView> getBudgetById(@PathVariable Integer id){
+        Optional<BudgetView> budget = budgetService.getBudgetViewById(id);
         if(budget.isPresent())
         {
             return ResponseEntity.ok(budget.get());
@@ -65,7 +78,7 @@ public class budgetController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Budget> updateBudget(
+    public ResponseEntity<BudgetView> updateBudget(
             @PathVariable Integer id,
             @RequestBody BudgetRequest request){
         Optional<User> user = userService.getUserById(request.getUserId());
@@ -81,7 +94,7 @@ public class budgetController {
         budgetDetails.setStartDate(request.getStartDate());
         budgetDetails.setEndDate(request.getEndDate());
 
-        return ResponseEntity.ok(budgetService.updateBudget(id,budgetDetails));
+        return ResponseEntity.ok(new BudgetView(budgetService.updateBudget(id,budgetDetails)));
     }
 
     @DeleteMapping("/{id}")
@@ -90,12 +103,17 @@ public class budgetController {
         return ResponseEntity.noContent().build();
     }
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Budget>> getBudgetsByUserId(@PathVariable Integer userId) {
-        // We will create this new method in the service
-        List<Budget> budgets = budgetService.findBudgetsByUserId(userId);
-        if(budgets.isEmpty()) {
+    public ResponseEntity<List<BudgetView>> getBudgetsByUserId(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = Pagination.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(required = false) Integer categoryId) {
+        Slice<BudgetView> page = budgetService.getBudgetsPage(after, Pagination.clampLimit(limit),
+                Pagination.isDescending(sort), userId, categoryId);
+        if(page.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        return ResponseEntity.ok(budgets);
+        return Pagination.page(page, BudgetView::getBudgetId);
     }
 }
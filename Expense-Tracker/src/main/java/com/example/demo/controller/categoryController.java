@@ -3,6 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.dto.CategoryRequest;
 import com.example.demo.entity.Category;
 import com.example.demo.services.CategoryService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -27,9 +28,17 @@ public class categoryController {
         return ResponseEntity.ok(categoryService.createCategory(category));
     }
 
+    /**
+     * Sent with an ETag and "no-cache": browsers keep their copy and revalidate with
+     * If-None-Match, getting a bodiless 304 while the categories are unchanged.
+     */
     @GetMapping
     public ResponseEntity<List<Category>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+        CategoryService.Snapshot snapshot = categoryService.getSnapshot();
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.categories());
     }
 
     @GetMapping("/{id}")
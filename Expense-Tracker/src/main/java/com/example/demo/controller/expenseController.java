@@ -1,35 +1,48 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseView;
 import com.example.demo.entity.Category;
 import com.example.demo.entity.Expense;
 import com.example.demo.entity.User;
-import com.example.demo.repository.ExpenseRepository;
 import com.example.demo.services.CategoryService;
+import com.example.demo.services.ExpenseExportService;
 import com.example.demo.services.ExpenseService;
 import com.example.demo.services.UserService;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Pagination.NEXT_AFTER_HEADER)
 @RestController
 @RequestMapping("/api/expenses")
 public class expenseController {
 
+    // One batch is one transaction holding every row and wallet lock it touches; larger syncs are split by the client
+    private static final int MAX_BATCH_EXPENSES = 1_000;
+
     private final ExpenseService expenseService;
     private final UserService userService;
     private final CategoryService categoryService;
-    public expenseController(ExpenseService expenseService, UserService userService, CategoryService categoryService) {
+    private final ExpenseExportService expenseExportService;
+    public expenseController(ExpenseService expenseService, UserService userService, CategoryService categoryService,
+                             ExpenseExportService expenseExportService) {
         this.expenseService = expenseService;
         this.userService = userService;
         this.categoryService = categoryService;
+        this.expenseExportService = expenseExportService;
     }
 
     @PostMapping
-    public ResponseEntity<Expense> createExpense(@RequestBody ExpenseRequest request){
+    public ResponseEntity<ExpenseView> createExpense(@RequestBody ExpenseRequest request){
         Optional<User> user = userService.getUserById(request.getUserId());
         Optional<Category> category = categoryService.getCategoryById(request.getCategoryId());
 
@@ -44,17 +57,59 @@ public class expenseController {
         expense.setExpenseDate(request.getExpenseDate());
         expense.setNote(request.getNote());
 
-        return ResponseEntity.ok(expenseService.createExpense(expense));
+        return ResponseEntity.ok(new ExpenseView(expenseService.createExpense(expense)));
+    }
+
+    /**
+     * Creates many expenses in one request (e.g. offline sync). All-or-nothing.
+     * Returns the created expenses, in request order, with their new ids.
+     * At most MAX_BATCH_EXPENSES per request; larger batches are rejected with 400.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<ExpenseView>> createExpenses(@RequestBody List<ExpenseRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_EXPENSES) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ExpenseView> created = expenseService.createExpenses(requests).stream()
+                .map(ExpenseView::new)
+                .toList();
+        return ResponseEntity.ok(created);
     }
 
+    /**
+     * Admin list, one keyset page at a time: ?after=&lt;last id&gt;&amp;limit=&amp;sort=asc|desc,
+     * optionally filtered by userId, categoryId and a from/to expense date.
+     */
     @GetMapping
-    public ResponseEntity<List<Expense>> getAllExpenses() {
-        return ResponseEntity.ok(expenseService.getAllExpenses());
+    public ResponseEntity<List<ExpenseView>> getAllExpenses(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = Pagination.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Slice<ExpenseView> page = expenseService.getExpensesPage(after, Pagination.clampLimit(limit),
+                Pagination.isDescending(sort), userId, categoryId, from, to);
+        return Pagination.page(page, ExpenseView::getExpenseId);
+    }
+
+    /**
+     * Expenses flagged as unusual for their user and category when they were created, newest first:
+     * ?userId=&amp;after=&lt;last id&gt;&amp;limit=
+     */
+    @GetMapping("/anomalies")
+    public ResponseEntity<List<ExpenseView>> getAnomalies(
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = Pagination.DEFAULT_LIMIT) int limit) {
+        Slice<ExpenseView> page = expenseService.getAnomaliesPage(after, Pagination.clampLimit(limit), userId);
+        return Pagination.page(page, ExpenseView::getExpenseId);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Expense> getExpenseById(@PathVariable Integer id) {
-        Optional<Expense> Expense = expenseService.getExpenseById(id);
+    public ResponseEntity<ExpenseView> getExpenseById(@PathVariable Integer id) {
+        Optional<ExpenseView> Expense = expenseService.getExpenseViewById(id);
         if (Expense.isPresent())
         {
             return ResponseEntity.ok(Expense.get());
@@ -66,7 +121,7 @@ public class expenseController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Expense> updateExpense(
+    public ResponseEntity<ExpenseView> updateExpense(
             @PathVariable Integer id,
             @RequestBody ExpenseRequest request) {
         Optional<User> user = userService.getUserById(request.getUserId());
@@ -82,7 +137,7 @@ public class expenseController {
         expenseDetails.setExpenseAmount(request.getExpenseAmount());
         expenseDetails.setExpenseDate(request.getExpenseDate());
         expenseDetails.setNote(request.getNote());
-        return ResponseEntity.ok(expenseService.updateExpense(id, expenseDetails));
+        return ResponseEntity.ok(new ExpenseView(expenseService.updateExpense(id, expenseDetails)));
     }
 
     @DeleteMapping("/{id}")
@@ -92,24 +147,55 @@ public class expenseController {
     }
 
     @GetMapping("/category/{categoryName}")
-    public ResponseEntity<List<Expense>> getExpensesByCategory(@PathVariable String categoryName) {
-        List<Expense> expenses = expenseService.findByCategoryName(categoryName);
+    public ResponseEntity<List<ExpenseView>> getExpensesByCategory(@PathVariable String categoryName) {
+        List<ExpenseView> expenses = expenseService.findByCategoryName(categoryName);
         if(expenses.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.ok(expenses);
     }
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Expense>> getExpensesByUserId(@PathVariable Integer userId) {
-        // We will create this new method in the service
-        List<Expense> expenses = expenseService.findExpensesByUserId(userId);
-        if(expenses.isEmpty()) {
+    public ResponseEntity<List<ExpenseView>> getExpensesByUserId(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = Pagination.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Slice<ExpenseView> page = expenseService.getExpensesPage(after, Pagination.clampLimit(limit),
+                Pagination.isDescending(sort), userId, categoryId, from, to);
+        if(page.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        return ResponseEntity.ok(expenses);
+        return Pagination.page(page, ExpenseView::getExpenseId);
+    }
+
+    /**
+     * Streams the user's full expense history as CSV (default) or NDJSON, one row at a time.
+     */
+    @GetMapping("/user/{userId}/export")
+    public void exportExpensesByUserId(
+            @PathVariable Integer userId,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        ExpenseExportService.Format exportFormat;
+        if ("csv".equalsIgnoreCase(format)) {
+            exportFormat = ExpenseExportService.Format.CSV;
+            response.setContentType("text/csv;charset=UTF-8");
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            exportFormat = ExpenseExportService.Format.NDJSON;
+            response.setContentType("application/x-ndjson;charset=UTF-8");
+        } else {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "format must be csv or ndjson");
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"expenses-user-" + userId + "." + format.toLowerCase() + "\"");
+        expenseExportService.exportUserExpenses(userId, exportFormat, response.getOutputStream());
     }
 
-    public List<Expense> findByCategoryNameRaw(String categoryName) {
+    public List<ExpenseView> findByCategoryNameRaw(String categoryName) {
         // This tells the repository to find by the 'category' object's 'categoryName' property
         return expenseService.findByCategoryName(categoryName);
     }
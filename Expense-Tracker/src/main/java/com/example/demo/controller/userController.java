@@ -3,27 +3,34 @@ package com.example.demo.controller;
 import com.example.demo.dto.UserRequest;
 import com.example.demo.dto.UserResponse;
 import com.example.demo.entity.User;
+import com.example.demo.entity.WalletLedgerEntry;
+import com.example.demo.services.PasswordHasher;
 import com.example.demo.services.UserService;
+import com.example.demo.services.WalletService;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors; // <-- ADD THIS IMPORT
 
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Pagination.NEXT_AFTER_HEADER)
 @RestController
 @RequestMapping("/api/users")
 public class userController {
 
     private final UserService userService;
-    private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final WalletService walletService;
+    private final PasswordHasher passwordHasher;
 
-    public userController(UserService userService) {
+    public userController(UserService userService, WalletService walletService, PasswordHasher passwordHasher) {
         this.userService = userService;
+        this.walletService = walletService;
+        this.passwordHasher = passwordHasher;
     }
 
     // This endpoint is from your old code, but it's better to use the main PUT /{id}
@@ -35,12 +42,36 @@ public class userController {
         return ResponseEntity.ok(userService.updateWalletBalance(id, amount));
     }
 
+    /**
+     * Current wallet balance, or the balance at a point in time with ?at=2025-01-31T23:59:59
+     */
+    @GetMapping("/{id}/wallet")
+    public ResponseEntity<BigDecimal> getWalletBalance(
+            @PathVariable Integer id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(at == null ? walletService.getBalance(id) : walletService.getBalanceAt(id, at));
+    }
+
+    /**
+     * One keyset page of the user's wallet history, newest first by default: ?after=&lt;last id&gt;&amp;limit=&amp;sort=asc|desc
+     */
+    @GetMapping("/{id}/wallet/ledger")
+    public ResponseEntity<List<WalletLedgerEntry>> getWalletLedger(
+            @PathVariable Integer id,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = Pagination.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "desc") String sort) {
+        Slice<WalletLedgerEntry> page = walletService.getLedgerPage(id, after, Pagination.clampLimit(limit),
+                Pagination.isDescending(sort));
+        return Pagination.page(page, WalletLedgerEntry::getId);
+    }
+
     @PostMapping
     public ResponseEntity<UserResponse> createUser(@RequestBody UserRequest userRequest){
         User user = new User();
         user.setName(userRequest.getName());
         user.setEmail(userRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+        user.setPassword(passwordHasher.encode(userRequest.getPassword()));
 
         User createdUser = userService.CreateUser(user);
 
@@ -55,9 +86,18 @@ public class userController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * One keyset page of users: ?after=&lt;last id&gt;&amp;limit=&amp;sort=asc|desc&amp;search=&lt;name or email&gt;
+     */
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers(){
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<List<UserResponse>> getAllUsers(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = Pagination.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(required = false) String search){
+        Slice<UserResponse> page = userService.getUsersPage(after, Pagination.clampLimit(limit),
+                Pagination.isDescending(sort), search);
+        return Pagination.page(page, UserResponse::getUserID);
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Password hashing load and requests refused by the rate limits, since startup.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AuthLoadStats {
+    private PasswordHashStats passwordHashing;
+    // Limit name (e.g. LOGIN_EMAIL) -> requests refused
+    private Map<String, Long> rateLimited;
+}
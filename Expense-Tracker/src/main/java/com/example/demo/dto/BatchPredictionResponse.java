@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Body returned by the Python service's POST /predict/batch route.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchPredictionResponse {
+
+    private List<NextMonthPredictionResponse> predictions;
+
+    // No-arg constructor required for Jackson
+    public BatchPredictionResponse() {}
+
+    public List<NextMonthPredictionResponse> getPredictions() { return predictions; }
+    public void setPredictions(List<NextMonthPredictionResponse> predictions) { this.predictions = predictions; }
+}
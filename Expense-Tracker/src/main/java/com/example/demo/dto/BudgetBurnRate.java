@@ -0,0 +1,42 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * How fast an active budget is being used up, and where it is heading by its end date.
+ * The first fields are filled in by BudgetRepository.findActiveWithSpending, the projections by SpendingForecaster.
+ */
+@Getter
+@Setter
+public class BudgetBurnRate {
+    private Integer budgetId;
+    private Integer categoryId;
+    private String categoryName;
+    private BigDecimal budgetAmount;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal spent;
+
+    // Average spent per elapsed day of the budget
+    private BigDecimal dailyBurnRate;
+    private BigDecimal projectedSpend;
+    private BigDecimal projectedRemaining;
+    // First day the projected spending reaches the budget amount, or null if it does not before endDate
+    private LocalDate projectedExhaustionDate;
+    private boolean onTrack;
+
+    public BudgetBurnRate(Integer budgetId, Integer categoryId, String categoryName, BigDecimal budgetAmount,
+                          LocalDate startDate, LocalDate endDate, BigDecimal spent) {
+        this.budgetId = budgetId;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.budgetAmount = budgetAmount;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.spent = spent == null ? BigDecimal.ZERO : spent;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Budget;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read model returned by the budget endpoints (budget.user.userId, budget.category.categoryName, ...).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetView {
+    private Integer budgetId;
+    private BigDecimal budgetAmount;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private UserRef user;
+    private CategoryRef category;
+
+    /**
+     * Flat constructor for JPQL "SELECT new ..." projections.
+     */
+    public BudgetView(Integer budgetId, BigDecimal budgetAmount, LocalDate startDate, LocalDate endDate,
+                      Integer userId, String userName, Integer categoryId, String categoryName) {
+        this(budgetId, budgetAmount, startDate, endDate,
+                new UserRef(userId, userName), new CategoryRef(categoryId, categoryName));
+    }
+
+    /**
+     * Converts a Budget whose user and category are already loaded (e.g. right after a save).
+     */
+    public BudgetView(Budget budget) {
+        this(budget.getBudgetId(), budget.getBudgetAmount(), budget.getStartDate(), budget.getEndDate(),
+                budget.getUser().getUserId(), budget.getUser().getName(),
+                budget.getCategory().getCategoryId(), budget.getCategory().getCategoryName());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Projected spending of one user in one category, from SpendingForecaster.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class CategoryForecast {
+    private Integer categoryId;
+    private String categoryName;
+    private BigDecimal spentThisMonth;
+    private BigDecimal projectedThisMonth;
+    private BigDecimal projectedNextMonth;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * One aggregated row per category, produced by the GROUP BY queries
+ * in ExpenseRepository / BudgetRepository and the spending rollup repositories.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class CategoryTotal {
+    private String categoryName;
+    private BigDecimal total;
+    private Long transactions; // only filled in by the rollup queries
+
+    public CategoryTotal(String categoryName, BigDecimal total) {
+        this(categoryName, total, null);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Expense;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read model returned by the expense endpoints. Same shape the frontend used from the entity
+ * (expense.user.userId, expense.category.categoryName, ...), minus everything else on User/Category.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseView {
+    private Integer expenseId;
+    private BigDecimal expenseAmount;
+    private LocalDate expenseDate;
+    private String note;
+    private UserRef user;
+    private CategoryRef category;
+    private Boolean anomalous;
+    private Double anomalyScore;
+
+    /**
+     * Flat constructor for JPQL "SELECT new ..." projections.
+     */
+    public ExpenseView(Integer expenseId, BigDecimal expenseAmount, LocalDate expenseDate, String note,
+                       Integer userId, String userName, Integer categoryId, String categoryName,
+                       Boolean anomalous, Double anomalyScore) {
+        this(expenseId, expenseAmount, expenseDate, note,
+                new UserRef(userId, userName), new CategoryRef(categoryId, categoryName), anomalous, anomalyScore);
+    }
+
+    /**
+     * Converts an Expense whose user and category are already loaded (e.g. right after a save).
+     */
+    public ExpenseView(Expense expense) {
+        this(expense.getExpenseId(), expense.getExpenseAmount(), expense.getExpenseDate(), expense.getNote(),
+                expense.getUser().getUserId(), expense.getUser().getName(),
+                expense.getCategory().getCategoryId(), expense.getCategory().getCategoryName(),
+                expense.getAnomalous(), expense.getAnomalyScore());
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * State of the outgoing mail queue and counters since startup.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class MailQueueStats {
+    private int queued;             // waiting to be sent right now
+    private int capacity;
+    private long enqueued;
+    private long rejected;          // not accepted because the queue was full
+    private long sent;
+    private long retried;           // attempts that failed and were scheduled again
+    private long failed;            // given up on after the last attempt
+    private long batches;
+    private long connectionsOpened; // SMTP connections; each one carries many messages
+    private double sendLatencyMeanMs;
+    private double sendLatencyP95Ms;
+    private double sendLatencyMaxMs;
+}
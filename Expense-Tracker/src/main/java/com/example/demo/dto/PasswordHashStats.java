@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Load on the password hashing pool and counters since startup.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PasswordHashStats {
+    private int threads;
+    private int active;
+    private int queued;
+    private long rejected;  // refused because the queue was full
+    private long hashes;    // hashes and checks done
+    private double latencyMeanMs;
+    private double latencyP95Ms;
+    private double latencyMaxMs;
+}
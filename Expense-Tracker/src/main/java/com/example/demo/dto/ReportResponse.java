@@ -19,4 +19,5 @@ public class ReportResponse {
     private List<CategorySpending> spendingByCategory;
     private List<SpendingOverTime> spendingByDay;
     private List<ExpenseResponse> topExpenses;
+    private List<CategoryForecast> forecastByCategory; // this and next month, from SpendingForecaster
 }
\ No newline at end of file
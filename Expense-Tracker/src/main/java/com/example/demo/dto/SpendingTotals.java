@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Total amount and number of expenses in a report range, computed in a single query.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class SpendingTotals {
+    private BigDecimal total;
+    private Long count;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * One expense reduced to what the running spending statistics need (AnomalyDetector rebuilds).
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class UserCategoryAmount {
+    private Integer userId;
+    private Integer categoryId;
+    private BigDecimal amount;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * One aggregated row per (user, category), for queries that cover many users at once.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class UserCategoryTotal {
+    private Integer userId;
+    private String categoryName;
+    private BigDecimal total;
+}
@@ -0,0 +1,28 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Counter row: total amount a user has put into budgets.
+ * Maintained by BudgetService on every budget write, so the wallet check reads one row.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "budget_allocations")
+public class BudgetAllocation {
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(nullable = false)
+    private BigDecimal allocatedAmount;
+}
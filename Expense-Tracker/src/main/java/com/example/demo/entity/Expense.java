@@ -15,17 +15,21 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+        @Index(name = "idx_expenses_user_id_expense_id", columnList = "user_id, expense_id")
+})
 public class Expense {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (see ExpenseService.createExpenses)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expenses_seq")
+    @SequenceGenerator(name = "expenses_seq", sequenceName = "expenses_seq", allocationSize = 50)
     private Integer expenseId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
@@ -33,6 +37,11 @@ public class Expense {
     private LocalDate expenseDate;
     private String note;
 
+    // Scored by AnomalyDetector when the expense is created; null when there was too little history
+    private Boolean anomalous;
+    // Standard deviations above the mean of the user's earlier amounts in the category
+    private Double anomalyScore;
+
     @Column(updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 }
@@ -0,0 +1,52 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saved running statistics of one user's expense amounts in one category (see StreamingStats).
+ * Written periodically by AnomalyDetector and read back at startup.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "spending_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_spending_stats_user_id_category_id", columnNames = {"user_id", "category_id"}))
+public class SpendingStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "category_id", nullable = false)
+    private Integer categoryId;
+
+    @Column(name = "sample_count", nullable = false)
+    private long sampleCount;
+
+    @Column(nullable = false)
+    private double mean;
+
+    @Column(nullable = false)
+    private double m2;
+
+    // P² markers of the tracked quantile
+    @Column(name = "quantile_heights", nullable = false)
+    private double[] quantileHeights;
+
+    @Column(name = "quantile_positions", nullable = false)
+    private int[] quantilePositions;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,54 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The last prediction made by the AI service for a user and month.
+ * Expense writes set dirty; the scheduled recompute in PredictionStore refreshes dirty rows.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "predictions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_predictions_user_id_target_month", columnNames = {"user_id", "target_month"}))
+public class StoredPrediction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    // First day of the month the prediction is for
+    @Column(name = "target_month", nullable = false)
+    private LocalDate targetMonth;
+
+    @Column(name = "predicted_amount", nullable = false)
+    private Double predictedAmount;
+
+    @Column(name = "model_path")
+    private String modelPath;
+
+    @Column(name = "based_on_month")
+    private String basedOnMonth;
+
+    @Column(nullable = false)
+    private boolean dirty;
+
+    // Bumped by every expense write; a recompute only clears dirty if no write happened while it ran
+    @Column(nullable = false)
+    private long changes;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
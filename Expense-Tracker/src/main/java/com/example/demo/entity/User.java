@@ -32,6 +32,8 @@ public class User {
     @Column(nullable = false)
     private String password;
 
-    @Column(precision = 10, scale = 2) // Good for currency
+    // Current balance from WalletService (wallet_balances). Not mapped to the old users.wallet_balance
+    // column, which is legacy-only: imported into the ledger at startup and no longer written
+    @Transient
     private BigDecimal walletBalance;
 }
@@ -0,0 +1,29 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance row: a user's current wallet balance, the sum of all their ledger entries.
+ * WalletService changes it with one conditional UPDATE in the same transaction that inserts the
+ * ledger entry, so the database refuses overdrafts and writes for one user are serialized on it.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "wallet_balances")
+public class WalletBalance {
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal balance;
+}
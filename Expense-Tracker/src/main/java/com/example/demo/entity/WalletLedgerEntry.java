@@ -0,0 +1,54 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One insert-only wallet movement: negative amounts are debits, positive are credits.
+ * A user's balance is the latest WalletSnapshot plus the entries written after it.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "wallet_ledger",
+        indexes = @Index(name = "idx_wallet_ledger_user_id_id", columnList = "user_id, id"))
+public class WalletLedgerEntry {
+
+    public enum EntryType {
+        OPENING,        // balance carried over from the old users.wallet_balance column
+        EXPENSE,
+        EXPENSE_UPDATE,
+        REFUND,
+        ADJUSTMENT      // wallet set from the user/admin screens
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // No foreign key: the audit trail outlives the user
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Integer userId;
+
+    @Column(nullable = false, updatable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 20)
+    private EntryType entryType;
+
+    // Set for EXPENSE, EXPENSE_UPDATE and REFUND entries of a single expense
+    @Column(updatable = false)
+    private Integer expenseId;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
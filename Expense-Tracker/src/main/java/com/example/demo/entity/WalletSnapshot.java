@@ -0,0 +1,41 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A user's wallet balance after every ledger entry up to lastEntryId.
+ * Written periodically by WalletService so balances never need the whole ledger.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "wallet_snapshots",
+        indexes = @Index(name = "idx_wallet_snapshots_user_id_last_entry_id", columnList = "user_id, last_entry_id"))
+public class WalletSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+
+    // createdAt of the last entry covered
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+}
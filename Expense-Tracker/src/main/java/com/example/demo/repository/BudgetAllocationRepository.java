@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.BudgetAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface BudgetAllocationRepository extends JpaRepository<BudgetAllocation, Integer> {
+
+    // Adds to the user's allocated total only if the result stays within the limit; returns 0 when refused.
+    // The conflict update locks the row, so concurrent reservations for one user are checked one at a time.
+    @Modifying
+    @Query(value = "INSERT INTO budget_allocations (user_id, allocated_amount) " +
+            "SELECT :userId, :amount WHERE :amount <= :limit " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "allocated_amount = budget_allocations.allocated_amount + EXCLUDED.allocated_amount " +
+            "WHERE budget_allocations.allocated_amount + EXCLUDED.allocated_amount <= :limit", nativeQuery = true)
+    int reserve(@Param("userId") Integer userId,
+                @Param("amount") BigDecimal amount,
+                @Param("limit") BigDecimal limit);
+
+    // Adds (or subtracts, with negative values) without any limit
+    @Modifying
+    @Query(value = "INSERT INTO budget_allocations (user_id, allocated_amount) VALUES (:userId, :amount) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "allocated_amount = budget_allocations.allocated_amount + EXCLUDED.allocated_amount", nativeQuery = true)
+    void adjust(@Param("userId") Integer userId, @Param("amount") BigDecimal amount);
+
+    @Query("SELECT a.allocatedAmount FROM BudgetAllocation a WHERE a.userId = :userId")
+    BigDecimal findAllocatedAmount(@Param("userId") Integer userId);
+
+    // --- Full rebuild from the budget table ---
+
+    @Modifying
+    @Query(value = "DELETE FROM budget_allocations", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO budget_allocations (user_id, allocated_amount) " +
+            "SELECT user_id, SUM(budget_amount) FROM budget " +
+            "WHERE budget_amount IS NOT NULL GROUP BY user_id", nativeQuery = true)
+    int rebuildFromBudgets();
+}
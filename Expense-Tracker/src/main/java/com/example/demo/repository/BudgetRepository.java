@@ -3,6 +3,10 @@ package com.example.demo.repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import com.example.demo.dto.BudgetBurnRate;
+import com.example.demo.dto.BudgetView;
+import com.example.demo.dto.CategoryTotal;
 import com.example.demo.entity.Budget;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -10,7 +14,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface BudgetRepository extends JpaRepository<Budget,Integer> {
+public interface BudgetRepository extends JpaRepository<Budget,Integer>, BudgetRepositoryCustom {
     List<Budget> findByUser_UserId(Integer userId);
 
     @Query("SELECT b FROM Budget b WHERE b.user.userId = :userId " +
@@ -30,6 +34,50 @@ public interface BudgetRepository extends JpaRepository<Budget,Integer> {
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate,
             @Param("categoryIds") List<Integer> categoryIds);
-    @Query("SELECT SUM(b.budgetAmount) FROM Budget b WHERE b.user.userId = :userId")
-    BigDecimal sumBudgetsByUserId(@Param("userId") Integer userId);
+
+    // --- Report aggregates (computed by the database, not in Java) ---
+
+    @Query("SELECT new com.example.demo.dto.CategoryTotal(c.categoryName, SUM(b.budgetAmount)) " +
+            "FROM Budget b JOIN b.category c WHERE b.user.userId = :userId " +
+            "AND b.startDate <= :endDate " +
+            "AND b.endDate >= :startDate " +
+            "GROUP BY c.categoryName")
+    List<CategoryTotal> sumOverlappingBudgetsByCategory(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.example.demo.dto.CategoryTotal(c.categoryName, SUM(b.budgetAmount)) " +
+            "FROM Budget b JOIN b.category c WHERE b.user.userId = :userId " +
+            "AND b.startDate <= :endDate " +
+            "AND b.endDate >= :startDate " +
+            "AND c.categoryId IN :categoryIds " +
+            "GROUP BY c.categoryName")
+    List<CategoryTotal> sumOverlappingBudgetsByCategoryWithCategories(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("categoryIds") List<Integer> categoryIds);
+
+    // Every budget of the user running on :today, with what has been spent in its category from its start to :today
+    @Query("SELECT new com.example.demo.dto.BudgetBurnRate(b.budgetId, c.categoryId, c.categoryName, b.budgetAmount, " +
+            "b.startDate, b.endDate, SUM(d.totalAmount)) " +
+            "FROM Budget b JOIN b.category c LEFT JOIN DailySpending d ON d.userId = b.user.userId " +
+            "AND d.categoryId = c.categoryId AND d.spendDate BETWEEN b.startDate AND :today " +
+            "WHERE b.user.userId = :userId AND b.startDate <= :today AND b.endDate >= :today " +
+            "GROUP BY b.budgetId, c.categoryId, c.categoryName, b.budgetAmount, b.startDate, b.endDate " +
+            "ORDER BY b.endDate, b.budgetId")
+    List<BudgetBurnRate> findActiveWithSpending(
+            @Param("userId") Integer userId,
+            @Param("today") LocalDate today);
+
+    // --- Read models: one query each, user and category columns joined in (no entity loading) ---
+
+    String VIEW_SELECT = "SELECT new com.example.demo.dto.BudgetView(b.budgetId, b.budgetAmount, b.startDate, b.endDate, " +
+            "u.userId, u.name, c.categoryId, c.categoryName) FROM Budget b JOIN b.user u JOIN b.category c ";
+
+    @Query(VIEW_SELECT + "WHERE b.budgetId = :id")
+    Optional<BudgetView> findViewById(@Param("id") Integer id);
+
+    // Keyset pagination with optional filters: BudgetRepositoryCustom.findPage
 }
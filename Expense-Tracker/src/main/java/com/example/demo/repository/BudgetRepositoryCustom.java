@@ -0,0 +1,14 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.BudgetView;
+import org.springframework.data.domain.Slice;
+
+public interface BudgetRepositoryCustom {
+
+    /**
+     * One keyset page of budgets, ordered by id; only the filters that are set are in the query.
+     * @param after the last id of the previous page, or null for the first page
+     * @param userId, categoryId optional filters (null = no filter)
+     */
+    Slice<BudgetView> findPage(Integer after, boolean descending, int limit, Integer userId, Integer categoryId);
+}
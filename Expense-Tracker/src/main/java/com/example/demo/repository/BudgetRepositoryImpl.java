@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.BudgetView;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+@RequiredArgsConstructor
+public class BudgetRepositoryImpl implements BudgetRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<BudgetView> findPage(Integer after, boolean descending, int limit, Integer userId, Integer categoryId) {
+        return new KeysetQuery<>(BudgetRepository.VIEW_SELECT, "b.budgetId", BudgetView.class)
+                .filter("u.userId = :userId", "userId", userId)
+                .filter("c.categoryId = :categoryId", "categoryId", categoryId)
+                .fetch(entityManager, after, descending, limit);
+    }
+}
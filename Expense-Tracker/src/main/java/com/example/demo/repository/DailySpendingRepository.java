@@ -0,0 +1,89 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.CategoryTotal;
+import com.example.demo.dto.SpendingOverTime;
+import com.example.demo.entity.DailySpending;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySpendingRepository extends JpaRepository<DailySpending, Long> {
+
+    // Adds (or subtracts, with negative values) to the row for this user/category/day, creating it if needed
+    @Modifying
+    @Query(value = "INSERT INTO daily_spending (user_id, category_id, spend_date, total_amount, transaction_count) " +
+            "VALUES (:userId, :categoryId, :day, :amount, :count) " +
+            "ON CONFLICT (user_id, category_id, spend_date) DO UPDATE SET " +
+            "total_amount = daily_spending.total_amount + EXCLUDED.total_amount, " +
+            "transaction_count = daily_spending.transaction_count + EXCLUDED.transaction_count", nativeQuery = true)
+    void upsert(@Param("userId") Integer userId,
+                @Param("categoryId") Integer categoryId,
+                @Param("day") LocalDate day,
+                @Param("amount") BigDecimal amount,
+                @Param("count") long count);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_spending WHERE user_id = :userId AND category_id = :categoryId " +
+            "AND spend_date = :day AND transaction_count <= 0", nativeQuery = true)
+    void deleteIfEmpty(@Param("userId") Integer userId,
+                       @Param("categoryId") Integer categoryId,
+                       @Param("day") LocalDate day);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_spending", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_spending (user_id, category_id, spend_date, total_amount, transaction_count) " +
+            "SELECT user_id, category_id, expense_date, SUM(expense_amount), COUNT(*) FROM expenses " +
+            "WHERE expense_date IS NOT NULL AND expense_amount IS NOT NULL " +
+            "GROUP BY user_id, category_id, expense_date", nativeQuery = true)
+    int rebuildFromExpenses();
+
+    @Query("SELECT new com.example.demo.dto.SpendingOverTime(d.spendDate, SUM(d.totalAmount)) " +
+            "FROM DailySpending d WHERE d.userId = :userId " +
+            "AND d.spendDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY d.spendDate ORDER BY d.spendDate")
+    List<SpendingOverTime> sumByDay(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.example.demo.dto.SpendingOverTime(d.spendDate, SUM(d.totalAmount)) " +
+            "FROM DailySpending d WHERE d.userId = :userId " +
+            "AND d.spendDate BETWEEN :startDate AND :endDate " +
+            "AND d.categoryId IN :categoryIds " +
+            "GROUP BY d.spendDate ORDER BY d.spendDate")
+    List<SpendingOverTime> sumByDayWithCategories(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("categoryIds") List<Integer> categoryIds);
+
+    @Query("SELECT new com.example.demo.dto.CategoryTotal(c.categoryName, SUM(d.totalAmount), SUM(d.transactionCount)) " +
+            "FROM DailySpending d JOIN Category c ON c.categoryId = d.categoryId WHERE d.userId = :userId " +
+            "AND d.spendDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY c.categoryName")
+    List<CategoryTotal> sumByCategory(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.example.demo.dto.CategoryTotal(c.categoryName, SUM(d.totalAmount), SUM(d.transactionCount)) " +
+            "FROM DailySpending d JOIN Category c ON c.categoryId = d.categoryId WHERE d.userId = :userId " +
+            "AND d.spendDate BETWEEN :startDate AND :endDate " +
+            "AND d.categoryId IN :categoryIds " +
+            "GROUP BY c.categoryName")
+    List<CategoryTotal> sumByCategoryWithCategories(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("categoryIds") List<Integer> categoryIds);
+}
@@ -1,22 +1,41 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.CategoryTotal;
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.dto.ExpenseView;
+import com.example.demo.dto.SpendingOverTime;
+import com.example.demo.dto.SpendingTotals;
+import com.example.demo.dto.UserCategoryAmount;
 import com.example.demo.entity.Expense;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense,Integer> {
+public interface ExpenseRepository extends JpaRepository<Expense,Integer>, ExpenseRepositoryCustom {
 
-    @Query(value = "SELECT expenses.* FROM expenses " +
-            "JOIN category ON " +
-            "expenses.category_id = category.category_id " +
-            "WHERE category.category_name = :categoryName",nativeQuery = true)
-    List<Expense> findByCategoryName(@Param("categoryName") String categoryName);
+    // --- Read models: one query each, user and category columns joined in (no entity loading) ---
+
+    String VIEW_SELECT = "SELECT new com.example.demo.dto.ExpenseView(e.expenseId, e.expenseAmount, e.expenseDate, e.note, " +
+            "u.userId, u.name, c.categoryId, c.categoryName, e.anomalous, e.anomalyScore) FROM Expense e JOIN e.user u JOIN e.category c ";
+
+    @Query(VIEW_SELECT + "WHERE e.expenseId = :id")
+    Optional<ExpenseView> findViewById(@Param("id") Integer id);
+
+    @Query(VIEW_SELECT + "WHERE c.categoryName = :categoryName ORDER BY e.expenseId")
+    List<ExpenseView> findViewsByCategoryName(@Param("categoryName") String categoryName);
     // Spring Data JPA will automatically create the query for this method
     List<Expense> findByUser_UserId(Integer userId);
 
@@ -24,4 +43,130 @@ public interface ExpenseRepository extends JpaRepository<Expense,Integer> {
 
     List<Expense> findAllByUser_UserIdAndExpenseDateBetweenAndCategory_CategoryIdIn(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds);
 
+    // --- Report aggregates (computed by the database, not in Java) ---
+
+    @Query("SELECT new com.example.demo.dto.SpendingTotals(COALESCE(SUM(e.expenseAmount), 0), COUNT(e)) " +
+            "FROM Expense e WHERE e.user.userId = :userId " +
+            "AND e.expenseDate BETWEEN :startDate AND :endDate")
+    SpendingTotals sumSpending(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.example.demo.dto.SpendingTotals(COALESCE(SUM(e.expenseAmount), 0), COUNT(e)) " +
+            "FROM Expense e WHERE e.user.userId = :userId " +
+            "AND e.expenseDate BETWEEN :startDate AND :endDate " +
+            "AND e.category.categoryId IN :categoryIds")
+    SpendingTotals sumSpendingWithCategories(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("categoryIds") List<Integer> categoryIds);
+
+    @Query("SELECT new com.example.demo.dto.CategoryTotal(c.categoryName, SUM(e.expenseAmount)) " +
+            "FROM Expense e JOIN e.category c WHERE e.user.userId = :userId " +
+            "AND e.expenseDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY c.categoryName")
+    List<CategoryTotal> sumSpendingByCategory(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.example.demo.dto.CategoryTotal(c.categoryName, SUM(e.expenseAmount)) " +
+            "FROM Expense e JOIN e.category c WHERE e.user.userId = :userId " +
+            "AND e.expenseDate BETWEEN :startDate AND :endDate " +
+            "AND c.categoryId IN :categoryIds " +
+            "GROUP BY c.categoryName")
+    List<CategoryTotal> sumSpendingByCategoryWithCategories(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("categoryIds") List<Integer> categoryIds);
+
+    @Query("SELECT new com.example.demo.dto.SpendingOverTime(e.expenseDate, SUM(e.expenseAmount)) " +
+            "FROM Expense e WHERE e.user.userId = :userId " +
+            "AND e.expenseDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY e.expenseDate ORDER BY e.expenseDate")
+    List<SpendingOverTime> sumSpendingByDay(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.example.demo.dto.SpendingOverTime(e.expenseDate, SUM(e.expenseAmount)) " +
+            "FROM Expense e WHERE e.user.userId = :userId " +
+            "AND e.expenseDate BETWEEN :startDate AND :endDate " +
+            "AND e.category.categoryId IN :categoryIds " +
+            "GROUP BY e.expenseDate ORDER BY e.expenseDate")
+    List<SpendingOverTime> sumSpendingByDayWithCategories(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("categoryIds") List<Integer> categoryIds);
+
+    // Pass PageRequest.of(0, n) to turn the ORDER BY into ORDER BY ... LIMIT n
+    @Query("SELECT new com.example.demo.dto.ExpenseResponse(e.expenseId, e.expenseAmount, e.expenseDate, e.note, c.categoryName) " +
+            "FROM Expense e JOIN e.category c WHERE e.user.userId = :userId " +
+            "AND e.expenseDate BETWEEN :startDate AND :endDate " +
+            "ORDER BY e.expenseAmount DESC, e.expenseId")
+    List<ExpenseResponse> findTopExpenses(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Pageable pageable);
+
+    @Query("SELECT new com.example.demo.dto.ExpenseResponse(e.expenseId, e.expenseAmount, e.expenseDate, e.note, c.categoryName) " +
+            "FROM Expense e JOIN e.category c WHERE e.user.userId = :userId " +
+            "AND e.expenseDate BETWEEN :startDate AND :endDate " +
+            "AND c.categoryId IN :categoryIds " +
+            "ORDER BY e.expenseAmount DESC, e.expenseId")
+    List<ExpenseResponse> findTopExpensesWithCategories(
+            @Param("userId") Integer userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("categoryIds") List<Integer> categoryIds,
+            Pageable pageable);
+
+    // --- Keyset pagination (pass PageRequest.of(0, limit); the id cursor replaces OFFSET).
+    // The filtered list pages are ExpenseRepositoryCustom.findPage ---
+
+    // Flagged expenses, newest first
+    @Query(VIEW_SELECT + "WHERE e.expenseId < :before AND e.anomalous = true ORDER BY e.expenseId DESC")
+    Slice<ExpenseView> findAnomaliesBefore(
+            @Param("before") Integer before,
+            Pageable pageable);
+
+    // Same, of one user
+    @Query(VIEW_SELECT + "WHERE e.expenseId < :before AND e.anomalous = true " +
+            "AND u.userId = :userId ORDER BY e.expenseId DESC")
+    Slice<ExpenseView> findUserAnomaliesBefore(
+            @Param("before") Integer before,
+            @Param("userId") Integer userId,
+            Pageable pageable);
+
+    // --- Export: server-side cursor, must be consumed inside a transaction and closed ---
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Expense e JOIN FETCH e.category JOIN FETCH e.user " +
+            "WHERE e.user.userId = :userId ORDER BY e.expenseId")
+    Stream<Expense> streamByUserId(@Param("userId") Integer userId);
+
+    // Every expense amount in insertion order, for rebuilding the anomaly statistics
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.demo.dto.UserCategoryAmount(e.user.userId, e.category.categoryId, e.expenseAmount) " +
+            "FROM Expense e WHERE e.expenseAmount IS NOT NULL ORDER BY e.expenseId")
+    Stream<UserCategoryAmount> streamAmounts();
+
+    // Moves expenses_seq past the highest existing id (ids used to come from an IDENTITY column).
+    // The +50 matches the allocationSize on Expense.expenseId.
+    @Transactional
+    @Query(value = "SELECT setval('expenses_seq', GREATEST(" +
+            "(SELECT COALESCE(MAX(expense_id), 0) FROM expenses) + 50, " +
+            "(SELECT last_value FROM expenses_seq)))", nativeQuery = true)
+    Long alignIdSequence();
 }
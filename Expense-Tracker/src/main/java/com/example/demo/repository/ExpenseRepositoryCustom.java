@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ExpenseView;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDate;
+
+public interface ExpenseRepositoryCustom {
+
+    /**
+     * One keyset page of expenses, ordered by id; only the filters that are set are in the query.
+     * @param after the last id of the previous page, or null for the first page
+     * @param userId, categoryId, fromDate, toDate optional filters (null = no filter)
+     */
+    Slice<ExpenseView> findPage(Integer after, boolean descending, int limit,
+                                Integer userId, Integer categoryId, LocalDate fromDate, LocalDate toDate);
+}
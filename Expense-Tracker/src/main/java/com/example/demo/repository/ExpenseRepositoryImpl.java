@@ -0,0 +1,25 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ExpenseView;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDate;
+
+@RequiredArgsConstructor
+public class ExpenseRepositoryImpl implements ExpenseRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<ExpenseView> findPage(Integer after, boolean descending, int limit,
+                                       Integer userId, Integer categoryId, LocalDate fromDate, LocalDate toDate) {
+        return new KeysetQuery<>(ExpenseRepository.VIEW_SELECT, "e.expenseId", ExpenseView.class)
+                .filter("u.userId = :userId", "userId", userId)
+                .filter("c.categoryId = :categoryId", "categoryId", categoryId)
+                .filter("e.expenseDate >= :fromDate", "fromDate", fromDate)
+                .filter("e.expenseDate <= :toDate", "toDate", toDate)
+                .fetch(entityManager, after, descending, limit);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A keyset page query (id cursor instead of OFFSET) holding only the filters that are set.
+ *
+ * A catch-all filter such as "(:userId IS NULL OR e.user.userId = :userId)" gets one plan for
+ * every combination, which cannot use the column's index. Here a filter left out is not in the
+ * query at all, so each combination of filters is its own JPQL string, planned separately.
+ */
+final class KeysetQuery<T> {
+
+    private final String select;
+    private final String idPath;
+    private final Class<T> type;
+    private final StringBuilder filters = new StringBuilder();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    /**
+     * @param select the query up to (not including) WHERE
+     * @param idPath the id the page is ordered and cut by, e.g. "e.expenseId"
+     */
+    KeysetQuery(String select, String idPath, Class<T> type) {
+        this.select = select;
+        this.idPath = idPath;
+        this.type = type;
+    }
+
+    /**
+     * Adds the condition, which uses :parameter, only when the value is not null.
+     */
+    KeysetQuery<T> filter(String condition, String parameter, Object value) {
+        if (value != null) {
+            filters.append(" AND ").append(condition);
+            parameters.put(parameter, value);
+        }
+        return this;
+    }
+
+    /**
+     * Reads one page of at most limit rows, plus one row to tell whether there is a next page.
+     * @param after the last id of the previous page, or null for the first page
+     */
+    Slice<T> fetch(EntityManager entityManager, Integer after, boolean descending, int limit) {
+        String jpql = select + "WHERE " + idPath + (descending ? " < :cursor" : " > :cursor") + filters +
+                " ORDER BY " + idPath + (descending ? " DESC" : " ASC");
+        TypedQuery<T> query = entityManager.createQuery(jpql, type);
+        query.setParameter("cursor", after != null ? after : descending ? Integer.MAX_VALUE : 0);
+        parameters.forEach(query::setParameter);
+        List<T> rows = query.setMaxResults(limit + 1).getResultList();
+
+        boolean hasNext = rows.size() > limit;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.CategoryTotal;
+import com.example.demo.dto.UserCategoryTotal;
+import com.example.demo.entity.MonthlySpending;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MonthlySpendingRepository extends JpaRepository<MonthlySpending, Long> {
+
+    // month must be the first day of the month
+    @Modifying
+    @Query(value = "INSERT INTO monthly_spending (user_id, category_id, spend_month, total_amount, transaction_count) " +
+            "VALUES (:userId, :categoryId, :month, :amount, :count) " +
+            "ON CONFLICT (user_id, category_id, spend_month) DO UPDATE SET " +
+            "total_amount = monthly_spending.total_amount + EXCLUDED.total_amount, " +
+            "transaction_count = monthly_spending.transaction_count + EXCLUDED.transaction_count", nativeQuery = true)
+    void upsert(@Param("userId") Integer userId,
+                @Param("categoryId") Integer categoryId,
+                @Param("month") LocalDate month,
+                @Param("amount") BigDecimal amount,
+                @Param("count") long count);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_spending WHERE user_id = :userId AND category_id = :categoryId " +
+            "AND spend_month = :month AND transaction_count <= 0", nativeQuery = true)
+    void deleteIfEmpty(@Param("userId") Integer userId,
+                       @Param("categoryId") Integer categoryId,
+                       @Param("month") LocalDate month);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_spending", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_spending (user_id, category_id, spend_month, total_amount, transaction_count) " +
+            "SELECT user_id, category_id, CAST(date_trunc('month', expense_date) AS date), SUM(expense_amount), COUNT(*) FROM expenses " +
+            "WHERE expense_date IS NOT NULL AND expense_amount IS NOT NULL " +
+            "GROUP BY user_id, category_id, CAST(date_trunc('month', expense_date) AS date)", nativeQuery = true)
+    int rebuildFromExpenses();
+
+    @Query("SELECT new com.example.demo.dto.CategoryTotal(c.categoryName, SUM(m.totalAmount), SUM(m.transactionCount)) " +
+            "FROM MonthlySpending m JOIN Category c ON c.categoryId = m.categoryId WHERE m.userId = :userId " +
+            "AND m.spendMonth BETWEEN :startMonth AND :endMonth " +
+            "GROUP BY c.categoryName")
+    List<CategoryTotal> sumByCategory(
+            @Param("userId") Integer userId,
+            @Param("startMonth") LocalDate startMonth,
+            @Param("endMonth") LocalDate endMonth);
+
+    @Query("SELECT new com.example.demo.dto.CategoryTotal(c.categoryName, SUM(m.totalAmount), SUM(m.transactionCount)) " +
+            "FROM MonthlySpending m JOIN Category c ON c.categoryId = m.categoryId WHERE m.userId = :userId " +
+            "AND m.spendMonth BETWEEN :startMonth AND :endMonth " +
+            "AND m.categoryId IN :categoryIds " +
+            "GROUP BY c.categoryName")
+    List<CategoryTotal> sumByCategoryWithCategories(
+            @Param("userId") Integer userId,
+            @Param("startMonth") LocalDate startMonth,
+            @Param("endMonth") LocalDate endMonth,
+            @Param("categoryIds") List<Integer> categoryIds);
+
+    // One month of spending per (user, category) for all the given users, in one query (prediction features)
+    @Query("SELECT new com.example.demo.dto.UserCategoryTotal(m.userId, c.categoryName, SUM(m.totalAmount)) " +
+            "FROM MonthlySpending m JOIN Category c ON c.categoryId = m.categoryId " +
+            "WHERE m.userId IN :userIds AND m.spendMonth = :month " +
+            "GROUP BY m.userId, c.categoryName")
+    List<UserCategoryTotal> sumByUserAndCategory(
+            @Param("userIds") Collection<Integer> userIds,
+            @Param("month") LocalDate month);
+
+    // A user's monthly series per category, oldest first (forecast state)
+    List<MonthlySpending> findByUserIdAndSpendMonthBetweenOrderByCategoryIdAscSpendMonthAsc(
+            Integer userId, LocalDate fromMonth, LocalDate toMonth);
+}
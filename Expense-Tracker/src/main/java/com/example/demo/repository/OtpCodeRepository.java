@@ -0,0 +1,43 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OtpCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OtpCodeRepository extends JpaRepository<OtpCode, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO otp_codes (email, code_hash, expires_at, attempts, created_at) " +
+            "VALUES (:email, :codeHash, now() + make_interval(secs => :ttlSeconds), 0, now()) " +
+            "ON CONFLICT (email) DO UPDATE SET code_hash = EXCLUDED.code_hash, expires_at = EXCLUDED.expires_at, " +
+            "attempts = 0, created_at = EXCLUDED.created_at", nativeQuery = true)
+    void upsert(@Param("email") String email, @Param("codeHash") String codeHash, @Param("ttlSeconds") double ttlSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM otp_codes WHERE email = :email AND code_hash = :codeHash " +
+            "AND expires_at > now() AND attempts < :maxAttempts", nativeQuery = true)
+    int consume(@Param("email") String email, @Param("codeHash") String codeHash, @Param("maxAttempts") int maxAttempts);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE otp_codes SET attempts = attempts + 1 " +
+            "WHERE email = :email AND expires_at > now() AND attempts < :maxAttempts", nativeQuery = true)
+    int recordFailedAttempt(@Param("email") String email, @Param("maxAttempts") int maxAttempts);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM otp_codes WHERE email = :email AND expires_at <= now()", nativeQuery = true)
+    int deleteIfExpired(@Param("email") String email);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM otp_codes WHERE expires_at <= now()", nativeQuery = true)
+    int deleteExpired();
+}
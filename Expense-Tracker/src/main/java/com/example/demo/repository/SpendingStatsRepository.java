@@ -0,0 +1,34 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.SpendingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SpendingStatsRepository extends JpaRepository<SpendingStats, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO spending_stats (user_id, category_id, sample_count, mean, m2, quantile_heights, quantile_positions, updated_at) " +
+            "VALUES (:userId, :categoryId, :count, :mean, :m2, :heights, :positions, now()) " +
+            "ON CONFLICT (user_id, category_id) DO UPDATE SET " +
+            "sample_count = EXCLUDED.sample_count, mean = EXCLUDED.mean, m2 = EXCLUDED.m2, " +
+            "quantile_heights = EXCLUDED.quantile_heights, quantile_positions = EXCLUDED.quantile_positions, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void upsert(@Param("userId") Integer userId,
+                @Param("categoryId") Integer categoryId,
+                @Param("count") long count,
+                @Param("mean") double mean,
+                @Param("m2") double m2,
+                @Param("heights") double[] heights,
+                @Param("positions") int[] positions);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM spending_stats WHERE user_id = :userId", nativeQuery = true)
+    void deleteByUserId(@Param("userId") Integer userId);
+}
@@ -0,0 +1,57 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.StoredPrediction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredPredictionRepository extends JpaRepository<StoredPrediction, Long> {
+
+    Optional<StoredPrediction> findByUserIdAndTargetMonth(Integer userId, LocalDate targetMonth);
+
+    List<StoredPrediction> findByUserIdInAndTargetMonth(Collection<Integer> userIds, LocalDate targetMonth);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE predictions SET dirty = true, changes = changes + 1 WHERE user_id = :userId", nativeQuery = true)
+    int markDirty(@Param("userId") Integer userId);
+
+    // Inserts or replaces the prediction. dirty stays set if the row changed since seenChanges was read.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO predictions (user_id, target_month, predicted_amount, model_path, based_on_month, dirty, changes, computed_at) " +
+            "VALUES (:userId, :targetMonth, :amount, :modelPath, :basedOnMonth, false, 0, now()) " +
+            "ON CONFLICT (user_id, target_month) DO UPDATE SET " +
+            "predicted_amount = EXCLUDED.predicted_amount, model_path = EXCLUDED.model_path, " +
+            "based_on_month = EXCLUDED.based_on_month, computed_at = EXCLUDED.computed_at, " +
+            "dirty = predictions.changes <> :seenChanges", nativeQuery = true)
+    void upsert(@Param("userId") Integer userId,
+                @Param("targetMonth") LocalDate targetMonth,
+                @Param("amount") Double amount,
+                @Param("modelPath") String modelPath,
+                @Param("basedOnMonth") String basedOnMonth,
+                @Param("seenChanges") long seenChanges);
+
+    // Users after the given id with no prediction for the month yet, or a dirty one
+    @Query(value = "SELECT u.user_id FROM users u " +
+            "LEFT JOIN predictions p ON p.user_id = u.user_id AND p.target_month = :targetMonth " +
+            "WHERE u.user_id > :after AND (p.id IS NULL OR p.dirty) " +
+            "ORDER BY u.user_id LIMIT :limit", nativeQuery = true)
+    List<Integer> findUserIdsToRecompute(@Param("targetMonth") LocalDate targetMonth,
+                                         @Param("after") Integer after,
+                                         @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM predictions WHERE user_id = :userId", nativeQuery = true)
+    void deleteByUserId(@Param("userId") Integer userId);
+}
@@ -7,6 +7,8 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User,Integer> {
+public interface UserRepository extends JpaRepository<User,Integer>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
+
+    // Keyset pagination with search: UserRepositoryCustom.findPage
 }
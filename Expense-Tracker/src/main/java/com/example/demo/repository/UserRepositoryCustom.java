@@ -0,0 +1,14 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UserResponse;
+import org.springframework.data.domain.Slice;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * One keyset page of users with their wallet balance, ordered by id.
+     * @param after the last id of the previous page, or null for the first page
+     * @param search matched against name or email, case-insensitive (null = no filter)
+     */
+    Slice<UserResponse> findPage(Integer after, boolean descending, int limit, String search);
+}
@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UserResponse;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.Locale;
+
+@RequiredArgsConstructor
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    // The balance row is joined in so a page is one query (no row yet = empty wallet)
+    private static final String SELECT = "SELECT new com.example.demo.dto.UserResponse(u.userId, u.name, u.email, " +
+            "COALESCE(b.balance, 0), u.createdAt) FROM User u LEFT JOIN WalletBalance b ON b.userId = u.userId ";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<UserResponse> findPage(Integer after, boolean descending, int limit, String search) {
+        String pattern = search == null ? null : "%" + search.toLowerCase(Locale.ROOT) + "%";
+        return new KeysetQuery<>(SELECT, "u.userId", UserResponse.class)
+                .filter("(LOWER(u.name) LIKE :search OR LOWER(u.email) LIKE :search)", "search", pattern)
+                .fetch(entityManager, after, descending, limit);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.WalletBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface WalletBalanceRepository extends JpaRepository<WalletBalance, Integer> {
+
+    // Takes the amount out only if the balance covers it; returns 0 when refused (or the row is missing).
+    // The row stays locked until the transaction ends, so ledger writes for one user are serialized.
+    @Modifying
+    @Query(value = "UPDATE wallet_balances SET balance = balance - :amount " +
+            "WHERE user_id = :userId AND balance >= :amount", nativeQuery = true)
+    int debit(@Param("userId") Integer userId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE wallet_balances SET balance = balance + :amount WHERE user_id = :userId", nativeQuery = true)
+    int credit(@Param("userId") Integer userId, @Param("amount") BigDecimal amount);
+
+    @Query(value = "SELECT balance FROM wallet_balances WHERE user_id = :userId", nativeQuery = true)
+    BigDecimal findBalance(@Param("userId") Integer userId);
+
+    // Same, locking the row for the rest of the transaction
+    @Query(value = "SELECT balance FROM wallet_balances WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    BigDecimal lockBalance(@Param("userId") Integer userId);
+
+    // Same with a shared lock: other readers go on, writes to the balance wait for the transaction
+    @Query(value = "SELECT balance FROM wallet_balances WHERE user_id = :userId FOR SHARE", nativeQuery = true)
+    BigDecimal shareLockBalance(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query(value = "UPDATE wallet_balances SET balance = :balance WHERE user_id = :userId", nativeQuery = true)
+    int setBalance(@Param("userId") Integer userId, @Param("balance") BigDecimal balance);
+
+    // Creates a missing row from the user's ledger. Safe to race: every ledger write goes through
+    // the row, so while it is missing the ledger cannot change.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO wallet_balances (user_id, balance) " +
+            "SELECT :userId, COALESCE(SUM(amount), 0) FROM wallet_ledger WHERE user_id = :userId " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    void createFromLedger(@Param("userId") Integer userId);
+
+    // Creates the missing rows of every user with ledger entries (first deploy of the balance rows)
+    @Modifying
+    @Query(value = "INSERT INTO wallet_balances (user_id, balance) " +
+            "SELECT user_id, SUM(amount) FROM wallet_ledger GROUP BY user_id " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int createMissingFromLedger();
+
+    // Locks, in user id order, the rows of users with at least minEntries ledger entries after
+    // their latest snapshot. Once locked, none of their ledger entries is still uncommitted.
+    @Query(value = "SELECT b.user_id FROM wallet_balances b " +
+            "WHERE (SELECT COUNT(*) FROM wallet_ledger l WHERE l.user_id = b.user_id AND l.id > " +
+            "    COALESCE((SELECT MAX(s.last_entry_id) FROM wallet_snapshots s WHERE s.user_id = b.user_id), 0)) " +
+            "    >= :minEntries " +
+            "ORDER BY b.user_id FOR UPDATE OF b", nativeQuery = true)
+    List<Integer> lockUsersDueForSnapshot(@Param("minEntries") long minEntries);
+}
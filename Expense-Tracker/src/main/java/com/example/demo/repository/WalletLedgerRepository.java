@@ -0,0 +1,46 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.WalletLedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface WalletLedgerRepository extends JpaRepository<WalletLedgerEntry, Long> {
+
+    // Sum of the entries after a snapshot (afterId = its lastEntryId, or 0), up to a point in time
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM WalletLedgerEntry e " +
+            "WHERE e.userId = :userId AND e.id > :afterId AND e.createdAt <= :at")
+    BigDecimal sumAfterUpTo(@Param("userId") Integer userId, @Param("afterId") Long afterId,
+                            @Param("at") LocalDateTime at);
+
+    // --- Keyset pagination of a user's history ---
+
+    @Query("SELECT e FROM WalletLedgerEntry e WHERE e.userId = :userId AND e.id > :after ORDER BY e.id ASC")
+    Slice<WalletLedgerEntry> findPageAfter(@Param("userId") Integer userId, @Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT e FROM WalletLedgerEntry e WHERE e.userId = :userId AND e.id < :before ORDER BY e.id DESC")
+    Slice<WalletLedgerEntry> findPageBefore(@Param("userId") Integer userId, @Param("before") Long before, Pageable pageable);
+
+    // --- Import of balances kept on the users row before the ledger existed. The column is legacy-only:
+    // nothing writes it any more. It is dropped by hand with db/drop_users_wallet_balance.sql ---
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+            "WHERE table_schema = current_schema() AND table_name = 'users' " +
+            "AND column_name = 'wallet_balance')", nativeQuery = true)
+    boolean hasLegacyBalanceColumn();
+
+    @Modifying
+    @Query(value = "INSERT INTO wallet_ledger (user_id, amount, entry_type, created_at) " +
+            "SELECT u.user_id, u.wallet_balance, 'OPENING', now() FROM users u " +
+            "WHERE u.wallet_balance IS NOT NULL AND u.wallet_balance <> 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM wallet_ledger l WHERE l.user_id = u.user_id)", nativeQuery = true)
+    int importLegacyBalances();
+}
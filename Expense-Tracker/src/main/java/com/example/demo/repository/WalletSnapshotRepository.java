@@ -0,0 +1,32 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.WalletSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WalletSnapshotRepository extends JpaRepository<WalletSnapshot, Long> {
+
+    Optional<WalletSnapshot> findFirstByUserIdAndAsOfLessThanEqualOrderByLastEntryIdDesc(Integer userId, LocalDateTime at);
+
+    /**
+     * Writes a snapshot of the current balance row for each user, covering all their ledger entries.
+     * The users' balance rows must be locked (WalletBalanceRepository.lockUsersDueForSnapshot): then
+     * every ledger entry they have is committed and included in the balance, so no entry with a
+     * lower id can show up after the snapshot.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO wallet_snapshots (user_id, balance, last_entry_id, as_of) " +
+            "SELECT b.user_id, b.balance, MAX(l.id), MAX(l.created_at) " +
+            "FROM wallet_balances b JOIN wallet_ledger l ON l.user_id = b.user_id " +
+            "WHERE b.user_id IN (:userIds) " +
+            "GROUP BY b.user_id, b.balance", nativeQuery = true)
+    int snapshotBalances(@Param("userIds") List<Integer> userIds);
+}
@@ -0,0 +1,262 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.UserCategoryAmount;
+import com.example.demo.entity.Expense;
+import com.example.demo.entity.SpendingStats;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.SpendingStatsRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Flags unusual expenses as they are created, against running statistics of the user's earlier
+ * amounts in the same category (StreamingStats: Welford mean/variance and a P² quantile).
+ *
+ * An expense is anomalous when it is at least anomaly.z-threshold standard deviations above the
+ * mean and above the anomaly.quantile estimate, once the category has anomaly.min-samples
+ * amounts. Scoring is a map lookup and a few multiplications, with no database access; the new
+ * amount is added to the statistics after the transaction commits. The statistics live in memory,
+ * are saved to spending_stats every anomaly.stats.persist-interval-ms and on shutdown, and are
+ * loaded back by AnomalyStatsInitializer at startup. Edits and deletions do not change them.
+ *
+ * The statistics assume a single application instance, like SpendingForecaster's states: each
+ * instance folds in only the expenses it created, and its save overwrites spending_stats rows
+ * (last writer wins).
+ */
+@Service
+public class AnomalyDetector {
+
+    private final SpendingStatsRepository spendingStatsRepository;
+    private final ExpenseRepository expenseRepository;
+
+    private final double quantile;
+    private final double zThreshold;
+    private final long minSamples;
+
+    // (userId << 32 | categoryId) -> statistics of that user's amounts in that category
+    private final ConcurrentMap<Long, Tracked> stats = new ConcurrentHashMap<>();
+
+    public AnomalyDetector(SpendingStatsRepository spendingStatsRepository,
+                           ExpenseRepository expenseRepository,
+                           @Value("${anomaly.quantile:0.95}") double quantile,
+                           @Value("${anomaly.z-threshold:3.0}") double zThreshold,
+                           @Value("${anomaly.min-samples:10}") long minSamples) {
+        this.spendingStatsRepository = spendingStatsRepository;
+        this.expenseRepository = expenseRepository;
+        this.quantile = quantile;
+        this.zThreshold = zThreshold;
+        this.minSamples = minSamples;
+    }
+
+    // Guarded by its own monitor
+    private static final class Tracked {
+        final StreamingStats stats;
+        boolean dirty;
+
+        Tracked(StreamingStats stats) {
+            this.stats = stats;
+        }
+    }
+
+    // A statistic written by persistDirty, with its sample count at the time
+    private record Saved(Tracked tracked, long count) {
+    }
+
+    /**
+     * Sets anomalous/anomalyScore on a new, not yet saved expense, and adds its amount to the
+     * statistics once the surrounding transaction commits.
+     */
+    public void score(Expense expense) {
+        if (!scoreOnly(expense)) {
+            return;
+        }
+        Integer userId = expense.getUser().getUserId();
+        Integer categoryId = expense.getCategory().getCategoryId();
+        double amount = expense.getExpenseAmount().doubleValue();
+        afterCommit(() -> record(userId, categoryId, amount));
+    }
+
+    /**
+     * score() for a batch: every expense is scored against the statistics from before the batch,
+     * and the whole batch is added to them after commit.
+     */
+    public void scoreAll(List<Expense> expenses) {
+        int n = 0;
+        int[] userIds = new int[expenses.size()];
+        int[] categoryIds = new int[expenses.size()];
+        double[] amounts = new double[expenses.size()];
+        for (Expense expense : expenses) {
+            if (scoreOnly(expense)) {
+                userIds[n] = expense.getUser().getUserId();
+                categoryIds[n] = expense.getCategory().getCategoryId();
+                amounts[n++] = expense.getExpenseAmount().doubleValue();
+            }
+        }
+        int count = n;
+        afterCommit(() -> {
+            for (int i = 0; i < count; i++) {
+                record(userIds[i], categoryIds[i], amounts[i]);
+            }
+        });
+    }
+
+    /**
+     * Saves every statistic changed since the last save.
+     * @return the number of rows written
+     */
+    @Scheduled(fixedDelayString = "${anomaly.stats.persist-interval-ms:60000}")
+    @Transactional
+    public int persistDirty() {
+        List<Saved> saved = new ArrayList<>();
+        for (Map.Entry<Long, Tracked> entry : stats.entrySet()) {
+            Tracked tracked = entry.getValue();
+            long count;
+            double mean;
+            double m2;
+            double[] heights;
+            int[] positions;
+            synchronized (tracked) {
+                if (!tracked.dirty) {
+                    continue;
+                }
+                count = tracked.stats.getCount();
+                mean = tracked.stats.getMean();
+                m2 = tracked.stats.getM2();
+                heights = tracked.stats.getHeights();
+                positions = tracked.stats.getPositions();
+            }
+            long key = entry.getKey();
+            spendingStatsRepository.upsert((int) (key >>> 32), (int) key, count, mean, m2, heights, positions);
+            saved.add(new Saved(tracked, count));
+        }
+        // Still dirty if the save rolls back, or if amounts were added after the copy was taken
+        afterCommit(() -> {
+            for (Saved s : saved) {
+                synchronized (s.tracked()) {
+                    if (s.tracked().stats.getCount() == s.count()) {
+                        s.tracked().dirty = false;
+                    }
+                }
+            }
+        });
+        return saved.size();
+    }
+
+    @PreDestroy
+    public void persistOnShutdown() {
+        try {
+            persistDirty();
+        } catch (RuntimeException e) {
+            System.err.println("Could not save spending statistics on shutdown: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the saved statistics into memory.
+     * @return the number of (user, category) statistics loaded
+     */
+    public int load() {
+        List<SpendingStats> rows = spendingStatsRepository.findAll();
+        for (SpendingStats row : rows) {
+            stats.put(key(row.getUserId(), row.getCategoryId()), new Tracked(new StreamingStats(quantile,
+                    row.getSampleCount(), row.getMean(), row.getM2(), row.getQuantileHeights(), row.getQuantilePositions())));
+        }
+        return rows.size();
+    }
+
+    /**
+     * Replaces the statistics with ones folded from every expense, oldest first, and saves them
+     * (first deploy of the anomaly detection).
+     * @return the number of expenses read
+     */
+    @Transactional
+    public long rebuildFromExpenses() {
+        stats.clear();
+        long read = 0;
+        try (Stream<UserCategoryAmount> amounts = expenseRepository.streamAmounts()) {
+            for (UserCategoryAmount row : (Iterable<UserCategoryAmount>) amounts::iterator) {
+                record(row.getUserId(), row.getCategoryId(), row.getAmount().doubleValue());
+                read++;
+            }
+        }
+        persistDirty();
+        return read;
+    }
+
+    public boolean isEmpty() {
+        return spendingStatsRepository.count() == 0;
+    }
+
+    /**
+     * Drops the user's statistics (the user was deleted).
+     */
+    public void forget(Integer userId) {
+        stats.keySet().removeIf(key -> (int) (key >>> 32) == userId);
+        spendingStatsRepository.deleteByUserId(userId);
+    }
+
+    // Sets the expense's flags from the current statistics; false if the expense cannot be scored at all
+    private boolean scoreOnly(Expense expense) {
+        if (expense.getUser() == null || expense.getCategory() == null || expense.getExpenseAmount() == null
+                || expense.getUser().getUserId() == null || expense.getCategory().getCategoryId() == null) {
+            return false;
+        }
+        Tracked tracked = stats.get(key(expense.getUser().getUserId(), expense.getCategory().getCategoryId()));
+        if (tracked == null) {
+            return true;
+        }
+        double amount = expense.getExpenseAmount().doubleValue();
+        double z;
+        boolean anomalous;
+        synchronized (tracked) {
+            StreamingStats s = tracked.stats;
+            if (s.getCount() < minSamples) {
+                return true;
+            }
+            // Floor the deviation so a user who always spends the same amount still gets a finite score
+            double stdDev = Math.max(s.getStdDev(), Math.max(Math.abs(s.getMean()) * 0.01, 0.01));
+            z = (amount - s.getMean()) / stdDev;
+            anomalous = z >= zThreshold && amount > s.getQuantile();
+        }
+        expense.setAnomalyScore(Math.round(z * 100) / 100.0);
+        expense.setAnomalous(anomalous);
+        return true;
+    }
+
+    private void record(int userId, int categoryId, double amount) {
+        Tracked tracked = stats.computeIfAbsent(key(userId, categoryId), k -> new Tracked(new StreamingStats(quantile)));
+        synchronized (tracked) {
+            tracked.stats.add(amount);
+            tracked.dirty = true;
+        }
+    }
+
+    private static long key(int userId, int categoryId) {
+        return ((long) userId << 32) | (categoryId & 0xFFFFFFFFL);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
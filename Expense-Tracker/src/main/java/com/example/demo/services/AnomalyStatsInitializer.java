@@ -0,0 +1,34 @@
+package com.example.demo.services;
+
+import com.example.demo.repository.ExpenseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the saved spending statistics at startup. When none are saved yet but expenses exist
+ * (first deploy of the anomaly detection), or when anomaly.stats.rebuild-on-startup=true,
+ * builds them from the expenses table instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnomalyStatsInitializer implements ApplicationRunner {
+
+    private final AnomalyDetector anomalyDetector;
+    private final ExpenseRepository expenseRepository;
+
+    @Value("${anomaly.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup || (anomalyDetector.isEmpty() && expenseRepository.count() > 0)) {
+            long expenses = anomalyDetector.rebuildFromExpenses();
+            System.out.println("Rebuilt spending statistics from " + expenses + " expenses");
+        } else {
+            anomalyDetector.load();
+        }
+    }
+}
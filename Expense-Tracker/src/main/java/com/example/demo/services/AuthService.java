@@ -5,20 +5,28 @@ import com.example.demo.dto.UserResponse;
 import com.example.demo.entity.User;
 import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AuthService {
 
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private WalletService walletService;
 
-    private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHasher passwordHasher;
 
+    /**
+     * Registers the user. The request thread waits for the hash from the PasswordHasher pool (which
+     * caps concurrent hashing) and saves the user itself, as userController.createUser does, so a
+     * burst of sign-ups never holds the hashing threads on database connections.
+     */
     public String register(UserRequest userRequest){
         if(userRepository.findByEmail(userRequest.getEmail()).isPresent()){
             return "Email Already Exists";
@@ -26,21 +34,28 @@ public class AuthService {
         User user = new User();
         user.setName(userRequest.getName());
         user.setEmail(userRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+        user.setPassword(passwordHasher.encode(userRequest.getPassword()));
         userRepository.save(user);
-        user.setWalletBalance(java.math.BigDecimal.ZERO);
+        user.setWalletBalance(BigDecimal.ZERO);
         return "User Created Successfully";
     }
 
-    public UserResponse login(UserRequest userRequest){
+    /**
+     * Checks the password on the PasswordHasher pool; the future fails with "User Not Found" or "Invalid Password".
+     */
+    public CompletableFuture<UserResponse> login(UserRequest userRequest){
         Optional<User> userOpt = userRepository.findByEmail(userRequest.getEmail());
         if(userOpt.isPresent()==false){
-            throw new RuntimeException("User Not Found");
+            return CompletableFuture.failedFuture(new RuntimeException("User Not Found"));
         }
         User user = userOpt.get();
-        if(!passwordEncoder.matches(userRequest.getPassword(), user.getPassword())){
-            throw new RuntimeException("Invalid Password");
-        }
-        return new UserResponse(user.getUserId(),user.getName(),user.getEmail() , user.getWalletBalance() ,user.getCreatedAt());
+        // Read while still on the request thread, so the hashing thread only hashes
+        BigDecimal balance = walletService.getBalance(user.getUserId());
+        return passwordHasher.matchesAsync(userRequest.getPassword(), user.getPassword()).thenApply(matches -> {
+            if(!matches){
+                throw new RuntimeException("Invalid Password");
+            }
+            return new UserResponse(user.getUserId(),user.getName(),user.getEmail() , balance ,user.getCreatedAt());
+        });
     }
 }
@@ -0,0 +1,33 @@
+package com.example.demo.services;
+
+import com.example.demo.repository.BudgetAllocationRepository;
+import com.example.demo.repository.BudgetRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the per-user budget allocation counters at startup when they are empty but budgets exist
+ * (first deploy of the counters), or always when budget.allocations.rebuild-on-startup=true.
+ */
+@Component
+@RequiredArgsConstructor
+public class BudgetAllocationInitializer implements ApplicationRunner {
+
+    private final BudgetService budgetService;
+    private final BudgetAllocationRepository budgetAllocationRepository;
+    private final BudgetRepository budgetRepository;
+
+    @Value("${budget.allocations.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup || (budgetAllocationRepository.count() == 0 && budgetRepository.count() > 0)) {
+            int users = budgetService.rebuildAllocations();
+            System.out.println("Rebuilt budget allocations: " + users + " users");
+        }
+    }
+}
@@ -4,70 +4,136 @@ import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
+import com.example.demo.dto.BudgetView;
 import com.example.demo.entity.Budget;
 import com.example.demo.entity.User;
+import com.example.demo.repository.BudgetAllocationRepository;
 import com.example.demo.repository.BudgetRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class BudgetService {
 
     @Autowired
     private BudgetRepository budgetRepository;
+    @Autowired
+    private BudgetAllocationRepository budgetAllocationRepository;
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private ReportCache reportCache;
 
+    @Transactional
+    @Timed(value = "budget.create", histogram = true)
     public Budget createBudget(Budget budget) {
-
         User user = budget.getUser();
-        BigDecimal walletBalance = user.getWalletBalance();
-
-        if (walletBalance == null || walletBalance.compareTo(BigDecimal.ZERO) == 0) {
-            throw new RuntimeException("Please set your wallet balance before creating a budget.");
-        }
-
-        // Get sum of user's existing budgets
-        BigDecimal existingBudgetsSum = budgetRepository.sumBudgetsByUserId(user.getUserId());
-        if (existingBudgetsSum == null) {
-            existingBudgetsSum = BigDecimal.ZERO;
-        }
-
-        // Check if new total exceeds wallet
-        BigDecimal newTotalBudgets = existingBudgetsSum.add(budget.getBudgetAmount());
-        if (newTotalBudgets.compareTo(walletBalance) > 0) {
-            BigDecimal available = walletBalance.subtract(existingBudgetsSum);
-            throw new RuntimeException("Total budgets (" + newTotalBudgets + ") cannot exceed wallet balance (" + walletBalance + "). You only have " + available + " left to budget.");
-        }
 
+        // Reserve the amount against the wallet first; the save rolls it back if it fails
+        reserve(user.getUserId(), budget.getBudgetAmount());
+        reportCache.invalidateUser(user.getUserId());
         return budgetRepository.save(budget);
     }
 
-    public List<Budget> getAllBudgets() {
-        return budgetRepository.findAll();
+    /**
+     * Gets one keyset page of budgets, ordered by id.
+     * @param after the last id of the previous page, or null for the first page
+     */
+    public Slice<BudgetView> getBudgetsPage(Integer after, int limit, boolean descending, Integer userId, Integer categoryId) {
+        return budgetRepository.findPage(after, descending, limit, userId, categoryId);
     }
 
     public Optional<Budget> getBudgetById(Integer id) {
         return budgetRepository.findById(id);
     }
 
+    // Read model for the API: the budget with its user and category names, in one query
+    public Optional<BudgetView> getBudgetViewById(Integer id) {
+        return budgetRepository.findViewById(id);
+    }
+
+    @Transactional
     public Budget updateBudget(Integer id,Budget budget) {
         Optional<Budget> optionalBudget = budgetRepository.findById(id);
         if (!optionalBudget.isPresent()) {
             throw new RuntimeException("Budget not found with id " + id);
         }
         Budget existingBudget = optionalBudget.get();
+
+        // Move the allocation: give back the old amount, then reserve the new one (checked against the wallet)
+        Integer oldUserId = existingBudget.getUser().getUserId();
+        Integer newUserId = budget.getUser().getUserId();
+        BigDecimal oldAmount = existingBudget.getBudgetAmount();
+        BigDecimal newAmount = budget.getBudgetAmount();
+        if (oldUserId.equals(newUserId)) {
+            BigDecimal difference = newAmount.subtract(oldAmount);
+            if (difference.signum() > 0) {
+                reserve(newUserId, difference);
+            } else if (difference.signum() < 0) {
+                budgetAllocationRepository.adjust(newUserId, difference);
+            }
+        } else {
+            budgetAllocationRepository.adjust(oldUserId, oldAmount.negate());
+            reserve(newUserId, newAmount);
+        }
+        reportCache.invalidateUser(oldUserId);
+        reportCache.invalidateUser(newUserId);
+
         existingBudget.setUser(budget.getUser());
         existingBudget.setCategory(budget.getCategory());
-        existingBudget.setBudgetAmount(budget.getBudgetAmount());
+        existingBudget.setBudgetAmount(newAmount);
         existingBudget.setStartDate(budget.getStartDate());
         existingBudget.setEndDate(budget.getEndDate());
         return budgetRepository.save(existingBudget);
     }
 
+    @Transactional
     public void deleteBudget(Integer id) {
-        budgetRepository.deleteById(id);
+        // Give the amount back to the user's allocation along with the delete
+        budgetRepository.findById(id).ifPresent(budget -> {
+            budgetAllocationRepository.adjust(budget.getUser().getUserId(), budget.getBudgetAmount().negate());
+            reportCache.invalidateUser(budget.getUser().getUserId());
+            budgetRepository.delete(budget);
+        });
+    }
+
+    /**
+     * Recomputes every user's allocated total from the budget table.
+     * @return the number of users with budgets
+     */
+    @Transactional
+    public int rebuildAllocations() {
+        budgetAllocationRepository.deleteAllRows();
+        return budgetAllocationRepository.rebuildFromBudgets();
     }
+
     public List<Budget> findBudgetsByUserId(Integer userId) {
         // You'll need to add the findByUser_Id method to your repository
         return budgetRepository.findByUser_UserId(userId);
     }
+
+    // Adds the amount to the user's allocated total, refusing if all budgets together would exceed the wallet.
+    // The wallet balance is read from its row and share-locked in this transaction, so it cannot drop
+    // between the check and the commit.
+    private void reserve(Integer userId, BigDecimal amount) {
+        BigDecimal walletBalance = walletService.lockBalanceForRead(userId);
+
+        if (walletBalance == null || walletBalance.compareTo(BigDecimal.ZERO) == 0) {
+            throw new RuntimeException("Please set your wallet balance before creating a budget.");
+        }
+
+        // One conditional upsert on the user's counter row: check and add in a single step
+        if (budgetAllocationRepository.reserve(userId, amount, walletBalance) == 0) {
+            BigDecimal existingBudgetsSum = budgetAllocationRepository.findAllocatedAmount(userId);
+            if (existingBudgetsSum == null) {
+                existingBudgetsSum = BigDecimal.ZERO;
+            }
+            BigDecimal newTotalBudgets = existingBudgetsSum.add(amount);
+            BigDecimal available = walletBalance.subtract(existingBudgetsSum);
+            throw new RuntimeException("Total budgets (" + newTotalBudgets + ") cannot exceed wallet balance (" + walletBalance + "). You only have " + available + " left to budget.");
+        }
+    }
 }
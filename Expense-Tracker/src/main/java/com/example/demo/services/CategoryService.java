@@ -1,29 +1,111 @@
 package com.example.demo.services;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import com.example.demo.entity.Category;
 import com.example.demo.repository.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+/**
+ * Categories are tiny reference data that almost never change, so they are served from an
+ * immutable in-memory snapshot: lookups by id or name of known categories never hit the database.
+ * Every write reloads the whole table into a new snapshot and swaps it in atomically. Writes made
+ * by other instances are picked up every category.snapshot.refresh-ms, and at once when a lookup
+ * misses a category that exists in the database.
+ * Callers get their own copy of each Category; the snapshot's objects never leave this class.
+ */
 @Service
 public class CategoryService {
 
+    /**
+     * One consistent view of the category table. The etag changes whenever the content does.
+     */
+    public static final class Snapshot {
+        private final List<Category> categories;
+        private final Map<Integer, Category> byId;
+        private final Map<String, Category> byName;
+        private final String etag;
+
+        private Snapshot(List<Category> categories, Map<Integer, Category> byId,
+                         Map<String, Category> byName, String etag) {
+            this.categories = categories;
+            this.byId = byId;
+            this.byName = byName;
+            this.etag = etag;
+        }
+
+        // Copies, ordered by id
+        public List<Category> categories() {
+            return categories.stream().map(CategoryService::copy).toList();
+        }
+
+        public String etag() {
+            return etag;
+        }
+    }
+
     @Autowired
     private CategoryRepository categoryRepository;
+    @Autowired
+    private ReportCache reportCache;
+
+    private volatile Snapshot snapshot;
 
     public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        reload();
+        return saved;
     }
 
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return getSnapshot().categories();
     }
 
     public Optional<Category> getCategoryById(Integer id) {
-        return categoryRepository.findById(id);
+        if (id == null) {
+            return Optional.empty();
+        }
+        Category category = getSnapshot().byId.get(id);
+        if (category == null && categoryRepository.existsById(id)) {
+            // Created by another instance since the last reload
+            category = reload().byId.get(id);
+        }
+        return Optional.ofNullable(category).map(CategoryService::copy);
+    }
+
+    // Case-insensitive
+    public Optional<Category> getCategoryByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        Category category = getSnapshot().byName.get(key);
+        if (category == null && categoryRepository.existsByCategoryNameIgnoreCase(name)) {
+            category = reload().byName.get(key);
+        }
+        return Optional.ofNullable(category).map(CategoryService::copy);
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = reload();
+                }
+            }
+        }
+        return current;
     }
 
     public Category updateCategory(Integer id,Category category) {
@@ -34,10 +116,53 @@ public class CategoryService {
         Category existingCategory = optionalCategory.get();
         existingCategory.setCategoryName(category.getCategoryName());
         existingCategory.setDescription(category.getDescription());
-        return categoryRepository.save(existingCategory);
+        Category saved = categoryRepository.save(existingCategory);
+        reload();
+        reportCache.invalidateAll(); // Reports show category names
+        return saved;
     }
 
     public void deleteCategory(Integer id) {
         categoryRepository.deleteById(id);
+        reload();
+        reportCache.invalidateAll();
+    }
+
+    /**
+     * Picks up category writes made by other instances.
+     */
+    @Scheduled(fixedDelayString = "${category.snapshot.refresh-ms:60000}",
+            initialDelayString = "${category.snapshot.refresh-ms:60000}")
+    public void refresh() {
+        if (snapshot != null) {
+            reload();
+        }
+    }
+
+    /**
+     * Reads the category table into a new snapshot and publishes it.
+     * Synchronized so two writes cannot publish their reloads out of order.
+     */
+    public synchronized Snapshot reload() {
+        List<Category> categories = categoryRepository.findAll(Sort.by("categoryId"));
+        Map<Integer, Category> byId = new HashMap<>();
+        Map<String, Category> byName = new HashMap<>();
+        StringBuilder content = new StringBuilder();
+        for (Category category : categories) {
+            byId.put(category.getCategoryId(), category);
+            if (category.getCategoryName() != null) {
+                byName.put(category.getCategoryName().toLowerCase(Locale.ROOT), category);
+            }
+            content.append(category.getCategoryId()).append('\u0000')
+                    .append(category.getCategoryName()).append('\u0000')
+                    .append(category.getDescription()).append('\n');
+        }
+        String etag = "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        snapshot = new Snapshot(List.copyOf(categories), Map.copyOf(byId), Map.copyOf(byName), etag);
+        return snapshot;
+    }
+
+    private static Category copy(Category category) {
+        return new Category(category.getCategoryId(), category.getCategoryName(), category.getDescription());
     }
 }
@@ -0,0 +1,231 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CategorySpending;
+import com.example.demo.dto.CategoryTotal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Spending and budget per category for a report, summed as long cents in arrays indexed by a
+ * slot per category (in order of first appearance). BigDecimals are only read when a row is
+ * added and created again for the DTOs, so merging rows and working out the percentages does
+ * not allocate per step.
+ *
+ * The results are the same as the BigDecimal arithmetic reports used before, down to the scale of
+ * each amount and the bits of each percentage. An amount with more than two non-zero decimals, or
+ * a sum beyond the long range, throws ArithmeticException; callers then fall back to BigDecimal.
+ */
+public final class CentsByCategory {
+
+    private static final int SCALE = 2;
+    // Scale of a slot with no row of that kind; its amount is then BigDecimal.ZERO
+    private static final int NONE = Integer.MIN_VALUE;
+    private static final double EXACT_CENTS = 0x1p50;
+
+    private String[] names;
+    private long[] spent;
+    private long[] budgeted;
+    // -1 until a row with a transaction count is added
+    private long[] transactions;
+    // Largest scale among the rows added to a slot, which BigDecimal.add would have kept
+    private int[] spentScale;
+    private int[] budgetScale;
+    // Open-addressing index from category name to slot + 1 (0 = free), kept at most half full
+    private int[] index;
+    private int size;
+
+    public CentsByCategory() {
+        this(16);
+    }
+
+    public CentsByCategory(int expectedCategories) {
+        allocate(Math.max(expectedCategories, 1));
+    }
+
+    public static CentsByCategory of(List<CategoryTotal> spentPerCategory, List<CategoryTotal> budgetPerCategory) {
+        CentsByCategory totals = new CentsByCategory(Math.max(spentPerCategory.size(), budgetPerCategory.size()));
+        for (CategoryTotal row : spentPerCategory) {
+            totals.addSpent(row);
+        }
+        for (CategoryTotal row : budgetPerCategory) {
+            totals.addBudget(row);
+        }
+        return totals;
+    }
+
+    public void addSpent(CategoryTotal row) {
+        int slot = slot(row.getCategoryName());
+        spent[slot] = Math.addExact(spent[slot], toCents(row.getTotal()));
+        spentScale[slot] = Math.max(spentScale[slot], row.getTotal().scale());
+        if (row.getTransactions() != null) {
+            transactions[slot] = Math.max(transactions[slot], 0) + row.getTransactions();
+        }
+    }
+
+    public void addBudget(CategoryTotal row) {
+        int slot = slot(row.getCategoryName());
+        budgeted[slot] = Math.addExact(budgeted[slot], toCents(row.getTotal()));
+        budgetScale[slot] = Math.max(budgetScale[slot], row.getTotal().scale());
+    }
+
+    /**
+     * One row per category with spending, in order of first appearance (rows for the same
+     * category added up).
+     */
+    public List<CategoryTotal> spentTotals() {
+        List<CategoryTotal> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (spentScale[i] != NONE) {
+                rows.add(new CategoryTotal(names[i], toDecimal(spent[i], spentScale[i]),
+                        transactions[i] < 0 ? null : transactions[i]));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Spending, budget and the two percentages per category, largest spending first.
+     * Categories with the same spending keep their order of first appearance.
+     */
+    public List<CategorySpending> toCategorySpending(BigDecimal totalSpending) {
+        long total = toCents(totalSpending);
+
+        // 1. Slots by spending, descending (insertion sort: a report has a handful of categories)
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            int j = i;
+            while (j > 0 && spent[order[j - 1]] < spent[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+
+        // 2. Percentages in cents, converted to BigDecimal/double for the DTO
+        List<CategorySpending> result = new ArrayList<>(size);
+        for (int slot : order) {
+            long totalSpent = spent[slot];
+            long totalBudgeted = budgeted[slot];
+
+            double percentageOfTotalSpending = total > 0 ? percentage(totalSpent, total) : 0;
+
+            double percentageOfBudgetUsed = 0;
+            if (totalBudgeted > 0) {
+                percentageOfBudgetUsed = percentage(totalSpent, totalBudgeted);
+            } else if (totalSpent > 0) {
+                percentageOfBudgetUsed = 100.0; // Spent money on an unbudgeted category
+            }
+
+            result.add(new CategorySpending(
+                    names[slot],
+                    toDecimal(totalSpent, spentScale[slot]),
+                    percentageOfTotalSpending,
+                    toDecimal(totalBudgeted, budgetScale[slot]),
+                    percentageOfBudgetUsed));
+        }
+        return result;
+    }
+
+    /**
+     * The sum of the rows' totals, as reduce(BigDecimal.ZERO, BigDecimal::add) would give it.
+     */
+    public static BigDecimal sum(List<CategoryTotal> rows) {
+        try {
+            long cents = 0;
+            int scale = 0;
+            for (CategoryTotal row : rows) {
+                cents = Math.addExact(cents, toCents(row.getTotal()));
+                scale = Math.max(scale, row.getTotal().scale());
+            }
+            return toDecimal(cents, scale);
+        } catch (ArithmeticException e) {
+            return rows.stream().map(CategoryTotal::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+
+    /**
+     * part / whole rounded HALF_UP to 4 decimals, times 100, as a double: the same bits as
+     * part.divide(whole, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).doubleValue().
+     * whole must be positive.
+     */
+    static double percentage(long part, long whole) {
+        // Ratio in units of 1/10000, rounded half away from zero: floor((2 * |part| * 10000 + whole) / (2 * whole))
+        long doubled = Math.multiplyExact(Math.absExact(part), 20_000L);
+        long units = Math.addExact(doubled, whole) / Math.multiplyExact(whole, 2L);
+        return (part < 0 ? -units : units) / 100.0;
+    }
+
+    // Exact, or ArithmeticException for fractions of a cent and values beyond the long range
+    static long toCents(BigDecimal amount) {
+        int scale = amount.scale();
+        if (scale >= 0 && scale <= SCALE) {
+            // A whole number of cents below 2^50 survives the double round trip exactly (the error
+            // is under |cents| * 2^-52), and doubleValue() does not allocate, unlike movePointRight
+            double cents = amount.doubleValue() * 100;
+            if (Math.abs(cents) < EXACT_CENTS) {
+                return Math.round(cents);
+            }
+        }
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    // The amount at the scale BigDecimal.add would have produced; ZERO when nothing was added
+    static BigDecimal toDecimal(long cents, int scale) {
+        if (scale == NONE) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal amount = BigDecimal.valueOf(cents, SCALE);
+        return scale == SCALE ? amount : amount.setScale(scale);
+    }
+
+    private int slot(String categoryName) {
+        int mask = index.length - 1;
+        int i = hash(categoryName) & mask;
+        while (index[i] != 0) {
+            int slot = index[i] - 1;
+            if (Objects.equals(names[slot], categoryName)) {
+                return slot;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size == names.length) {
+            allocate(size * 2);
+            return slot(categoryName); // Probe the new index
+        }
+        index[i] = size + 1;
+        names[size] = categoryName;
+        transactions[size] = -1;
+        spentScale[size] = NONE;
+        budgetScale[size] = NONE;
+        return size++;
+    }
+
+    // Sizes the arrays for `capacity` categories, keeping the slots already taken
+    private void allocate(int capacity) {
+        names = names == null ? new String[capacity] : Arrays.copyOf(names, capacity);
+        spent = spent == null ? new long[capacity] : Arrays.copyOf(spent, capacity);
+        budgeted = budgeted == null ? new long[capacity] : Arrays.copyOf(budgeted, capacity);
+        transactions = transactions == null ? new long[capacity] : Arrays.copyOf(transactions, capacity);
+        spentScale = spentScale == null ? new int[capacity] : Arrays.copyOf(spentScale, capacity);
+        budgetScale = budgetScale == null ? new int[capacity] : Arrays.copyOf(budgetScale, capacity);
+
+        index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        int mask = index.length - 1;
+        for (int slot = 0; slot < size; slot++) {
+            int i = hash(names[slot]) & mask;
+            while (index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            index[i] = slot + 1;
+        }
+    }
+
+    private static int hash(String categoryName) {
+        int h = Objects.hashCode(categoryName);
+        return h ^ (h >>> 16);
+    }
+}
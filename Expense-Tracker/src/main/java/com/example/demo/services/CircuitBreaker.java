@@ -0,0 +1,67 @@
+package com.example.demo.services;
+
+/**
+ * Minimal circuit breaker for calls to an outside service.
+ *
+ * CLOSED: calls go through; after failureThreshold failures in a row it opens.
+ * OPEN: calls are refused until openMillis have passed, then a single trial call is let through (HALF_OPEN).
+ * HALF_OPEN: the trial call closes the circuit on success or opens it again on failure.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    // Guarded by "this"
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Returns true if a call may be made now. Every allowed call must be followed by
+     * recordSuccess, recordFailure or release.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAtMillis >= openMillis) {
+            state = State.HALF_OPEN; // This caller makes the trial call; everyone else keeps failing fast
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * For an allowed call that was never made: lets the next caller make the trial call instead.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN; // openedAtMillis is unchanged, so the next tryAcquire is a trial again
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.services;
+
+import com.example.demo.repository.OtpCodeRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * OtpStore shared by every instance, in the otp_codes table (otp.store=database).
+ * A code is consumed by a single conditional DELETE and a wrong code counted by a single
+ * conditional UPDATE, so concurrent verifies on different instances cannot both succeed.
+ * Expiry is checked against the database clock.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "database")
+public class DatabaseOtpStore implements OtpStore {
+
+    private final OtpCodeRepository otpCodeRepository;
+
+    public DatabaseOtpStore(OtpCodeRepository otpCodeRepository) {
+        this.otpCodeRepository = otpCodeRepository;
+    }
+
+    @Override
+    public void put(String email, String codeHash, Duration ttl) {
+        otpCodeRepository.upsert(email, codeHash, ttl.toMillis() / 1000.0);
+    }
+
+    @Override
+    public Result verify(String email, String codeHash, int maxAttempts) {
+        // 1. Right code, still valid: consume it
+        if (otpCodeRepository.consume(email, codeHash, maxAttempts) == 1) {
+            return Result.VERIFIED;
+        }
+        // 2. Wrong code on a valid entry: count the attempt
+        if (otpCodeRepository.recordFailedAttempt(email, maxAttempts) == 1) {
+            return Result.INVALID;
+        }
+        // 3. Nothing valid to check against: say why
+        if (!otpCodeRepository.existsById(email)) {
+            return Result.NOT_FOUND;
+        }
+        if (otpCodeRepository.deleteIfExpired(email) == 1) {
+            return Result.EXPIRED;
+        }
+        return Result.TOO_MANY_ATTEMPTS;
+    }
+
+    @Override
+    public int purgeExpired() {
+        return otpCodeRepository.deleteExpired();
+    }
+}
@@ -1,21 +1,281 @@
 package com.example.demo.services;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import com.example.demo.dto.MailQueueStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends mail in the background: sendEmail only puts the message on a bounded queue and returns.
+ *
+ * mail.workers threads (the mailExecutor pool) take messages off the queue up to mail.batch-size
+ * at a time and send them over an SMTP connection each worker keeps open between batches, closed
+ * after mail.connection-idle-ms without mail. A message that fails is sent again after an
+ * exponential backoff (mail.retry.*), up to mail.retry.max-attempts; one rejected for invalid
+ * recipients is not. stats() reports the queue depth, counters and send latency; they are also
+ * exported as mail.* metrics, the latency as the mail.send timer (one SMTP sendMessage call each).
+ */
 @Service
-public class EmailService {
-    @Autowired
-    private JavaMailSender mailSender;
-
-    public void sendEmail(String to, String subject, String body) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("rohitdhyani9719@gmail.com");
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(body);
-        mailSender.send(message);
+public class EmailService implements MeterBinder {
+
+    private record Mail(String to, String subject, String body, int attempt) {
+    }
+
+    private final JavaMailSenderImpl mailSender;
+    private final ThreadPoolTaskExecutor mailExecutor;
+    private final BlockingQueue<Mail> queue;
+    private final ScheduledExecutorService retryScheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-retry-"));
+    private final List<Future<?>> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    @Value("${mail.from:${spring.mail.username:}}")
+    private String from;
+    @Value("${mail.workers:2}")
+    private int workerCount;
+    @Value("${mail.batch-size:20}")
+    private int batchSize;
+    @Value("${mail.connection-idle-ms:30000}")
+    private long connectionIdleMs;
+    @Value("${mail.retry.max-attempts:4}")
+    private int maxAttempts;
+    @Value("${mail.retry.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+    @Value("${mail.retry.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+    @Value("${mail.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    // Milliseconds per message on the SMTP connection; guarded by its own monitor
+    private final StreamingStats sendLatency = new StreamingStats(0.95);
+    private double maxSendLatencyMs;
+    // Set once bound to the registry; workers may send before that
+    private volatile Timer sendTimer;
+
+    public EmailService(JavaMailSenderImpl mailSender,
+                        @Qualifier("mailExecutor") ThreadPoolTaskExecutor mailExecutor,
+                        @Value("${mail.queue.capacity:1000}") int capacity) {
+        this.mailSender = mailSender;
+        this.mailExecutor = mailExecutor;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(mailExecutor.submit(this::work));
+        }
+    }
+
+    /**
+     * Queues the message for sending and returns at once.
+     * @return false if the queue is full (the message is not sent)
+     */
+    public boolean sendEmail(String to, String subject, String body) {
+        if (!running || !queue.offer(new Mail(to, subject, body, 0))) {
+            rejected.increment();
+            return false;
+        }
+        enqueued.increment();
+        return true;
+    }
+
+    public MailQueueStats stats() {
+        synchronized (sendLatency) {
+            double p95 = sendLatency.getCount() == 0 ? 0 : sendLatency.getQuantile();
+            return new MailQueueStats(queue.size(), queue.size() + queue.remainingCapacity(),
+                    enqueued.sum(), rejected.sum(), sent.sum(), retried.sum(), failed.sum(), batches.sum(),
+                    connectionsOpened.sum(), sendLatency.getMean(), p95, maxSendLatencyMs);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mail.queue.depth", queue, BlockingQueue::size).description("Mails waiting to be sent").register(registry);
+        FunctionCounter.builder("mail.enqueued", enqueued, LongAdder::sum).description("Mails queued").register(registry);
+        FunctionCounter.builder("mail.sent", sent, LongAdder::sum).description("Mails sent").register(registry);
+        FunctionCounter.builder("mail.retried", retried, LongAdder::sum).description("Send attempts scheduled again").register(registry);
+        FunctionCounter.builder("mail.failed", failed, LongAdder::sum).description("Mails given up on").register(registry);
+        FunctionCounter.builder("mail.rejected", rejected, LongAdder::sum)
+                .description("Mails refused because the queue was full").register(registry);
+        FunctionCounter.builder("mail.batches", batches, LongAdder::sum).description("Batches taken off the queue").register(registry);
+        FunctionCounter.builder("mail.connections.opened", connectionsOpened, LongAdder::sum)
+                .description("SMTP connections opened").register(registry);
+        sendTimer = Timer.builder("mail.send").description("SMTP send of one mail on an open connection")
+                .publishPercentileHistogram().register(registry);
+    }
+
+    /**
+     * Stops taking new mail and gives the workers up to mail.shutdown-timeout-ms to send what is queued.
+     * Runs on ContextClosedEvent, before mailExecutor's own lifecycle stop (which would wait for the
+     * worker loops to finish on their own).
+     */
+    @EventListener(ContextClosedEvent.class)
+    void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get(Math.max(deadline - System.currentTimeMillis(), 1), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                worker.cancel(true);
+            }
+        }
+        List<Runnable> pendingRetries = retryScheduler.shutdownNow();
+        if (!queue.isEmpty() || !pendingRetries.isEmpty()) {
+            System.err.println("Mail queue shut down with " + (queue.size() + pendingRetries.size()) + " messages unsent");
+        }
+    }
+
+    // Worker loop: one batch per round, on a connection kept open until it has been idle too long
+    private void work() {
+        Transport transport = null;
+        long lastUsed = 0;
+        List<Mail> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Mail first = queue.poll(Math.min(connectionIdleMs, 500), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (transport != null && System.currentTimeMillis() - lastUsed >= connectionIdleMs) {
+                        transport = close(transport);
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                batches.increment();
+                transport = sendBatch(transport, batch);
+                batch.clear();
+                lastUsed = System.currentTimeMillis();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(transport);
+        }
+    }
+
+    private Transport sendBatch(Transport transport, List<Mail> batch) {
+        for (Mail mail : batch) {
+            try {
+                if (transport == null) {
+                    transport = connect();
+                }
+                MimeMessage message = toMessage(mail);
+                long start = System.nanoTime();
+                transport.sendMessage(message, message.getAllRecipients());
+                recordLatency(System.nanoTime() - start);
+                sent.increment();
+            } catch (SendFailedException e) {
+                transport = close(transport);
+                if (e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0) {
+                    failed.increment(); // The server will never accept these recipients
+                    System.err.println("Mail to " + mail.to() + " rejected: " + e.getMessage());
+                } else {
+                    retryLater(mail, e);
+                }
+            } catch (MessagingException | RuntimeException e) {
+                // The connection may be broken: drop it, the next message opens a new one
+                transport = close(transport);
+                retryLater(mail, e);
+            }
+        }
+        return transport;
+    }
+
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol() == null ? "smtp" : mailSender.getProtocol());
+        String username = mailSender.getUsername() == null || mailSender.getUsername().isEmpty() ? null : mailSender.getUsername();
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, mailSender.getPassword());
+        connectionsOpened.increment();
+        return transport;
+    }
+
+    private MimeMessage toMessage(Mail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(from);
+        helper.setTo(mail.to());
+        helper.setSubject(mail.subject());
+        helper.setText(mail.body());
+        message.saveChanges(); // Transport.sendMessage does not do it (Transport.send would)
+        return message;
+    }
+
+    private void retryLater(Mail mail, Exception cause) {
+        int attempt = mail.attempt() + 1;
+        if (attempt >= maxAttempts || !running) {
+            failed.increment();
+            System.err.println("Giving up on mail to " + mail.to() + " after " + attempt + " attempts: " + cause.getMessage());
+            return;
+        }
+        retried.increment();
+        long delay = Math.min(initialBackoffMs << Math.min(mail.attempt(), 20), maxBackoffMs);
+        Mail next = new Mail(mail.to(), mail.subject(), mail.body(), attempt);
+        retryScheduler.schedule(() -> {
+            if (!queue.offer(next)) {
+                failed.increment();
+                System.err.println("Mail queue full, dropping retry of mail to " + next.to());
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void recordLatency(long nanos) {
+        Timer timer = sendTimer;
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+        double millis = nanos / 1_000_000.0;
+        synchronized (sendLatency) {
+            sendLatency.add(millis);
+            maxSendLatencyMs = Math.max(maxSendLatencyMs, millis);
+        }
+    }
+
+    private static Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                // Already gone
+            }
+        }
+        return null;
     }
 }
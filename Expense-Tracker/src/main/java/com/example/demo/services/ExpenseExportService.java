@@ -0,0 +1,94 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.entity.Expense;
+import com.example.demo.repository.ExpenseRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's full expense history to an output stream as CSV or NDJSON.
+ * Rows are read through a database cursor and detached once written, so memory use
+ * does not depend on how many expenses the user has.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExpenseExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String CSV_HEADER = "expenseId,expenseDate,categoryName,expenseAmount,note";
+
+    private final ExpenseRepository expenseRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return the number of rows written
+     */
+    @Transactional(readOnly = true) // The cursor is only open while the transaction is
+    public long exportUserExpenses(Integer userId, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try (Stream<Expense> expenses = expenseRepository.streamByUserId(userId)) {
+            Iterator<Expense> it = expenses.iterator();
+            while (it.hasNext()) {
+                Expense expense = it.next();
+                ExpenseResponse row = new ExpenseResponse(expense);
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                entityManager.detach(expense); // Keep the persistence context from growing
+                rows++;
+            }
+        }
+
+        writer.flush();
+        return rows;
+    }
+
+    private void writeCsvRow(Writer writer, ExpenseResponse row) throws IOException {
+        writer.write(String.valueOf(row.getExpenseId()));
+        writer.write(',');
+        writer.write(row.getExpenseDate() == null ? "" : row.getExpenseDate().toString());
+        writer.write(',');
+        writer.write(csvField(row.getCategoryName()));
+        writer.write(',');
+        writer.write(row.getExpenseAmount() == null ? "" : row.getExpenseAmount().toPlainString());
+        writer.write(',');
+        writer.write(csvField(row.getNote()));
+        writer.write('\n');
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.services;
+
+import com.example.demo.repository.ExpenseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Databases created before Expense ids moved to expenses_seq already have rows numbered by the old
+ * IDENTITY column. Moves the sequence past them while the context starts, before any request can insert.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExpenseIdSequenceInitializer implements InitializingBean {
+
+    private final ExpenseRepository expenseRepository;
+
+    @Override
+    public void afterPropertiesSet() {
+        expenseRepository.alignIdSequence();
+    }
+}
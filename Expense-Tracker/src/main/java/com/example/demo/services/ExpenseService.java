@@ -1,29 +1,68 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseView;
+import com.example.demo.entity.Category;
 import com.example.demo.entity.Expense;
 import com.example.demo.entity.User;
+import com.example.demo.entity.WalletLedgerEntry.EntryType;
 import com.example.demo.repository.ExpenseRepository;
 import com.example.demo.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Import this
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ExpenseService {
 
     private final ExpenseRepository expenseRepository;
     private final UserRepository userRepository;
+    private final CategoryService categoryService;
+    private final SpendingRollupService spendingRollupService;
+    private final WalletService walletService;
+    private final ReportCache reportCache;
+    private final PredictionStore predictionStore;
+    private final AnomalyDetector anomalyDetector;
+    private final EntityManager entityManager;
+
+    // Must match spring.jpa.properties.hibernate.jdbc.batch_size
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
 
     // Use constructor injection for required repositories
-    public ExpenseService(ExpenseRepository expenseRepository, UserRepository userRepository) {
+    public ExpenseService(ExpenseRepository expenseRepository, UserRepository userRepository,
+                          CategoryService categoryService, SpendingRollupService spendingRollupService,
+                          WalletService walletService, ReportCache reportCache, PredictionStore predictionStore,
+                          AnomalyDetector anomalyDetector, EntityManager entityManager) {
         this.expenseRepository = expenseRepository;
         this.userRepository = userRepository;
+        this.categoryService = categoryService;
+        this.spendingRollupService = spendingRollupService;
+        this.walletService = walletService;
+        this.reportCache = reportCache;
+        this.predictionStore = predictionStore;
+        this.anomalyDetector = anomalyDetector;
+        this.entityManager = entityManager;
     }
 
     @Transactional // Ensures this is an all-or-nothing operation
+    @Timed(value = "expense.create", histogram = true)
     public Expense createExpense(Expense expense) {
         User user = expense.getUser();
         BigDecimal expenseAmount = expense.getExpenseAmount();
@@ -33,40 +72,108 @@ public class ExpenseService {
             throw new RuntimeException("User not found for this expense.");
         }
 
-        // 1. Check wallet balance
-        BigDecimal currentWallet = user.getWalletBalance();
-        if (currentWallet == null) {
-            currentWallet = BigDecimal.ZERO; // Treat null wallet as 0
+        // 1. Flag it if unusual for the user, save it and add it to the spending rollups
+        anomalyDetector.score(expense);
+        Expense saved = expenseRepository.save(expense);
+        spendingRollupService.recordExpense(saved);
+        reportCache.invalidateUser(user.getUserId());
+        predictionStore.markDirty(user.getUserId());
+
+        // 2. Debit the wallet (throws, rolling everything back, if it cannot cover the expense)
+        user.setWalletBalance(walletService.debit(user.getUserId(), expenseAmount, EntryType.EXPENSE, saved.getExpenseId()));
+        return saved;
+    }
+
+    /**
+     * Creates many expenses in one transaction (offline sync from mobile clients).
+     * Users and categories are looked up once per batch, each user's wallet is debited once
+     * with the batch total, and the rows are written with JDBC batching.
+     * All-or-nothing: any unknown user/category or insufficient wallet rejects the whole batch.
+     */
+    @Transactional
+    @Timed(value = "expense.create_batch", histogram = true)
+    public List<Expense> createExpenses(List<ExpenseRequest> requests) {
+        // 1. Resolve every referenced user with one query (categories come from CategoryService's snapshot)
+        Set<Integer> userIds = new HashSet<>();
+        for (ExpenseRequest request : requests) {
+            userIds.add(request.getUserId());
+        }
+        userIds.remove(null);
+        Map<Integer, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getUserId, Function.identity()));
+
+        // 2. Build the expenses and add up what each user spends in this batch
+        List<Expense> expenses = new ArrayList<>(requests.size());
+        // Sorted so the users' wallet rows are always locked in the same order
+        Map<Integer, BigDecimal> debits = new TreeMap<>();
+        for (ExpenseRequest request : requests) {
+            User user = users.get(request.getUserId());
+            Category category = categoryService.getCategoryById(request.getCategoryId()).orElse(null);
+            if (user == null || category == null) {
+                throw new RuntimeException("Unknown user " + request.getUserId() + " or category " + request.getCategoryId() + " in batch.");
+            }
+            if (request.getExpenseAmount() == null) {
+                throw new RuntimeException("Expense amount is required for every expense in the batch.");
+            }
+            Expense expense = new Expense();
+            expense.setUser(user);
+            expense.setCategory(category);
+            expense.setExpenseAmount(request.getExpenseAmount());
+            expense.setExpenseDate(request.getExpenseDate());
+            expense.setNote(request.getNote());
+            expenses.add(expense);
+            debits.merge(user.getUserId(), request.getExpenseAmount(), BigDecimal::add);
         }
 
-        if (currentWallet.compareTo(expenseAmount) < 0) {
-            throw new RuntimeException("Insufficient wallet balance. You only have " + currentWallet + ".");
+        // 3. Flag unusual amounts, then insert; flushing and clearing per batch keeps the persistence context small
+        anomalyDetector.scoreAll(expenses);
+        for (int i = 0; i < expenses.size(); i++) {
+            entityManager.persist(expenses.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
         }
+        entityManager.flush();
 
-        // 2. Deduct from wallet
-        user.setWalletBalance(currentWallet.subtract(expenseAmount));
-        userRepository.save(user); // Save the updated user wallet
+        // 4. Add the whole batch to the spending rollups
+        spendingRollupService.recordExpenses(expenses);
+        debits.keySet().forEach(reportCache::invalidateUser);
+        debits.keySet().forEach(predictionStore::markDirty);
 
-        // 3. Save the new expense
-        return expenseRepository.save(expense);
+        // 5. One wallet debit per user for their share of the batch
+        for (Map.Entry<Integer, BigDecimal> debit : debits.entrySet()) {
+            users.get(debit.getKey()).setWalletBalance(
+                    walletService.debit(debit.getKey(), debit.getValue(), EntryType.EXPENSE, null));
+        }
+        return expenses;
     }
 
     /**
-     * Gets all expenses for all users (Admin function).
+     * Gets one keyset page of expenses, ordered by id (Admin list and per-user list).
+     * @param after the last id of the previous page, or null for the first page
+     * @param userId, categoryId, fromDate, toDate optional filters (null = no filter)
      */
-    public List<Expense> getAllExpenses() {
-        return expenseRepository.findAll();
+    public Slice<ExpenseView> getExpensesPage(Integer after, int limit, boolean descending,
+                                              Integer userId, Integer categoryId, LocalDate fromDate, LocalDate toDate) {
+        return expenseRepository.findPage(after, descending, limit, userId, categoryId, fromDate, toDate);
     }
 
     public Optional<Expense> getExpenseById(Integer id) {
         return expenseRepository.findById(id);
     }
 
+    // Read model for the API: the expense with its user and category names, in one query
+    public Optional<ExpenseView> getExpenseViewById(Integer id) {
+        return expenseRepository.findViewById(id);
+    }
+
     public List<Expense> findExpensesByUserId(Integer userId) {
         return expenseRepository.findByUser_UserId(userId);
     }
 
     @Transactional
+    @Timed(value = "expense.update", histogram = true)
     public Expense updateExpense(Integer id, Expense expenseDetails) {
         // 1. Find the original expense
         Expense existingExpense = expenseRepository.findById(id)
@@ -78,17 +185,8 @@ public class ExpenseService {
 
         BigDecimal amountDifference = newAmount.subtract(oldAmount);
 
-        BigDecimal currentWallet = user.getWalletBalance();
-        if (currentWallet == null) {
-            currentWallet = BigDecimal.ZERO;
-        }
-
-        if (currentWallet.compareTo(amountDifference) < 0) {
-            throw new RuntimeException("User's wallet balance is too low to make this adjustment.");
-        }
-
-        user.setWalletBalance(currentWallet.subtract(amountDifference));
-        userRepository.save(user); // Save updated wallet
+        // Take the old values out of the rollups before they are overwritten
+        spendingRollupService.removeExpense(existingExpense);
 
         existingExpense.setUser(expenseDetails.getUser());
         existingExpense.setCategory(expenseDetails.getCategory());
@@ -96,11 +194,25 @@ public class ExpenseService {
         existingExpense.setExpenseDate(expenseDetails.getExpenseDate());
         existingExpense.setNote(expenseDetails.getNote());
 
-        return expenseRepository.save(existingExpense);
+        Expense saved = expenseRepository.save(existingExpense);
+        spendingRollupService.recordExpense(saved);
+        reportCache.invalidateUser(user.getUserId());
+        reportCache.invalidateUser(saved.getUser().getUserId());
+        predictionStore.markDirty(user.getUserId());
+        if (!user.getUserId().equals(saved.getUser().getUserId())) {
+            predictionStore.markDirty(saved.getUser().getUserId());
+        }
+
+        // Charge (or refund, when negative) only the difference
+        if (amountDifference.signum() != 0) {
+            user.setWalletBalance(walletService.debit(user.getUserId(), amountDifference, EntryType.EXPENSE_UPDATE, id));
+        }
+        return saved;
     }
 
 
     @Transactional
+    @Timed(value = "expense.delete", histogram = true)
     public void deleteExpense(Integer id) {
         // 1. Find the expense *before* deleting it
         Expense expense = expenseRepository.findById(id)
@@ -109,18 +221,28 @@ public class ExpenseService {
         User user = expense.getUser();
         BigDecimal refundAmount = expense.getExpenseAmount();
 
-        BigDecimal currentWallet = user.getWalletBalance();
-        if (currentWallet == null) {
-            currentWallet = BigDecimal.ZERO;
-        }
-        user.setWalletBalance(currentWallet.add(refundAmount));
-        userRepository.save(user); // Save the refunded user
-
+        spendingRollupService.removeExpense(expense);
+        reportCache.invalidateUser(user.getUserId());
+        predictionStore.markDirty(user.getUserId());
         expenseRepository.delete(expense);
+
+        // Refund the wallet
+        user.setWalletBalance(walletService.credit(user.getUserId(), refundAmount, EntryType.REFUND, id));
+    }
+
+    /**
+     * One keyset page of expenses flagged as anomalous, newest first, optionally of one user.
+     * @param after the last id of the previous page, or null for the first page
+     */
+    public Slice<ExpenseView> getAnomaliesPage(Integer after, int limit, Integer userId) {
+        Integer before = after == null ? Integer.MAX_VALUE : after;
+        if (userId == null) {
+            return expenseRepository.findAnomaliesBefore(before, PageRequest.of(0, limit));
+        }
+        return expenseRepository.findUserAnomaliesBefore(before, userId, PageRequest.of(0, limit));
     }
 
-    public List<Expense> findByCategoryName(String categoryName) {
-        // This now correctly calls the native query in your ExpenseRepository
-        return expenseRepository.findByCategoryName(categoryName);
+    public List<ExpenseView> findByCategoryName(String categoryName) {
+        return expenseRepository.findViewsByCategoryName(categoryName);
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.UserCategoryTotal;
+import com.example.demo.repository.MonthlySpendingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-user feature vectors for the prediction model, in the columns of fallback_dataset.csv.
+ *
+ * A vector is one month of a user's spending per category, read from the monthly_spending rollup
+ * (kept up to date by every expense write), so extracting features never scans expenses and takes
+ * one aggregate query for any number of users. Categories outside the dataset's named ones count
+ * as Others. The app has no income data, so Income is always missing (NaN) and the model uses
+ * its default for it; so does every column of a user with no spending that month.
+ */
+@Service
+@RequiredArgsConstructor
+public class FeatureStore {
+
+    public static final List<String> COLUMNS = List.of(
+            "Food", "Transport", "Entertainment", "Shopping", "Bills", "Health", "Others", "Total_Expense", "Income");
+
+    private static final int OTHERS = COLUMNS.indexOf("Others");
+    private static final int TOTAL = COLUMNS.indexOf("Total_Expense");
+
+    // Lower-cased category name -> column, for the named spending columns
+    private static final Map<String, Integer> CATEGORY_COLUMNS = Map.of(
+            "food", 0, "transport", 1, "entertainment", 2, "shopping", 3, "bills", 4, "health", 5);
+
+    private final MonthlySpendingRepository monthlySpendingRepository;
+
+    /**
+     * A user's features for one month; values are in COLUMNS order, NaN where unknown.
+     */
+    public record Features(Integer userId, YearMonth month, double[] values) {
+
+        /**
+         * The known values by column name (NaN ones left out), as sent to the Python service.
+         */
+        public Map<String, Double> asMap() {
+            Map<String, Double> map = new LinkedHashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                if (!Double.isNaN(values[i])) {
+                    map.put(COLUMNS.get(i), values[i]);
+                }
+            }
+            return map;
+        }
+    }
+
+    public Features getFeatures(Integer userId) {
+        return getFeatures(List.of(userId)).get(userId);
+    }
+
+    /**
+     * Features of every given user, from a single query. Based on the last complete month.
+     */
+    public Map<Integer, Features> getFeatures(Collection<Integer> userIds) {
+        YearMonth month = YearMonth.now().minusMonths(1);
+        Map<Integer, double[]> vectors = new HashMap<>();
+        for (UserCategoryTotal row : monthlySpendingRepository.sumByUserAndCategory(userIds, month.atDay(1))) {
+            double[] values = vectors.computeIfAbsent(row.getUserId(), id -> emptyVector(0.0));
+            double amount = row.getTotal().doubleValue();
+            String name = row.getCategoryName() == null ? "" : row.getCategoryName().trim().toLowerCase(Locale.ROOT);
+            values[CATEGORY_COLUMNS.getOrDefault(name, OTHERS)] += amount;
+            values[TOTAL] += amount;
+        }
+
+        Map<Integer, Features> features = new HashMap<>();
+        for (Integer userId : userIds) {
+            double[] values = vectors.getOrDefault(userId, emptyVector(Double.NaN));
+            features.put(userId, new Features(userId, month, values));
+        }
+        return features;
+    }
+
+    // Spending columns start at the given value (0 once the user has any spending); Income is always unknown
+    private static double[] emptyVector(double spending) {
+        double[] values = new double[COLUMNS.size()];
+        Arrays.fill(values, spending);
+        values[COLUMNS.indexOf("Income")] = Double.NaN;
+        return values;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * OtpStore for a single instance: a concurrent map of email -> code with its expiry and failed attempts.
+ * Each verify is one atomic compute on the email's entry. Beyond otp.store.max-size codes, expired ones
+ * are dropped first and then the oldest tenth.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private record Entry(String codeHash, long expiresAtMillis, int attempts) {
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    public InMemoryOtpStore(@Value("${otp.store.max-size:100000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void put(String email, String codeHash, Duration ttl) {
+        if (entries.size() >= maxSize && !entries.containsKey(email)) {
+            makeRoom();
+        }
+        entries.put(email, new Entry(codeHash, System.currentTimeMillis() + ttl.toMillis(), 0));
+    }
+
+    @Override
+    public Result verify(String email, String codeHash, int maxAttempts) {
+        long now = System.currentTimeMillis();
+        Result[] result = {Result.NOT_FOUND};
+        entries.computeIfPresent(email, (key, entry) -> {
+            if (entry.expiresAtMillis() <= now) {
+                result[0] = Result.EXPIRED;
+                return null;
+            }
+            if (entry.attempts() >= maxAttempts) {
+                result[0] = Result.TOO_MANY_ATTEMPTS;
+                return entry;
+            }
+            if (MessageDigest.isEqual(entry.codeHash().getBytes(StandardCharsets.US_ASCII),
+                    codeHash.getBytes(StandardCharsets.US_ASCII))) {
+                result[0] = Result.VERIFIED;
+                return null;
+            }
+            result[0] = Result.INVALID;
+            return new Entry(entry.codeHash(), entry.expiresAtMillis(), entry.attempts() + 1);
+        });
+        return result[0];
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().expiresAtMillis() <= now && entries.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Every code has the same TTL, so the earliest expiry is the oldest code
+    private void makeRoom() {
+        if (purgeExpired() > 0 && entries.size() < maxSize) {
+            return;
+        }
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAtMillis()))
+                .limit(maxSize / 10 + 1)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.demo.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores the prediction model inside the JVM, so predictions need no call to the Python service.
+ *
+ * Loads the JSON export written by ml_utils.save_model at startup. ai.model.path is a file path
+ * (or a classpath: resource). The export holds the feature columns with their defaults, the
+ * StandardScaler mean/scale, a base score and the XGBoost trees. The trees are flattened into
+ * parallel arrays, so scoring walks plain arrays and allocates nothing. If the model is missing,
+ * unreadable or has no trees (a constant DummyRegressor model, which the Python service serves just as
+ * well), isLoaded() is false and AIPredictionService keeps calling the Python service.
+ */
+@Component
+public class LocalModelScorer {
+
+    private final String modelPath;
+    private final Model model;
+
+    public LocalModelScorer(ObjectMapper objectMapper, @Value("${ai.model.path:}") String modelPath) {
+        this.modelPath = modelPath;
+        this.model = load(objectMapper, modelPath);
+    }
+
+    public boolean isLoaded() {
+        return model != null;
+    }
+
+    public String getModelPath() {
+        return modelPath;
+    }
+
+    /**
+     * Number of entries score() expects, in the order of getFeatureColumns().
+     */
+    public int getFeatureCount() {
+        return model.featureColumns.size();
+    }
+
+    public List<String> getFeatureColumns() {
+        return model.featureColumns;
+    }
+
+    /**
+     * Predicts from a feature vector in getFeatureColumns() order. NaN entries (or entries past
+     * the end of a shorter array) take the column's default, as the Python service does; where the
+     * export has no default either, each split on the column follows its "missing" branch.
+     * Never negative; the export's fallback value if the model produces NaN.
+     */
+    public double score(double[] features) {
+        Model m = model;
+        double sum = m.baseScore;
+        for (int root : m.treeRoots) {
+            int node = root;
+            while (m.splitFeature[node] >= 0) {
+                int f = m.splitFeature[node];
+                double value = f < features.length && !Double.isNaN(features[f]) ? features[f] : m.defaults[f];
+                // XGBoost compares in single precision: go left ("yes") when x < split_condition,
+                // and takes the split's "missing" branch when there is no value (no default either)
+                float scaled = (float) ((value - m.scalerMean[f]) / m.scalerScale[f]);
+                if (Float.isNaN(scaled)) {
+                    node = m.missing[node];
+                } else {
+                    node = scaled < m.threshold[node] ? m.yes[node] : m.no[node];
+                }
+            }
+            sum += m.leaf[node];
+        }
+        if (Double.isNaN(sum)) {
+            return m.fallbackValue;
+        }
+        return Math.max(sum, 0.0);
+    }
+
+    // Immutable after loading; shared by all scoring threads
+    private static final class Model {
+        final List<String> featureColumns;
+        final double[] defaults;
+        final double[] scalerMean;
+        final double[] scalerScale;
+        final double baseScore;
+        final double fallbackValue;
+        // One entry per tree node, all trees back to back. splitFeature is -1 for leaves.
+        final int[] treeRoots;
+        final int[] splitFeature;
+        final float[] threshold;
+        final int[] yes;
+        final int[] no;
+        final int[] missing;
+        final double[] leaf;
+
+        Model(List<String> featureColumns, double[] defaults, double[] scalerMean, double[] scalerScale,
+              double baseScore, double fallbackValue, int[] treeRoots, int[] splitFeature,
+              float[] threshold, int[] yes, int[] no, int[] missing, double[] leaf) {
+            this.featureColumns = featureColumns;
+            this.defaults = defaults;
+            this.scalerMean = scalerMean;
+            this.scalerScale = scalerScale;
+            this.baseScore = baseScore;
+            this.fallbackValue = fallbackValue;
+            this.treeRoots = treeRoots;
+            this.splitFeature = splitFeature;
+            this.threshold = threshold;
+            this.yes = yes;
+            this.no = no;
+            this.missing = missing;
+            this.leaf = leaf;
+        }
+    }
+
+    private static Model load(ObjectMapper objectMapper, String modelPath) {
+        if (modelPath == null || modelPath.isBlank()) {
+            return null;
+        }
+        Resource resource = modelPath.startsWith(ResourceUtils.CLASSPATH_URL_PREFIX) || modelPath.startsWith(ResourceUtils.FILE_URL_PREFIX)
+                ? new DefaultResourceLoader().getResource(modelPath)
+                : new FileSystemResource(modelPath);
+        if (!resource.isReadable()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            Model model = parse(objectMapper.readTree(in));
+            if (model.treeRoots.length == 0) {
+                System.err.println("Model " + modelPath + " has no trees (fallback model), using the AI service instead");
+                return null;
+            }
+            return model;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not load model " + modelPath + ", using the AI service instead: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Model parse(JsonNode doc) {
+        // 1. Features, defaults and scaler
+        List<String> columns = new ArrayList<>();
+        doc.get("feature_columns").forEach(column -> columns.add(column.asText()));
+        Map<String, Integer> columnIndex = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndex.put(columns.get(i), i);
+        }
+        double[] defaults = doubles(doc.get("defaults"), columns.size());
+        double[] mean = doubles(doc.path("scaler").get("mean"), columns.size());
+        double[] scale = doubles(doc.path("scaler").get("scale"), columns.size());
+        for (int i = 0; i < scale.length; i++) {
+            if (scale[i] == 0.0) {
+                scale[i] = 1.0; // StandardScaler does the same for constant columns
+            }
+        }
+
+        // 2. Flatten the trees. Node ids are not dense once XGBoost prunes a tree, so each tree's
+        // ids are mapped to the nodes' positions in the flat arrays
+        JsonNode trees = doc.path("trees");
+        int[] roots = new int[trees.size()];
+        int total = 0;
+        List<List<JsonNode>> nodesPerTree = new ArrayList<>();
+        for (JsonNode tree : trees) {
+            List<JsonNode> nodes = new ArrayList<>();
+            collect(tree, nodes);
+            nodesPerTree.add(nodes);
+            total += nodes.size();
+        }
+        int[] splitFeature = new int[total];
+        float[] threshold = new float[total];
+        int[] yes = new int[total];
+        int[] no = new int[total];
+        int[] missing = new int[total];
+        double[] leaf = new double[total];
+        int offset = 0;
+        for (int t = 0; t < nodesPerTree.size(); t++) {
+            List<JsonNode> nodes = nodesPerTree.get(t);
+            Map<Integer, Integer> position = new HashMap<>();
+            for (int n = 0; n < nodes.size(); n++) {
+                position.put(nodes.get(n).get("nodeid").asInt(), offset + n);
+            }
+            roots[t] = offset;
+            for (int n = 0; n < nodes.size(); n++) {
+                JsonNode node = nodes.get(n);
+                int i = offset + n;
+                if (node.has("leaf")) {
+                    splitFeature[i] = -1;
+                    leaf[i] = node.get("leaf").asDouble();
+                } else {
+                    splitFeature[i] = featureIndex(node.get("split").asText(), columnIndex, columns.size());
+                    threshold[i] = (float) node.get("split_condition").asDouble();
+                    yes[i] = child(position, node, "yes");
+                    no[i] = child(position, node, "no");
+                    missing[i] = node.has("missing") ? child(position, node, "missing") : yes[i];
+                }
+            }
+            offset += nodes.size();
+        }
+
+        double fallbackValue = doc.path("fallback_value").asDouble(0.0);
+        return new Model(List.copyOf(columns), defaults, mean, scale, doc.get("base_score").asDouble(), fallbackValue,
+                roots, splitFeature, threshold, yes, no, missing, leaf);
+    }
+
+    // Flat index of the child a split points to ("yes", "no" or "missing")
+    private static int child(Map<Integer, Integer> position, JsonNode node, String branch) {
+        Integer index = position.get(node.get(branch).asInt());
+        if (index == null) {
+            throw new IllegalArgumentException("Node " + node.get("nodeid") + " has no child " + node.get(branch));
+        }
+        return index;
+    }
+
+    // Trees trained on the scaled numpy array name their features f0, f1, ...; others use the column names
+    private static int featureIndex(String split, Map<String, Integer> columnIndex, int featureCount) {
+        Integer index = columnIndex.get(split);
+        if (index == null && split.matches("f\\d+")) {
+            index = Integer.parseInt(split.substring(1));
+        }
+        if (index == null || index >= featureCount) {
+            throw new IllegalArgumentException("Unknown split feature " + split);
+        }
+        return index;
+    }
+
+    private static void collect(JsonNode node, List<JsonNode> nodes) {
+        nodes.add(node);
+        for (JsonNode child : node.path("children")) {
+            collect(child, nodes);
+        }
+    }
+
+    private static double[] doubles(JsonNode array, int size) {
+        if (array == null || array.size() != size) {
+            throw new IllegalArgumentException("Expected " + size + " values, got " + array);
+        }
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            // null (e.g. a default the export does not know) reads as NaN
+            values[i] = array.get(i).isNull() ? Double.NaN : array.get(i).asDouble();
+        }
+        return values;
+    }
+}
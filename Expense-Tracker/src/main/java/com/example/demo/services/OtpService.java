@@ -1,24 +1,72 @@
 package com.example.demo.services;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
 
+/**
+ * Issues and checks six-digit email verification codes. Codes expire after otp.ttl-seconds, can be
+ * used once, and stop being accepted after otp.max-attempts wrong guesses. Only a hash of the code
+ * is kept, in the configured OtpStore.
+ */
 @Service
 public class OtpService {
-    private final Map<String, String> otpStorage = new HashMap<>();
+
+    private final OtpStore otpStore;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${otp.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${otp.max-attempts:5}")
+    private int maxAttempts;
+
+    public OtpService(OtpStore otpStore) {
+        this.otpStore = otpStore;
+    }
 
     public String generateOtp(String email){
-        String otp = String.format("%06d", new Random().nextInt(999999));
-        otpStorage.put(email,otp);
+        String otp = String.format("%06d", random.nextInt(1_000_000));
+        String key = normalize(email);
+        otpStore.put(key, hash(key, otp), Duration.ofSeconds(ttlSeconds));
         return otp;
     }
 
+    public OtpStore.Result verify(String email, String enteredOtp){
+        if (email == null || enteredOtp == null) {
+            return OtpStore.Result.INVALID;
+        }
+        String key = normalize(email);
+        return otpStore.verify(key, hash(key, enteredOtp.trim()), maxAttempts);
+    }
+
     public boolean verifyOtp(String email, String enteredOtp){
-        String correctOtp = otpStorage.get(email);
-        if(correctOtp != null &&  correctOtp.equals(enteredOtp)){
-            return true;
+        return verify(email, enteredOtp) == OtpStore.Result.VERIFIED;
+    }
+
+    @Scheduled(fixedDelayString = "${otp.purge-interval-ms:60000}")
+    public int purgeExpired() {
+        return otpStore.purgeExpired();
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String hash(String email, String otp) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((email + ":" + otp).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
         }
-        return false;
     }
 }
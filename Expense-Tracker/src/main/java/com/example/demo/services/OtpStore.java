@@ -0,0 +1,37 @@
+package com.example.demo.services;
+
+import java.time.Duration;
+
+/**
+ * Where OtpService keeps the codes it has sent. InMemoryOtpStore serves a single instance;
+ * DatabaseOtpStore (otp.store=database) shares the codes between instances.
+ *
+ * Codes are single-use: a successful verify removes it. Implementations must be safe under
+ * concurrent calls for the same email.
+ */
+public interface OtpStore {
+
+    enum Result {
+        VERIFIED,
+        INVALID,
+        EXPIRED,
+        TOO_MANY_ATTEMPTS,
+        NOT_FOUND
+    }
+
+    /**
+     * Stores the code for the email, replacing any earlier one and resetting its attempts.
+     */
+    void put(String email, String codeHash, Duration ttl);
+
+    /**
+     * Checks the code and consumes it if it matches; a wrong code counts against maxAttempts.
+     */
+    Result verify(String email, String codeHash, int maxAttempts);
+
+    /**
+     * Removes expired codes.
+     * @return the number removed
+     */
+    int purgeExpired();
+}
@@ -0,0 +1,121 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PasswordHashStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The one BCrypt encoder of the application, run on the bounded passwordHashExecutor pool instead
+ * of request threads. The async methods let a controller hand back its request thread while the hash
+ * runs; the blocking ones wait at most password.hash.timeout-ms. When the pool's queue is full the
+ * work is refused with a RejectedExecutionException. The queue depth and refusals are exported as
+ * password.hash.* metrics.
+ */
+@Service
+public class PasswordHasher implements MeterBinder {
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final long timeoutMs;
+
+    private final LongAdder rejected = new LongAdder();
+    // Milliseconds per hash or check on the pool; guarded by its own monitor
+    private final StreamingStats latency = new StreamingStats(0.95);
+    private double maxLatencyMs;
+
+    public PasswordHasher(@Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor executor,
+                          @Value("${password.bcrypt-strength:10}") int strength,
+                          @Value("${password.hash.timeout-ms:5000}") long timeoutMs) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) {
+        return submit(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(String rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(matchesAsync(rawPassword, encodedPassword));
+    }
+
+    public PasswordHashStats stats() {
+        synchronized (latency) {
+            double p95 = latency.getCount() == 0 ? 0 : latency.getQuantile();
+            return new PasswordHashStats(executor.getMaxPoolSize(), executor.getActiveCount(), executor.getQueueSize(),
+                    rejected.sum(), latency.getCount(), latency.getMean(), p95, maxLatencyMs);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("password.hash.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Hashes waiting for a thread").register(registry);
+        FunctionCounter.builder("password.hash.rejected", rejected, LongAdder::sum)
+                .description("Hashes refused because the pool was full").register(registry);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return work.get();
+                } finally {
+                    record((System.nanoTime() - start) / 1_000_000.0);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Password hashing is busy, try again shortly", e));
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RejectedExecutionException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing a password", e);
+        }
+    }
+
+    private void record(double millis) {
+        synchronized (latency) {
+            latency.add(millis);
+            maxLatencyMs = Math.max(maxLatencyMs, millis);
+        }
+    }
+}
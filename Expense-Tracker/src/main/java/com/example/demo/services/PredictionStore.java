@@ -0,0 +1,130 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.NextMonthPredictionResponse;
+import com.example.demo.entity.StoredPrediction;
+import com.example.demo.repository.StoredPredictionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Next-month predictions stored per (user, target month) in the predictions table. Every read is
+ * one lookup on its (user_id, target_month) index, so all instances see the same predictions and
+ * nothing is held in memory.
+ *
+ * Reads return the stored value, even when it is dirty; only a user with no prediction for the
+ * month yet causes a live call to the AI service. Expense writes mark the user's rows dirty, and
+ * recomputeStale (off-peak, ai.predictions.recompute-cron) refreshes dirty and missing rows in bulk.
+ */
+@Component
+@RequiredArgsConstructor
+public class PredictionStore {
+
+    private final StoredPredictionRepository storedPredictionRepository;
+    private final AIPredictionService aiPredictionService;
+
+    // Users read per round of the recompute job; scored ai.service.batch-size at a time
+    @Value("${ai.predictions.recompute-batch-size:500}")
+    private int recomputeBatchSize;
+
+    /**
+     * The stored prediction for next month, or a live one (stored for next time) if there is none yet.
+     * The future always completes normally; a failed live call gives the fallback DTO, which is not stored.
+     */
+    public CompletableFuture<NextMonthPredictionResponse> getPrediction(Integer userId) {
+        LocalDate month = targetMonth();
+        Optional<NextMonthPredictionResponse> stored = getStored(userId, month);
+        if (stored.isPresent()) {
+            return CompletableFuture.completedFuture(stored.get());
+        }
+        return aiPredictionService.getPredictionForUserAsync(userId)
+                .thenApply(prediction -> {
+                    store(userId, month, prediction, 0L);
+                    return prediction;
+                });
+    }
+
+    /**
+     * Marks the user's predictions as out of date. Called by every expense write.
+     */
+    public void markDirty(Integer userId) {
+        if (userId != null) {
+            storedPredictionRepository.markDirty(userId);
+        }
+    }
+
+    /**
+     * Drops everything stored for the user (the user was deleted).
+     */
+    public void forget(Integer userId) {
+        storedPredictionRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Scores every user whose next-month prediction is dirty or missing, a batch of users at a time.
+     * Users whose call fails keep their old row (or none) and are picked up by the next run.
+     * @return the number of predictions stored
+     */
+    @Scheduled(cron = "${ai.predictions.recompute-cron:0 0 3 * * *}")
+    public int recomputeStale() {
+        LocalDate month = targetMonth();
+        int stored = 0;
+        Integer after = 0;
+        while (true) {
+            List<Integer> userIds = storedPredictionRepository.findUserIdsToRecompute(month, after, recomputeBatchSize);
+            if (userIds.isEmpty()) {
+                return stored;
+            }
+
+            // 1. Remember each row's change counter, so writes during the call leave it dirty
+            Map<Integer, Long> seenChanges = storedPredictionRepository.findByUserIdInAndTargetMonth(userIds, month).stream()
+                    .collect(Collectors.toMap(StoredPrediction::getUserId, StoredPrediction::getChanges));
+
+            // 2. Score the whole batch with the service's batch route
+            List<NextMonthPredictionResponse> predictions = aiPredictionService.getPredictionsForUsersAsync(userIds).join();
+
+            // 3. Store the successful ones
+            for (int i = 0; i < userIds.size(); i++) {
+                Integer userId = userIds.get(i);
+                if (store(userId, month, predictions.get(i), seenChanges.getOrDefault(userId, 0L))) {
+                    stored++;
+                }
+            }
+            after = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    private Optional<NextMonthPredictionResponse> getStored(Integer userId, LocalDate month) {
+        return storedPredictionRepository.findByUserIdAndTargetMonth(userId, month).map(PredictionStore::toResponse);
+    }
+
+    // Fallback DTOs (error set) are never stored
+    private boolean store(Integer userId, LocalDate month, NextMonthPredictionResponse prediction, long seenChanges) {
+        if (prediction.getError() != null || prediction.getPredictedNextMonthExpense() == null) {
+            return false;
+        }
+        storedPredictionRepository.upsert(userId, month, prediction.getPredictedNextMonthExpense(),
+                prediction.getModelPath(), prediction.getBasedOnMonth(), seenChanges);
+        return true;
+    }
+
+    private static NextMonthPredictionResponse toResponse(StoredPrediction stored) {
+        NextMonthPredictionResponse response = new NextMonthPredictionResponse(stored.getUserId(), stored.getPredictedAmount(), null);
+        response.setModelPath(stored.getModelPath());
+        response.setBasedOnMonth(stored.getBasedOnMonth());
+        return response;
+    }
+
+    private static LocalDate targetMonth() {
+        return YearMonth.now().plusMonths(1).atDay(1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for the auth endpoints: one TokenBucket per (limit, key), where the key is a
+ * client address or an email. Each limit is configured by rate-limit.&lt;name&gt;.capacity and
+ * rate-limit.&lt;name&gt;.refill-per-minute.
+ *
+ * Buckets that have refilled are dropped every rate-limit.cleanup-interval-ms. Past
+ * rate-limit.max-keys buckets, new keys are let through untracked rather than refused, so a flood
+ * of made-up emails cannot lock out real users (the per-client limit still applies to it).
+ */
+@Component
+public class RateLimiter {
+
+    public enum Limit {
+        LOGIN_CLIENT("login.client", 20, 20),
+        LOGIN_EMAIL("login.email", 5, 5),
+        OTP_CLIENT("otp.client", 10, 5),
+        OTP_EMAIL("otp.email", 3, 1);
+
+        private final String property;
+        private final int defaultCapacity;
+        private final double defaultRefillPerMinute;
+
+        Limit(String property, int defaultCapacity, double defaultRefillPerMinute) {
+            this.property = property;
+            this.defaultCapacity = defaultCapacity;
+            this.defaultRefillPerMinute = defaultRefillPerMinute;
+        }
+    }
+
+    private record Key(Limit limit, String key) {
+    }
+
+    private record Config(int capacity, double refillPerSecond) {
+    }
+
+    private final Map<Limit, Config> configs = new EnumMap<>(Limit.class);
+    private final Map<Limit, LongAdder> refused = new EnumMap<>(Limit.class);
+    private final ConcurrentMap<Key, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private volatile long lastForcedCleanupMillis;
+
+    public RateLimiter(Environment environment, @Value("${rate-limit.max-keys:100000}") int maxKeys) {
+        for (Limit limit : Limit.values()) {
+            String prefix = "rate-limit." + limit.property;
+            int capacity = environment.getProperty(prefix + ".capacity", Integer.class, limit.defaultCapacity);
+            double perMinute = environment.getProperty(prefix + ".refill-per-minute", Double.class, limit.defaultRefillPerMinute);
+            configs.put(limit, new Config(capacity, perMinute / 60.0));
+            refused.put(limit, new LongAdder());
+        }
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes a token from the key's bucket under this limit.
+     * @return 0 if the request may go ahead, otherwise the milliseconds until it may be retried
+     */
+    public long tryAcquire(Limit limit, String key) {
+        if (key == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        Key bucketKey = new Key(limit, key.trim().toLowerCase(Locale.ROOT));
+        TokenBucket bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys && !makeRoom(now)) {
+                return 0;
+            }
+            Config config = configs.get(limit);
+            bucket = buckets.computeIfAbsent(bucketKey, k -> new TokenBucket(config.capacity(), config.refillPerSecond(), now));
+        }
+        long waitMillis = bucket.tryAcquire(now);
+        if (waitMillis > 0) {
+            refused.get(limit).increment();
+        }
+        return waitMillis;
+    }
+
+    /**
+     * Requests refused so far, per limit.
+     */
+    public Map<String, Long> refusedCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        refused.forEach((limit, count) -> counts.put(limit.name(), count.sum()));
+        return counts;
+    }
+
+    /**
+     * Drops the buckets that have refilled.
+     * @return the number dropped
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval-ms:60000}")
+    public int evictFull() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Map.Entry<Key, TokenBucket> entry : buckets.entrySet()) {
+            if (entry.getValue().isFull(now) && buckets.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // Full map: clean up now, but at most once a second so a flood of new keys does not scan it every time
+    private boolean makeRoom(long now) {
+        if (now - lastForcedCleanupMillis < 1000) {
+            return false;
+        }
+        lastForcedCleanupMillis = now;
+        return evictFull() > 0;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ReportCacheStats;
+import com.example.demo.dto.ReportResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of generated reports, keyed by (userId, startDate, endDate, categoryIds).
+ * Entries expire after report.cache.ttl-seconds; beyond report.cache.max-size the least recently
+ * used entry is dropped. Expense and budget writes call invalidateUser, which drops only that
+ * user's entries, both right away and again once the write commits.
+ * Size, hits and misses are exported as report.cache.* metrics.
+ */
+@Component
+public class ReportCache implements MeterBinder {
+
+    record Key(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds) {
+        // No filter and an empty filter are the same report; the order of the ids does not matter
+        static Key of(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds) {
+            List<Integer> ids = categoryIds == null ? List.of() : categoryIds.stream().distinct().sorted().toList();
+            return new Key(userId, startDate, endDate, ids);
+        }
+    }
+
+    private record Entry(ReportResponse report, long expiresAtMillis) {
+    }
+
+    // Access-ordered, so the first entry is the least recently used. Guarded by "this", like the two maps below.
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Set<Key>> keysByUser = new HashMap<>();
+    // Bumped on every invalidation of a user with a report being built; a report computed under an
+    // older version is not stored. Both maps only hold users with a build in flight, so they stay small.
+    private final Map<Integer, Long> userVersions = new HashMap<>();
+    private final Map<Integer, Integer> buildsInFlight = new HashMap<>();
+    private long globalVersion;
+
+    // userId -> last time the user read a report or changed their data. Only kept while pre-warm is on;
+    // each pre-warm run (recentlyActiveUsers) drops the users who went quiet, which keeps it bounded.
+    private final ConcurrentMap<Integer, Long> lastActive = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Value("${report.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${report.cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${report.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${report.cache.prewarm.enabled:false}")
+    private boolean trackActivity;
+
+    /**
+     * Returns the cached report, or builds it with the loader and caches it.
+     */
+    public ReportResponse get(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds,
+                              Supplier<ReportResponse> loader) {
+        touch(userId);
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = Key.of(userId, startDate, endDate, categoryIds);
+        long userVersion;
+        long version;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAtMillis() > System.currentTimeMillis()) {
+                    hits.increment();
+                    return entry.report();
+                }
+                remove(key);
+                expirations.increment();
+            }
+            userVersion = userVersions.getOrDefault(userId, 0L);
+            version = globalVersion;
+            buildsInFlight.merge(userId, 1, Integer::sum);
+        }
+
+        // Build outside the lock; other users' reports are not held up
+        misses.increment();
+        ReportResponse report = null;
+        try {
+            report = loader.get();
+        } finally {
+            synchronized (this) {
+                // Skip storing if a write for this user happened while it was being built
+                if (report != null && userVersions.getOrDefault(userId, 0L) == userVersion && globalVersion == version) {
+                    entries.put(key, new Entry(report, System.currentTimeMillis() + ttlSeconds * 1000));
+                    keysByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(key);
+                    evictOverflow();
+                }
+                // The last build of the user is done; no one is left to compare against the version
+                if (buildsInFlight.compute(userId, (id, builds) -> builds == 1 ? null : builds - 1) == null) {
+                    userVersions.remove(userId);
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Drops every cached report of the user. Inside a transaction this is repeated after commit,
+     * so a report built from the not yet committed data cannot stay cached.
+     */
+    public void invalidateUser(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        touch(userId);
+        dropUser(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dropUser(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops every cached report (rollup rebuilds, category renames).
+     */
+    public synchronized void invalidateAll() {
+        invalidations.add(entries.size());
+        entries.clear();
+        keysByUser.clear();
+        globalVersion++;
+    }
+
+    /**
+     * Users who read a report or changed their data within the given time (none while pre-warm is off).
+     */
+    public Set<Integer> recentlyActiveUsers(Duration within) {
+        long since = System.currentTimeMillis() - within.toMillis();
+        lastActive.values().removeIf(time -> time < since);
+        return new HashSet<>(lastActive.keySet());
+    }
+
+    public synchronized ReportCacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        double hitRate = hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount);
+        return new ReportCacheStats(entries.size(), maxSize, hitCount, missCount, hitRate,
+                evictions.sum(), expirations.sum(), invalidations.sum());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("report.cache.size", this, cache -> cache.stats().getSize()).description("Cached reports").register(registry);
+        FunctionCounter.builder("report.cache.hits", hits, LongAdder::sum).description("Reports served from the cache").register(registry);
+        FunctionCounter.builder("report.cache.misses", misses, LongAdder::sum).description("Reports generated").register(registry);
+        FunctionCounter.builder("report.cache.evictions", evictions, LongAdder::sum)
+                .description("Reports dropped to stay within the size limit").register(registry);
+        FunctionCounter.builder("report.cache.expirations", expirations, LongAdder::sum)
+                .description("Reports dropped for being older than the TTL").register(registry);
+        FunctionCounter.builder("report.cache.invalidations", invalidations, LongAdder::sum)
+                .description("Reports dropped because the user's data changed").register(registry);
+    }
+
+    private void touch(Integer userId) {
+        if (trackActivity) {
+            lastActive.put(userId, System.currentTimeMillis());
+        }
+    }
+
+    private synchronized void dropUser(Integer userId) {
+        if (buildsInFlight.containsKey(userId)) {
+            userVersions.merge(userId, 1L, Long::sum);
+        }
+        Set<Key> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+            invalidations.add(keys.size());
+        }
+    }
+
+    // Caller holds the lock
+    private void remove(Key key) {
+        entries.remove(key);
+        Set<Key> keys = keysByUser.get(key.userId());
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByUser.remove(key.userId());
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void evictOverflow() {
+        while (entries.size() > maxSize) {
+            remove(entries.keySet().iterator().next());
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Caches the reports page's default view (this month so far, all categories) for recently
+ * active users, so their first visit after a write is a cache hit. A separate bean so the
+ * reports are built through ReportService's proxy, and timed as report.generate like any other.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportPrewarmer {
+
+    private final ReportService reportService;
+    private final ReportCache reportCache;
+
+    @Value("${report.cache.prewarm.enabled:false}")
+    private boolean prewarmEnabled;
+
+    // Users who read a report or changed their data within this many minutes get pre-warmed
+    @Value("${report.cache.prewarm.active-minutes:60}")
+    private long prewarmActiveMinutes;
+
+    @Scheduled(fixedDelayString = "${report.cache.prewarm.interval-ms:300000}")
+    public void prewarmCurrentMonth() {
+        if (!prewarmEnabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        for (Integer userId : reportCache.recentlyActiveUsers(Duration.ofMinutes(prewarmActiveMinutes))) {
+            reportService.generateReport(userId, today.withDayOfMonth(1), today, null);
+        }
+    }
+}
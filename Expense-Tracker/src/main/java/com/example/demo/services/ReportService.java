@@ -1,14 +1,17 @@
 package com.example.demo.services;
 
 import com.example.demo.dto.CategorySpending;
+import com.example.demo.dto.CategoryTotal;
 import com.example.demo.dto.ExpenseResponse;
 import com.example.demo.dto.ReportResponse;
 import com.example.demo.dto.SpendingOverTime;
-import com.example.demo.entity.Budget;
-import com.example.demo.entity.Expense;
+import com.example.demo.dto.SpendingTotals;
 import com.example.demo.repository.BudgetRepository;
 import com.example.demo.repository.ExpenseRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -27,87 +30,111 @@ public class ReportService {
 
     private final ExpenseRepository expenseRepository;
     private final BudgetRepository budgetRepository; // Injected
+    private final SpendingRollupService spendingRollupService;
+    private final ReportCache reportCache;
+    private final SpendingForecaster spendingForecaster;
     private static final int TOP_EXPENSES_LIMIT = 5;
 
-    public ReportResponse generateReport(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds) {
+    // When false, totals are aggregated from the raw expenses table instead of the rollups
+    @Value("${report.rollups.enabled:true}")
+    private boolean useRollups;
 
-        // 1. Fetch Expenses
-        List<Expense> expenses;
-        if (categoryIds == null || categoryIds.isEmpty()) {
-            expenses = expenseRepository.findAllByUser_UserIdAndExpenseDateBetween(userId, startDate, endDate);
-        } else {
-            expenses = expenseRepository.findAllByUser_UserIdAndExpenseDateBetweenAndCategory_CategoryIdIn(
-                    userId, startDate, endDate, categoryIds);
-        }
+    /**
+     * Returns the report from the report cache, building it on a miss.
+     */
+    @Timed(value = "report.generate", histogram = true)
+    public ReportResponse generateReport(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds) {
+        return reportCache.get(userId, startDate, endDate, categoryIds,
+                () -> buildReport(userId, startDate, endDate, categoryIds));
+    }
 
-        // 2. Fetch matching Budgets
-        List<Budget> budgets;
-        if (categoryIds == null || categoryIds.isEmpty()) {
-            budgets = budgetRepository.findOverlappingBudgets(userId, startDate, endDate);
+    /**
+     * Builds a report using aggregate queries only, so the number of rows loaded
+     * depends on the number of categories and days in the range, not on the number of expenses.
+     * Spending sums come from the daily/monthly rollup tables when they are enabled.
+     */
+    private ReportResponse buildReport(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds) {
+        boolean allCategories = categoryIds == null || categoryIds.isEmpty();
+        PageRequest topN = PageRequest.of(0, TOP_EXPENSES_LIMIT);
+
+        // 1. Spending grouped by category and by day (already sorted by date)
+        List<CategoryTotal> spentPerCategory;
+        List<SpendingOverTime> spendingByDay;
+        SpendingTotals totals;
+        if (useRollups) {
+            spentPerCategory = spendingRollupService.sumByCategory(userId, startDate, endDate, categoryIds);
+            spendingByDay = spendingRollupService.sumByDay(userId, startDate, endDate, categoryIds);
+            totals = new SpendingTotals(
+                    CentsByCategory.sum(spentPerCategory),
+                    spentPerCategory.stream().mapToLong(CategoryTotal::getTransactions).sum());
         } else {
-            budgets = budgetRepository.findOverlappingBudgetsWithCategories(
-                    userId, startDate, endDate, categoryIds);
+            spentPerCategory = allCategories
+                    ? expenseRepository.sumSpendingByCategory(userId, startDate, endDate)
+                    : expenseRepository.sumSpendingByCategoryWithCategories(userId, startDate, endDate, categoryIds);
+            spendingByDay = allCategories
+                    ? expenseRepository.sumSpendingByDay(userId, startDate, endDate)
+                    : expenseRepository.sumSpendingByDayWithCategories(userId, startDate, endDate, categoryIds);
+            totals = allCategories
+                    ? expenseRepository.sumSpending(userId, startDate, endDate)
+                    : expenseRepository.sumSpendingWithCategories(userId, startDate, endDate, categoryIds);
         }
 
-        // 3. Calculate Total Spending
-        BigDecimal totalSpending = expenses.stream()
-                .map(Expense::getExpenseAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // 2. Budgets grouped by category
+        List<CategoryTotal> budgetPerCategory = allCategories
+                ? budgetRepository.sumOverlappingBudgetsByCategory(userId, startDate, endDate)
+                : budgetRepository.sumOverlappingBudgetsByCategoryWithCategories(userId, startDate, endDate, categoryIds);
 
-        // 4. Calculate Total Budget
-        BigDecimal totalBudget = budgets.stream()
-                .map(Budget::getBudgetAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // 3. Top 5 Expenses (ORDER BY ... LIMIT in the database)
+        List<ExpenseResponse> topExpensesDTOs = allCategories
+                ? expenseRepository.findTopExpenses(userId, startDate, endDate, topN)
+                : expenseRepository.findTopExpensesWithCategories(userId, startDate, endDate, categoryIds, topN);
 
-        // 5. Calculate Remaining Budget
+        // 4. Calculate Total Budget and Remaining Budget
+        BigDecimal totalSpending = totals.getTotal();
+        BigDecimal totalBudget = CentsByCategory.sum(budgetPerCategory);
         BigDecimal remainingBudget = totalBudget.subtract(totalSpending);
 
-        // 6. Calculate Spending by Category (This now passes budgets)
-        List<CategorySpending> spendingByCategory = calculateSpendingByCategory(expenses, totalSpending, budgets);
-
-        // 7. Calculate Spending by Day
-        List<SpendingOverTime> spendingByDay = calculateSpendingByDay(expenses);
-
-        // 8. Get Top 5 Expenses (and convert to DTOs)
-        List<ExpenseResponse> topExpensesDTOs = expenses.stream()
-                .sorted(Comparator.comparing(Expense::getExpenseAmount).reversed())
-                .limit(TOP_EXPENSES_LIMIT)
-                .map(ExpenseResponse::new) // Uses the DTO constructor
-                .collect(Collectors.toList());
+        // 5. Calculate Spending by Category (percentages of spending and budget)
+        List<CategorySpending> spendingByCategory = calculateSpendingByCategory(spentPerCategory, totalSpending, budgetPerCategory);
 
         return ReportResponse.builder()
                 .totalBudget(totalBudget)
                 .remainingBudget(remainingBudget)
                 .totalSpending(totalSpending)
-                .totalTransactions(expenses.size())
+                .totalTransactions(totals.getCount().intValue())
                 .spendingByCategory(spendingByCategory)
                 .spendingByDay(spendingByDay)
                 .topExpenses(topExpensesDTOs)
+                .forecastByCategory(spendingForecaster.forecast(userId, categoryIds))
                 .build();
     }
 
-    private List<CategorySpending> calculateSpendingByCategory(List<Expense> expenses, BigDecimal totalSpending, List<Budget> budgets) {
+    // Package-private for ReportAggregationBenchmark
+    static List<CategorySpending> calculateSpendingByCategory(List<CategoryTotal> spentPerCategory, BigDecimal totalSpending, List<CategoryTotal> budgetPerCategory) {
+        try {
+            return CentsByCategory.of(spentPerCategory, budgetPerCategory).toCategorySpending(totalSpending);
+        } catch (ArithmeticException e) {
+            // Fractions of a cent or amounts beyond the long range
+            return calculateSpendingByCategoryDecimal(spentPerCategory, totalSpending, budgetPerCategory);
+        }
+    }
+
+    // The same in BigDecimal arithmetic (categories with equal spending come out in hash order)
+    static List<CategorySpending> calculateSpendingByCategoryDecimal(List<CategoryTotal> spentPerCategory, BigDecimal totalSpending, List<CategoryTotal> budgetPerCategory) {
 
-        // 1. Group expenses by category name, summing their amounts
-        Map<String, BigDecimal> categorySpendingMap = expenses.stream()
-                .collect(Collectors.groupingBy(
-                        expense -> expense.getCategory().getCategoryName(),
-                        Collectors.reducing(BigDecimal.ZERO, Expense::getExpenseAmount, BigDecimal::add)
-                ));
+        // 1. Index the (already grouped) rows by category name
+        Map<String, BigDecimal> categorySpendingMap = spentPerCategory.stream()
+                .collect(Collectors.toMap(CategoryTotal::getCategoryName, CategoryTotal::getTotal));
 
-        // 2. Group budgets by category name, summing their amounts
-        Map<String, BigDecimal> categoryBudgetMap = budgets.stream()
-                .collect(Collectors.groupingBy(
-                        budget -> budget.getCategory().getCategoryName(),
-                        Collectors.reducing(BigDecimal.ZERO, Budget::getBudgetAmount, BigDecimal::add)
-                ));
+        Map<String, BigDecimal> categoryBudgetMap = budgetPerCategory.stream()
+                .collect(Collectors.toMap(CategoryTotal::getCategoryName, CategoryTotal::getTotal));
 
-        // 3. Combine all unique category names from both lists
+        // 2. Combine all unique category names from both lists
         Set<String> allCategoryNames = new HashSet<>();
         allCategoryNames.addAll(categorySpendingMap.keySet());
         allCategoryNames.addAll(categoryBudgetMap.keySet());
 
-        // 4. Convert to List<CategorySpending> and calculate all percentages
+        // 3. Convert to List<CategorySpending> and calculate all percentages
         return allCategoryNames.stream()
                 .map(categoryName -> {
                     BigDecimal totalSpent = categorySpendingMap.getOrDefault(categoryName, BigDecimal.ZERO);
@@ -143,20 +170,5 @@ public class ReportService {
                 .sorted(Comparator.comparing(CategorySpending::getTotalSpent).reversed())
                 .collect(Collectors.toList());
     }
-
-    private List<SpendingOverTime> calculateSpendingByDay(List<Expense> expenses) {
-        // Group expenses by date, summing their amounts
-        Map<LocalDate, BigDecimal> dayMap = expenses.stream()
-                .collect(Collectors.groupingBy(
-                        Expense::getExpenseDate,
-                        Collectors.reducing(BigDecimal.ZERO, Expense::getExpenseAmount, BigDecimal::add)
-                ));
-
-        // Convert map to List<SpendingOverTime> and sort by date
-        return dayMap.entrySet().stream()
-                .map(entry -> new SpendingOverTime(entry.getKey(), entry.getValue()))
-                .sorted(Comparator.comparing(SpendingOverTime::getDate))
-                .collect(Collectors.toList());
-    }
 }
 
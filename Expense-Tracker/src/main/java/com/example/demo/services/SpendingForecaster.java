@@ -0,0 +1,368 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.BudgetBurnRate;
+import com.example.demo.dto.CategoryForecast;
+import com.example.demo.entity.Category;
+import com.example.demo.entity.MonthlySpending;
+import com.example.demo.repository.BudgetRepository;
+import com.example.demo.repository.MonthlySpendingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Spending forecasts computed in Java, independent of the Python prediction service.
+ *
+ * Every (user, category) has a fixed-size additive Holt-Winters state over its monthly totals:
+ * a level, a trend and twelve month-of-year seasonal terms, folded up to the last closed month,
+ * plus what has been spent so far this month. A user's state is built from the monthly_spending
+ * rollup on first use (one query) and then kept current by SpendingRollupService, which reports
+ * every expense change here; a change in the current month costs O(1), a change to an earlier
+ * month drops the user's state so it is rebuilt on next use. Projections read the state only,
+ * so they cost O(1) per category.
+ *
+ * This month's projection is what has been spent so far plus the model's share of the month still
+ * to come; the following months fold that estimate in as if the month were closed. Like the
+ * wallet balances, the states assume a single application instance.
+ */
+@Service
+public class SpendingForecaster {
+
+    private static final int SEASON = 12;
+
+    private final MonthlySpendingRepository monthlySpendingRepository;
+    private final BudgetRepository budgetRepository;
+    private final CategoryService categoryService;
+
+    // Smoothing factors for the level, the trend and the seasonal terms
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    // Months of history a state is built from
+    private final int historyMonths;
+
+    // userId -> state for the month it was built in; a state from an earlier month is rebuilt
+    private final ConcurrentMap<Integer, UserState> states = new ConcurrentHashMap<>();
+    // userId -> number of committed changes; a state built while a change committed is not kept
+    private final ConcurrentMap<Integer, Long> versions = new ConcurrentHashMap<>();
+
+    public SpendingForecaster(MonthlySpendingRepository monthlySpendingRepository,
+                              BudgetRepository budgetRepository,
+                              CategoryService categoryService,
+                              @Value("${forecast.alpha:0.4}") double alpha,
+                              @Value("${forecast.beta:0.1}") double beta,
+                              @Value("${forecast.gamma:0.3}") double gamma,
+                              @Value("${forecast.history-months:36}") int historyMonths) {
+        this.monthlySpendingRepository = monthlySpendingRepository;
+        this.budgetRepository = budgetRepository;
+        this.categoryService = categoryService;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.historyMonths = historyMonths;
+    }
+
+    /**
+     * This month's and next month's projected spending per category (all categories the user has
+     * spent on when categoryIds is null or empty), largest projection first.
+     */
+    public List<CategoryForecast> forecast(Integer userId, List<Integer> categoryIds) {
+        boolean allCategories = categoryIds == null || categoryIds.isEmpty();
+        LocalDate today = LocalDate.now();
+        UserState state = state(userId);
+
+        List<CategoryForecast> forecasts = new ArrayList<>();
+        synchronized (state) {
+            for (Map.Entry<Integer, Series> entry : state.series.entrySet()) {
+                if (!allCategories && !categoryIds.contains(entry.getKey())) {
+                    continue;
+                }
+                Projection projection = new Projection(entry.getValue(), today);
+                forecasts.add(new CategoryForecast(
+                        entry.getKey(),
+                        categoryName(entry.getKey()),
+                        money(entry.getValue().spentThisMonth),
+                        money(projection.monthTotal(0)),
+                        money(projection.monthTotal(1))));
+            }
+        }
+        forecasts.sort(Comparator.comparing(CategoryForecast::getProjectedNextMonth).reversed());
+        return forecasts;
+    }
+
+    /**
+     * Every budget of the user running today: spending so far (one query for all of them), and where
+     * it ends up if the category keeps to its forecast until the budget's end date.
+     */
+    public List<BudgetBurnRate> budgetBurnRates(Integer userId) {
+        LocalDate today = LocalDate.now();
+        List<BudgetBurnRate> budgets = budgetRepository.findActiveWithSpending(userId, today);
+        if (budgets.isEmpty()) {
+            return budgets;
+        }
+        UserState state = state(userId);
+        synchronized (state) {
+            for (BudgetBurnRate budget : budgets) {
+                Series series = state.series.get(budget.getCategoryId());
+                project(budget, series == null ? null : new Projection(series, today), today);
+            }
+        }
+        return budgets;
+    }
+
+    /**
+     * Records a change of the user's spending in a category on a day (negative when an expense is
+     * removed). Called by SpendingRollupService; inside a transaction it is applied after commit.
+     */
+    public void recordChange(Integer userId, Integer categoryId, LocalDate date, BigDecimal amount) {
+        if (userId == null || categoryId == null || date == null || amount == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, categoryId, YearMonth.from(date), amount.doubleValue());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(userId, categoryId, YearMonth.from(date), amount.doubleValue());
+            }
+        });
+    }
+
+    /**
+     * Drops the user's state (e.g. after the user is deleted); it is rebuilt on next use.
+     */
+    public void forget(Integer userId) {
+        states.compute(userId, (id, state) -> {
+            versions.merge(id, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    /**
+     * Drops every state (rollup rebuilds).
+     */
+    public void forgetAll() {
+        for (Integer userId : states.keySet()) {
+            forget(userId);
+        }
+    }
+
+    // Fixed-size Holt-Winters state of one (user, category)
+    private static final class Series {
+        double level;
+        double trend;
+        final double[] season = new double[SEASON];
+        // Closed months folded in so far
+        int observed;
+        double spentThisMonth;
+    }
+
+    // Every series of one user, folded up to the month before `month`
+    private static final class UserState {
+        final YearMonth month;
+        final Map<Integer, Series> series = new HashMap<>();
+
+        UserState(YearMonth month) {
+            this.month = month;
+        }
+    }
+
+    /**
+     * The forecast of one series as seen today. monthTotal(h) is the projected total h months from
+     * now: for h = 0 the spending so far plus the expected rest of the month, for h >= 1 the model
+     * forecast with this month's estimate folded in.
+     */
+    private final class Projection {
+        final boolean hasHistory;
+        final double spentThisMonth;
+        // Model forecast for the whole of this month, before looking at what was spent
+        final double modelThisMonth;
+        final double estimateThisMonth;
+        final double runRatePerDay;
+        // State after folding in this month's estimate
+        final double level;
+        final double trend;
+        final double[] season;
+        final int monthIndex;
+        final double seasonThisMonth;
+
+        Projection(Series s, LocalDate today) {
+            YearMonth current = YearMonth.from(today);
+            double elapsed = today.getDayOfMonth() / (double) current.lengthOfMonth();
+            hasHistory = s.observed > 0;
+            spentThisMonth = s.spentThisMonth;
+            runRatePerDay = s.spentThisMonth / today.getDayOfMonth();
+            monthIndex = current.getMonthValue() - 1;
+            season = s.season;
+            if (!hasHistory) {
+                // Nothing but this month: extrapolate its run rate
+                modelThisMonth = runRatePerDay * current.lengthOfMonth();
+                estimateThisMonth = modelThisMonth;
+                level = estimateThisMonth;
+                trend = 0;
+                seasonThisMonth = 0;
+                return;
+            }
+            modelThisMonth = Math.max(s.level + s.trend + s.season[monthIndex], 0);
+            estimateThisMonth = s.spentThisMonth + (1 - elapsed) * modelThisMonth;
+            double foldedLevel = alpha * (estimateThisMonth - s.season[monthIndex]) + (1 - alpha) * (s.level + s.trend);
+            trend = beta * (foldedLevel - s.level) + (1 - beta) * s.trend;
+            level = foldedLevel;
+            seasonThisMonth = gamma * (estimateThisMonth - foldedLevel) + (1 - gamma) * s.season[monthIndex];
+        }
+
+        double monthTotal(int h) {
+            if (h == 0) {
+                return estimateThisMonth;
+            }
+            int index = (monthIndex + h) % SEASON;
+            double seasonal = !hasHistory ? 0 : index == monthIndex ? seasonThisMonth : season[index];
+            return Math.max(level + h * trend + seasonal, 0);
+        }
+
+        // Expected spending per day for the rest of this month (h = 0) or in the month h months from now
+        double perDay(int h, YearMonth month) {
+            if (h == 0) {
+                return hasHistory ? modelThisMonth / month.lengthOfMonth() : runRatePerDay;
+            }
+            return monthTotal(h) / month.lengthOfMonth();
+        }
+    }
+
+    // Walks the budget's remaining days month by month at each month's forecast daily rate
+    private void project(BudgetBurnRate budget, Projection projection, LocalDate today) {
+        double amount = budget.getBudgetAmount() == null ? 0 : budget.getBudgetAmount().doubleValue();
+        double spent = budget.getSpent().doubleValue();
+        long elapsedDays = ChronoUnit.DAYS.between(budget.getStartDate(), today) + 1;
+
+        double projected = spent;
+        LocalDate exhaustion = spent >= amount ? today : null;
+        YearMonth current = YearMonth.from(today);
+        LocalDate from = today.plusDays(1);
+        while (projection != null && !from.isAfter(budget.getEndDate())) {
+            YearMonth month = YearMonth.from(from);
+            LocalDate to = month.atEndOfMonth().isBefore(budget.getEndDate()) ? month.atEndOfMonth() : budget.getEndDate();
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            double perDay = projection.perDay((int) current.until(month, ChronoUnit.MONTHS), month);
+            if (exhaustion == null && perDay > 0 && projected + perDay * days >= amount) {
+                exhaustion = from.plusDays((long) Math.ceil((amount - projected) / perDay) - 1);
+            }
+            projected += perDay * days;
+            from = to.plusDays(1);
+        }
+
+        budget.setDailyBurnRate(money(spent / elapsedDays));
+        budget.setProjectedSpend(money(projected));
+        budget.setProjectedRemaining(money(amount - projected));
+        budget.setProjectedExhaustionDate(exhaustion);
+        budget.setOnTrack(projected <= amount);
+    }
+
+    private void apply(Integer userId, Integer categoryId, YearMonth month, double amount) {
+        states.compute(userId, (id, state) -> {
+            versions.merge(id, 1L, Long::sum);
+            if (state == null) {
+                return null;
+            }
+            if (month.isBefore(state.month)) {
+                return null; // A closed month changed: rebuild from the rollup on next use
+            }
+            if (month.equals(state.month)) {
+                synchronized (state) {
+                    state.series.computeIfAbsent(categoryId, c -> new Series()).spentThisMonth += amount;
+                }
+            }
+            // Future months are picked up when their month comes and the state is rebuilt
+            return state;
+        });
+    }
+
+    private UserState state(Integer userId) {
+        YearMonth current = YearMonth.now();
+        UserState state = states.get(userId);
+        if (state != null && state.month.equals(current)) {
+            return state;
+        }
+        long version = versions.getOrDefault(userId, 0L);
+        UserState built = build(userId, current);
+        states.compute(userId, (id, existing) -> {
+            if (versions.getOrDefault(id, 0L) == version) {
+                return built;
+            }
+            return existing != null && existing.month.equals(current) ? existing : null;
+        });
+        return built;
+    }
+
+    // Folds the user's monthly rollup rows, category by category, up to the month before `current`
+    private UserState build(Integer userId, YearMonth current) {
+        List<MonthlySpending> rows = monthlySpendingRepository.findByUserIdAndSpendMonthBetweenOrderByCategoryIdAscSpendMonthAsc(
+                userId, current.minusMonths(historyMonths).atDay(1), current.atDay(1));
+        Map<Integer, List<MonthlySpending>> byCategory = new LinkedHashMap<>();
+        for (MonthlySpending row : rows) {
+            byCategory.computeIfAbsent(row.getCategoryId(), id -> new ArrayList<>()).add(row);
+        }
+
+        UserState state = new UserState(current);
+        for (Map.Entry<Integer, List<MonthlySpending>> entry : byCategory.entrySet()) {
+            Series series = new Series();
+            YearMonth next = null;
+            for (MonthlySpending row : entry.getValue()) {
+                YearMonth month = YearMonth.from(row.getSpendMonth());
+                if (month.equals(current)) {
+                    series.spentThisMonth = row.getTotalAmount().doubleValue();
+                    continue;
+                }
+                // Months without a row had no spending
+                for (; next != null && next.isBefore(month); next = next.plusMonths(1)) {
+                    observe(series, 0, next);
+                }
+                observe(series, row.getTotalAmount().doubleValue(), month);
+                next = month.plusMonths(1);
+            }
+            for (; next != null && next.isBefore(current); next = next.plusMonths(1)) {
+                observe(series, 0, next);
+            }
+            state.series.put(entry.getKey(), series);
+        }
+        return state;
+    }
+
+    // One additive Holt-Winters step; the first month only sets the level
+    private void observe(Series s, double total, YearMonth month) {
+        int index = month.getMonthValue() - 1;
+        if (s.observed++ == 0) {
+            s.level = total;
+            return;
+        }
+        double previousLevel = s.level;
+        s.level = alpha * (total - s.season[index]) + (1 - alpha) * (s.level + s.trend);
+        s.trend = beta * (s.level - previousLevel) + (1 - beta) * s.trend;
+        s.season[index] = gamma * (total - s.level) + (1 - gamma) * s.season[index];
+    }
+
+    private String categoryName(Integer categoryId) {
+        return categoryService.getCategoryById(categoryId).map(Category::getCategoryName).orElse(null);
+    }
+
+    private static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.services;
+
+import com.example.demo.repository.ExpenseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the spending rollup tables at startup when they are empty but expenses exist
+ * (first deploy of the rollups), or always when report.rollups.rebuild-on-startup=true.
+ */
+@Component
+@RequiredArgsConstructor
+public class SpendingRollupInitializer implements ApplicationRunner {
+
+    private final SpendingRollupService spendingRollupService;
+    private final ExpenseRepository expenseRepository;
+
+    @Value("${report.rollups.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup || (spendingRollupService.isEmpty() && expenseRepository.count() > 0)) {
+            int rows = spendingRollupService.rebuild();
+            System.out.println("Rebuilt spending rollups: " + rows + " daily rows");
+        }
+    }
+}
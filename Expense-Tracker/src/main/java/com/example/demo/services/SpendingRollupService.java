@@ -0,0 +1,199 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CategoryTotal;
+import com.example.demo.dto.SpendingOverTime;
+import com.example.demo.entity.Expense;
+import com.example.demo.repository.DailySpendingRepository;
+import com.example.demo.repository.MonthlySpendingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the daily_spending / monthly_spending rollup tables in step with the expenses table
+ * and answers report queries from them.
+ * The write methods are called from ExpenseService and run in the caller's transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class SpendingRollupService {
+
+    private final DailySpendingRepository dailySpendingRepository;
+    private final MonthlySpendingRepository monthlySpendingRepository;
+    private final ReportCache reportCache;
+    private final SpendingForecaster spendingForecaster;
+
+    @Transactional
+    public void recordExpense(Expense expense) {
+        apply(expense, 1);
+    }
+
+    @Transactional
+    public void removeExpense(Expense expense) {
+        apply(expense, -1);
+    }
+
+    /**
+     * Adds many new expenses at once: rows are combined per (user, category, day/month) first,
+     * so a batch issues one upsert per distinct key instead of two per expense.
+     */
+    @Transactional
+    public void recordExpenses(List<Expense> expenses) {
+        Map<RollupKey, RollupDelta> days = new HashMap<>();
+        Map<RollupKey, RollupDelta> months = new HashMap<>();
+        group(expenses, days, months);
+        days.forEach((key, delta) -> dailySpendingRepository.upsert(key.userId(), key.categoryId(), key.date(), delta.amount, delta.count));
+        months.forEach((key, delta) -> {
+            monthlySpendingRepository.upsert(key.userId(), key.categoryId(), key.date(), delta.amount, delta.count);
+            spendingForecaster.recordChange(key.userId(), key.categoryId(), key.date(), delta.amount);
+        });
+    }
+
+    /**
+     * Sums the expenses per (user, category, day) into days and per (user, category, month) into months.
+     * Package-private for ReportAggregationBenchmark.
+     */
+    static void group(List<Expense> expenses, Map<RollupKey, RollupDelta> days, Map<RollupKey, RollupDelta> months) {
+        for (Expense expense : expenses) {
+            if (expense.getUser() == null || expense.getCategory() == null
+                    || expense.getExpenseDate() == null || expense.getExpenseAmount() == null) {
+                continue;
+            }
+            Integer userId = expense.getUser().getUserId();
+            Integer categoryId = expense.getCategory().getCategoryId();
+            LocalDate day = expense.getExpenseDate();
+            days.computeIfAbsent(new RollupKey(userId, categoryId, day), k -> new RollupDelta()).add(expense.getExpenseAmount());
+            months.computeIfAbsent(new RollupKey(userId, categoryId, YearMonth.from(day).atDay(1)), k -> new RollupDelta()).add(expense.getExpenseAmount());
+        }
+    }
+
+    record RollupKey(Integer userId, Integer categoryId, LocalDate date) {
+    }
+
+    static final class RollupDelta {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long count;
+
+        void add(BigDecimal value) {
+            amount = amount.add(value);
+            count++;
+        }
+    }
+
+    private void apply(Expense expense, int sign) {
+        if (expense.getUser() == null || expense.getCategory() == null
+                || expense.getExpenseDate() == null || expense.getExpenseAmount() == null) {
+            return; // Nothing a report could ever match
+        }
+        Integer userId = expense.getUser().getUserId();
+        Integer categoryId = expense.getCategory().getCategoryId();
+        LocalDate day = expense.getExpenseDate();
+        LocalDate month = YearMonth.from(day).atDay(1);
+        BigDecimal amount = sign > 0 ? expense.getExpenseAmount() : expense.getExpenseAmount().negate();
+
+        dailySpendingRepository.upsert(userId, categoryId, day, amount, sign);
+        monthlySpendingRepository.upsert(userId, categoryId, month, amount, sign);
+        spendingForecaster.recordChange(userId, categoryId, day, amount);
+
+        if (sign < 0) {
+            // Drop rows whose last expense was removed so they don't show up as 0.00 entries
+            dailySpendingRepository.deleteIfEmpty(userId, categoryId, day);
+            monthlySpendingRepository.deleteIfEmpty(userId, categoryId, month);
+        }
+    }
+
+    /**
+     * Regenerates both rollup tables from the expenses table.
+     * @return the number of daily rows written
+     */
+    @Transactional
+    public int rebuild() {
+        dailySpendingRepository.deleteAllRows();
+        monthlySpendingRepository.deleteAllRows();
+        int dailyRows = dailySpendingRepository.rebuildFromExpenses();
+        monthlySpendingRepository.rebuildFromExpenses();
+        reportCache.invalidateAll();
+        spendingForecaster.forgetAll();
+        return dailyRows;
+    }
+
+    public boolean isEmpty() {
+        return dailySpendingRepository.count() == 0;
+    }
+
+    /**
+     * Spending per category in [startDate, endDate].
+     * Whole months inside the range are read from monthly_spending, the partial months at either end from daily_spending.
+     */
+    public List<CategoryTotal> sumByCategory(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds) {
+        boolean allCategories = categoryIds == null || categoryIds.isEmpty();
+
+        LocalDate firstFullMonth = startDate.getDayOfMonth() == 1 ? startDate : YearMonth.from(startDate).plusMonths(1).atDay(1);
+        LocalDate lastFullMonthEnd = endDate.equals(YearMonth.from(endDate).atEndOfMonth()) ? endDate : YearMonth.from(endDate).atDay(1).minusDays(1);
+
+        List<CategoryTotal> rows = new ArrayList<>();
+        if (firstFullMonth.isAfter(lastFullMonthEnd)) {
+            // No whole month in the range
+            rows.addAll(sumDailyByCategory(userId, startDate, endDate, categoryIds, allCategories));
+        } else {
+            if (startDate.isBefore(firstFullMonth)) {
+                rows.addAll(sumDailyByCategory(userId, startDate, firstFullMonth.minusDays(1), categoryIds, allCategories));
+            }
+            LocalDate lastFullMonth = YearMonth.from(lastFullMonthEnd).atDay(1);
+            rows.addAll(allCategories
+                    ? monthlySpendingRepository.sumByCategory(userId, firstFullMonth, lastFullMonth)
+                    : monthlySpendingRepository.sumByCategoryWithCategories(userId, firstFullMonth, lastFullMonth, categoryIds));
+            if (lastFullMonthEnd.isBefore(endDate)) {
+                rows.addAll(sumDailyByCategory(userId, lastFullMonthEnd.plusDays(1), endDate, categoryIds, allCategories));
+            }
+        }
+        return mergeByCategory(rows);
+    }
+
+    public List<SpendingOverTime> sumByDay(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return dailySpendingRepository.sumByDay(userId, startDate, endDate);
+        }
+        return dailySpendingRepository.sumByDayWithCategories(userId, startDate, endDate, categoryIds);
+    }
+
+    private List<CategoryTotal> sumDailyByCategory(Integer userId, LocalDate startDate, LocalDate endDate, List<Integer> categoryIds, boolean allCategories) {
+        return allCategories
+                ? dailySpendingRepository.sumByCategory(userId, startDate, endDate)
+                : dailySpendingRepository.sumByCategoryWithCategories(userId, startDate, endDate, categoryIds);
+    }
+
+    // The same category can come back from up to three queries (head, whole months, tail)
+    private List<CategoryTotal> mergeByCategory(List<CategoryTotal> rows) {
+        try {
+            CentsByCategory totals = new CentsByCategory();
+            for (CategoryTotal row : rows) {
+                totals.addSpent(row);
+            }
+            return totals.spentTotals();
+        } catch (ArithmeticException e) {
+            // Fractions of a cent or amounts beyond the long range
+            return mergeByCategoryDecimal(rows);
+        }
+    }
+
+    private List<CategoryTotal> mergeByCategoryDecimal(List<CategoryTotal> rows) {
+        Map<String, CategoryTotal> merged = new LinkedHashMap<>();
+        for (CategoryTotal row : rows) {
+            merged.merge(row.getCategoryName(), row, (a, b) -> new CategoryTotal(
+                    a.getCategoryName(),
+                    a.getTotal().add(b.getTotal()),
+                    a.getTransactions() + b.getTransactions()));
+        }
+        return new ArrayList<>(merged.values());
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.services;
+
+import java.util.Arrays;
+
+/**
+ * Running statistics of one stream of amounts, updated one value at a time in O(1) without
+ * allocating: Welford's mean/variance and a P² (Jain &amp; Chlamtac) estimate of one quantile,
+ * which keeps five markers instead of the values themselves.
+ * Not thread-safe; AnomalyDetector synchronizes on the instance.
+ */
+public class StreamingStats {
+
+    private static final int MARKERS = 5;
+
+    private final double p;
+    private long count;
+    private double mean;
+    private double m2;
+    // Marker heights and (1-based) positions; until five values are seen, heights holds them unsorted
+    private final double[] heights = new double[MARKERS];
+    private final int[] positions = new int[MARKERS];
+
+    /**
+     * @param p the quantile to track, e.g. 0.95
+     */
+    public StreamingStats(double p) {
+        this.p = p;
+        for (int i = 0; i < MARKERS; i++) {
+            positions[i] = i + 1;
+        }
+    }
+
+    /**
+     * Restores a state saved from getCount(), getMean(), getM2(), getHeights() and getPositions().
+     */
+    public StreamingStats(double p, long count, double mean, double m2, double[] heights, int[] positions) {
+        this(p);
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+        System.arraycopy(heights, 0, this.heights, 0, MARKERS);
+        System.arraycopy(positions, 0, this.positions, 0, MARKERS);
+    }
+
+    public void add(double x) {
+        // 1. Welford
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+
+        // 2. P²: collect the first five values, then move the markers
+        if (count <= MARKERS) {
+            heights[(int) count - 1] = x;
+            if (count == MARKERS) {
+                Arrays.sort(heights);
+            }
+            return;
+        }
+        int k;
+        if (x < heights[0]) {
+            heights[0] = x;
+            k = 0;
+        } else if (x >= heights[4]) {
+            heights[4] = x;
+            k = 3;
+        } else {
+            k = 0;
+            while (x >= heights[k + 1]) {
+                k++;
+            }
+        }
+        for (int i = k + 1; i < MARKERS; i++) {
+            positions[i]++;
+        }
+        for (int i = 1; i < MARKERS - 1; i++) {
+            double d = desiredPosition(i) - positions[i];
+            if ((d >= 1 && positions[i + 1] - positions[i] > 1) || (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int s = d > 0 ? 1 : -1;
+                double h = parabolic(i, s);
+                heights[i] = heights[i - 1] < h && h < heights[i + 1] ? h : linear(i, s);
+                positions[i] += s;
+            }
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getM2() {
+        return m2;
+    }
+
+    /**
+     * Sample standard deviation (0 with fewer than two values).
+     */
+    public double getStdDev() {
+        return count < 2 ? 0 : Math.sqrt(m2 / (count - 1));
+    }
+
+    /**
+     * The estimated p-quantile; exact (nearest rank) while there are five values or fewer. NaN when empty.
+     */
+    public double getQuantile() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (count <= MARKERS) {
+            double[] seen = Arrays.copyOf(heights, (int) count);
+            Arrays.sort(seen);
+            return seen[(int) Math.min(count - 1, Math.round(p * (count - 1)))];
+        }
+        return heights[2];
+    }
+
+    public double[] getHeights() {
+        return heights.clone();
+    }
+
+    public int[] getPositions() {
+        return positions.clone();
+    }
+
+    // Where marker i should be after `count` values: min, p/2, p, (1+p)/2, max
+    private double desiredPosition(int i) {
+        double fraction = switch (i) {
+            case 1 -> p / 2;
+            case 2 -> p;
+            case 3 -> (1 + p) / 2;
+            default -> i == 0 ? 0 : 1;
+        };
+        return 1 + (count - 1) * fraction;
+    }
+
+    private double parabolic(int i, int s) {
+        double n = positions[i], nBelow = positions[i - 1], nAbove = positions[i + 1];
+        return heights[i] + s / (nAbove - nBelow) * (
+                (n - nBelow + s) * (heights[i + 1] - heights[i]) / (nAbove - n)
+                        + (nAbove - n - s) * (heights[i] - heights[i - 1]) / (n - nBelow));
+    }
+
+    private double linear(int i, int s) {
+        return heights[i] + s * (heights[i + s] - heights[i]) / (positions[i + s] - positions[i]);
+    }
+}
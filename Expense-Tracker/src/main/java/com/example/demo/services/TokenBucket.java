@@ -0,0 +1,51 @@
+package com.example.demo.services;
+
+/**
+ * Token bucket: holds up to capacity tokens, refilled continuously at refillPerSecond.
+ * Each request takes one token; with none left it is refused. Times are passed in so the
+ * caller reads the clock once.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerMilli;
+
+    // Guarded by "this"
+    private double tokens;
+    private long lastRefillMillis;
+
+    public TokenBucket(int capacity, double refillPerSecond, long nowMillis) {
+        this.capacity = capacity;
+        this.refillPerMilli = refillPerSecond / 1000.0;
+        this.tokens = capacity;
+        this.lastRefillMillis = nowMillis;
+    }
+
+    /**
+     * Takes a token if there is one.
+     * @return 0 if a token was taken, otherwise the milliseconds until the next one
+     */
+    public synchronized long tryAcquire(long nowMillis) {
+        refill(nowMillis);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerMilli);
+    }
+
+    /**
+     * True when the bucket has refilled completely, so dropping it changes nothing.
+     */
+    public synchronized boolean isFull(long nowMillis) {
+        refill(nowMillis);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowMillis) {
+        if (nowMillis > lastRefillMillis) {
+            tokens = Math.min(capacity, tokens + (nowMillis - lastRefillMillis) * refillPerMilli);
+            lastRefillMillis = nowMillis;
+        }
+    }
+}
@@ -7,8 +7,7 @@ import com.example.demo.entity.User;
 import com.example.demo.repository.UserRepository;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import com.example.demo.dto.UserResponse;
 import com.example.demo.dto.UserRequest;
@@ -21,8 +20,16 @@ import java.util.stream.Collectors;
 public class UserService {
     @Autowired
     private UserRepository userRepository;
-    @Autowired(required = false) // Use (required = false) if it's in a separate config, or just @Autowired if it's in the main class
-    private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private PredictionStore predictionStore;
+    @Autowired
+    private SpendingForecaster spendingForecaster;
+    @Autowired
+    private AnomalyDetector anomalyDetector;
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     public User CreateUser(User user){
         if(userRepository.findByEmail(user.getEmail()).isPresent()){
@@ -33,24 +40,21 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    public List<UserResponse> getAllUsers(){
-        //return userRepository.findAll();
-
-        List<User> users = userRepository.findAll();
-        // Convert to safe DTOs
-        return users.stream()
-                .map(user -> new UserResponse(
-                        user.getUserId(),
-                        user.getName(),
-                        user.getEmail(),
-                        user.getWalletBalance(),
-                        user.getCreatedAt()
-                ))
-                .collect(Collectors.toList());
+    /**
+     * Gets one keyset page of users as safe DTOs, ordered by id.
+     * @param after the last id of the previous page, or null for the first page
+     * @param search optional name/email substring
+     */
+    public Slice<UserResponse> getUsersPage(Integer after, int limit, boolean descending, String search) {
+        String term = (search == null || search.isBlank()) ? null : search.trim();
+        // Safe DTOs, with the wallet balance read in the same query
+        return userRepository.findPage(after, descending, limit, term);
     }
 
     public Optional<User> getUserById(Integer id){
-        return userRepository.findById(id);
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(u -> u.setWalletBalance(walletService.getBalance(id)));
+        return user;
     }
 
     public User updateUser(Integer id, UserRequest userRequest) {
@@ -77,21 +81,20 @@ public class UserService {
 
         // Update Password
         if (userRequest.getPassword() != null && !userRequest.getPassword().isEmpty()) {
-            if (passwordEncoder == null) {
-                // This is a safety check in case the PasswordEncoder bean isn't found
-                throw new RuntimeException("PasswordEncoder is not available to hash password");
-            }
-            user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+            user.setPassword(passwordHasher.encode(userRequest.getPassword()));
         }
 
-        // Update Wallet Balance
+        // 3. Save the profile fields
+        User savedUser = userRepository.save(user);
+
+        // Update Wallet Balance (recorded in the wallet ledger)
         if (userRequest.getWalletBalance() != null) {
             // This allows setting wallet to 0.00
-            user.setWalletBalance(userRequest.getWalletBalance());
+            savedUser.setWalletBalance(walletService.setBalance(id, userRequest.getWalletBalance()));
+        } else {
+            savedUser.setWalletBalance(walletService.getBalance(id));
         }
-
-        // 3. Save and return the updated user
-        return userRepository.save(user);
+        return savedUser;
     }
 
     public UserResponse updateWalletBalance(Integer userId, BigDecimal amount) {
@@ -99,17 +102,18 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
 
-        // Set the new balance
-        user.setWalletBalance(amount);
-
-        // Save and get the updated user
-        User savedUser = userRepository.save(user);
+        // Set the new balance (recorded in the wallet ledger)
+        user.setWalletBalance(walletService.setBalance(userId, amount));
 
         // Return the DTO
-        return new UserResponse(savedUser.getUserId(), savedUser.getName(), savedUser.getEmail(), savedUser.getWalletBalance(),user.getCreatedAt());
+        return new UserResponse(user.getUserId(), user.getName(), user.getEmail(), user.getWalletBalance(), user.getCreatedAt());
     }
 
     public void deleteUser(Integer id) {
         userRepository.deleteById(id);
+        walletService.forget(id);
+        predictionStore.forget(id);
+        spendingForecaster.forget(id);
+        anomalyDetector.forget(id);
     }
 }
@@ -0,0 +1,34 @@
+package com.example.demo.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves wallet balances from the old users.wallet_balance column into the wallet ledger
+ * at startup (first deploy of the ledger); users already in the ledger are left alone. Then gives
+ * every user with ledger entries a wallet_balances row. The legacy column itself is kept; see
+ * db/drop_users_wallet_balance.sql.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class WalletLedgerInitializer implements ApplicationRunner {
+
+    private final WalletService walletService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int users = walletService.importLegacyBalances();
+        if (users > 0) {
+            System.out.println("Imported wallet balances into the ledger: " + users + " users");
+        }
+        int rows = walletService.createMissingBalanceRows();
+        if (rows > 0) {
+            System.out.println("Created wallet balance rows from the ledger: " + rows + " users");
+        }
+    }
+}
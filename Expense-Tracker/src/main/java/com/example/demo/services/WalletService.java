@@ -0,0 +1,234 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.WalletLedgerEntry;
+import com.example.demo.entity.WalletLedgerEntry.EntryType;
+import com.example.demo.entity.WalletSnapshot;
+import com.example.demo.repository.WalletBalanceRepository;
+import com.example.demo.repository.WalletLedgerRepository;
+import com.example.demo.repository.WalletSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * User wallets, kept as an insert-only ledger (wallet_ledger) plus periodic snapshots (wallet_snapshots).
+ *
+ * Trade-off: writes are not contention-free. The current balance lives on one row per user
+ * (wallet_balances), and every debit is a conditional UPDATE of that row, refused by the database
+ * when the balance does not cover it, followed by the ledger insert in the same transaction. So
+ * writes for one user are serialized on that row until they commit. This is deliberate: refusing
+ * overdrafts across any number of application instances needs one place that decides, and the
+ * same lock gives snapshots a safe watermark. Writes for different users never wait on each other.
+ *
+ * The balance row always equals the latest snapshot plus the ledger entries after it; the ledger
+ * and snapshots give the audit trail and balance-at-date queries, the row gives the current balance.
+ * Balances read through getBalance are cached for balance-cache-ms; this instance's own writes drop
+ * the cached value once they commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletService {
+
+    private final WalletBalanceRepository walletBalanceRepository;
+    private final WalletLedgerRepository walletLedgerRepository;
+    private final WalletSnapshotRepository walletSnapshotRepository;
+
+    // userId -> committed balance as last read from wallet_balances
+    private final ConcurrentMap<Integer, CachedBalance> balances = new ConcurrentHashMap<>();
+    // Bumped whenever a cached balance is dropped
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // How long a cached balance is used before it is read again (picks up other instances' writes)
+    @Value("${wallet.balance-cache-ms:5000}")
+    private long balanceCacheMs;
+
+    // Only snapshot users with at least this many entries since their last snapshot
+    @Value("${wallet.snapshot.min-entries:100}")
+    private long minEntries;
+
+    private record CachedBalance(BigDecimal balance, long loadedAt) {
+    }
+
+    public BigDecimal getBalance(Integer userId) {
+        long now = System.currentTimeMillis();
+        CachedBalance cached = balances.get(userId);
+        if (cached != null && now - cached.loadedAt() < balanceCacheMs) {
+            return cached.balance();
+        }
+        // Loaded outside the map; not cached if a write committed meanwhile, as it may be stale
+        long stamp = invalidations.get();
+        BigDecimal balance = loadBalance(userId);
+        if (invalidations.get() == stamp) {
+            balances.put(userId, new CachedBalance(balance, now));
+        }
+        return balance;
+    }
+
+    /**
+     * The committed balance, read from the database (not the cache) and share-locked until the
+     * caller's transaction ends, so no debit or credit can change it before then.
+     */
+    @Transactional
+    public BigDecimal lockBalanceForRead(Integer userId) {
+        loadBalance(userId);
+        return walletBalanceRepository.shareLockBalance(userId);
+    }
+
+    /**
+     * Takes the amount out of the wallet, or throws if the wallet cannot cover it.
+     * A negative amount gives money back (e.g. an expense edited down).
+     * @return the new balance
+     */
+    @Transactional
+    public BigDecimal debit(Integer userId, BigDecimal amount, EntryType type, Integer expenseId) {
+        if (walletBalanceRepository.debit(userId, amount) == 0) {
+            // Either the balance is too low or the user has no balance row yet
+            BigDecimal current = loadBalance(userId);
+            if (walletBalanceRepository.debit(userId, amount) == 0) {
+                throw new RuntimeException("Insufficient wallet balance. You need " + amount
+                        + " but only have " + current + ".");
+            }
+        }
+        return record(userId, amount.negate(), type, expenseId);
+    }
+
+    /**
+     * Puts the amount back into the wallet (refunds).
+     * @return the new balance
+     */
+    @Transactional
+    public BigDecimal credit(Integer userId, BigDecimal amount, EntryType type, Integer expenseId) {
+        if (walletBalanceRepository.credit(userId, amount) == 0) {
+            loadBalance(userId);
+            walletBalanceRepository.credit(userId, amount);
+        }
+        return record(userId, amount, type, expenseId);
+    }
+
+    /**
+     * Sets the wallet to an exact amount, recorded as an ADJUSTMENT for the difference.
+     * @return the new balance
+     */
+    @Transactional
+    public BigDecimal setBalance(Integer userId, BigDecimal target) {
+        loadBalance(userId);
+        BigDecimal delta = target.subtract(walletBalanceRepository.lockBalance(userId));
+        if (delta.signum() == 0) {
+            return target;
+        }
+        walletBalanceRepository.setBalance(userId, target);
+        return record(userId, delta, EntryType.ADJUSTMENT, null);
+    }
+
+    /**
+     * The balance as it was at a point in time: closest earlier snapshot plus the entries after it.
+     */
+    public BigDecimal getBalanceAt(Integer userId, LocalDateTime at) {
+        Optional<WalletSnapshot> snapshot =
+                walletSnapshotRepository.findFirstByUserIdAndAsOfLessThanEqualOrderByLastEntryIdDesc(userId, at);
+        BigDecimal base = snapshot.map(WalletSnapshot::getBalance).orElse(BigDecimal.ZERO);
+        Long afterId = snapshot.map(WalletSnapshot::getLastEntryId).orElse(0L);
+        return base.add(walletLedgerRepository.sumAfterUpTo(userId, afterId, at));
+    }
+
+    /**
+     * Gets one keyset page of a user's ledger entries, ordered by id.
+     * @param after the last id of the previous page, or null for the first page
+     */
+    public Slice<WalletLedgerEntry> getLedgerPage(Integer userId, Long after, int limit, boolean descending) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (descending) {
+            return walletLedgerRepository.findPageBefore(userId, after == null ? Long.MAX_VALUE : after, page);
+        }
+        return walletLedgerRepository.findPageAfter(userId, after == null ? 0L : after, page);
+    }
+
+    /**
+     * Snapshots the balance of users with enough new ledger entries, so balance-at-date queries
+     * read a handful of rows. Their balance rows are locked first, which waits out any transaction
+     * still writing to their ledger, so each snapshot covers exactly the committed entries.
+     * @return the number of snapshots written
+     */
+    @Scheduled(fixedDelayString = "${wallet.snapshot.interval-ms:600000}",
+            initialDelayString = "${wallet.snapshot.interval-ms:600000}")
+    @Transactional
+    public int takeSnapshots() {
+        List<Integer> userIds = walletBalanceRepository.lockUsersDueForSnapshot(minEntries);
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return walletSnapshotRepository.snapshotBalances(userIds);
+    }
+
+    /**
+     * Carries balances kept on the old users.wallet_balance column into the ledger as OPENING
+     * entries, for users that have no ledger entries yet. The column is left in place.
+     * @return the number of users imported
+     */
+    @Transactional
+    public int importLegacyBalances() {
+        if (!walletLedgerRepository.hasLegacyBalanceColumn()) {
+            return 0;
+        }
+        return walletLedgerRepository.importLegacyBalances();
+    }
+
+    /**
+     * Creates the balance rows of users that have ledger entries but no row yet.
+     * @return the number of rows created
+     */
+    @Transactional
+    public int createMissingBalanceRows() {
+        return walletBalanceRepository.createMissingFromLedger();
+    }
+
+    /**
+     * Drops the cached balance (e.g. after the user is deleted); it is read again on next use.
+     */
+    public void forget(Integer userId) {
+        invalidations.incrementAndGet();
+        balances.remove(userId);
+    }
+
+    // The committed balance, creating the user's balance row from their ledger if it is missing
+    private BigDecimal loadBalance(Integer userId) {
+        BigDecimal balance = walletBalanceRepository.findBalance(userId);
+        if (balance == null) {
+            walletBalanceRepository.createFromLedger(userId);
+            balance = walletBalanceRepository.findBalance(userId);
+        }
+        return balance;
+    }
+
+    // Inserts the ledger row after the balance row was changed, and returns the new balance.
+    // The cached balance is dropped once the transaction ends, whether it commits or not.
+    private BigDecimal record(Integer userId, BigDecimal delta, EntryType type, Integer expenseId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                forget(userId);
+            }
+        });
+        WalletLedgerEntry entry = new WalletLedgerEntry();
+        entry.setUserId(userId);
+        entry.setAmount(delta);
+        entry.setEntryType(type);
+        entry.setExpenseId(expenseId);
+        walletLedgerRepository.save(entry);
+        return walletBalanceRepository.findBalance(userId);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.demo;
+
+import com.example.demo.dto.NextMonthPredictionResponse;
+import com.example.demo.services.AIPredictionService;
+import com.example.demo.services.CircuitBreaker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs AIPredictionService against a local stub of the Python /predict route that can be made
+ * slow or failing, and checks the timeouts, the bulkhead and the circuit breaker.
+ */
+@SpringBootTest(properties = {
+		"ai.model.path=",
+		"ai.service.connect-timeout-ms=500",
+		"ai.service.read-timeout-ms=300",
+		"ai.service.max-concurrent=3",
+		"ai.service.bulkhead-wait-ms=2000",
+		"ai.service.batch-size=100",
+		"ai.service.circuit.failure-threshold=3",
+		"ai.service.circuit.open-ms=400"
+})
+class AIPredictionServiceTests {
+
+	private static HttpServer stub;
+	private static volatile int delayMs;
+	private static volatile int status;
+	// Makes the batch route answer 200 with a null entry in "predictions"
+	private static volatile boolean nullPrediction;
+	private static final AtomicInteger calls = new AtomicInteger();
+	private static final AtomicInteger batchCalls = new AtomicInteger();
+	private static final AtomicInteger inFlight = new AtomicInteger();
+	private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+	@Autowired
+	private AIPredictionService aiPredictionService;
+
+	@BeforeAll
+	static void startStub() throws IOException {
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.setExecutor(Executors.newFixedThreadPool(16));
+		stub.createContext("/predict", exchange -> {
+			calls.incrementAndGet();
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(delayMs);
+				byte[] body = status == 200
+						? "{\"user_id\": 1, \"predicted_next_month_expense\": 123.45}".getBytes(StandardCharsets.UTF_8)
+						: "{\"error\": \"boom\"}".getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(status, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			} catch (InterruptedException | IOException e) {
+				exchange.close();
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		});
+		// Echoes one prediction per requested id (user id * 10), in request order
+		stub.createContext("/predict/batch", exchange -> {
+			batchCalls.incrementAndGet();
+			JsonNode request = new ObjectMapper().readTree(exchange.getRequestBody());
+			StringBuilder json = new StringBuilder("{\"predictions\": [");
+			if (nullPrediction) {
+				json.append("null");
+			}
+			for (JsonNode userId : request.get("user_ids")) {
+				if (json.charAt(json.length() - 1) != '[') {
+					json.append(',');
+				}
+				json.append("{\"user_id\": ").append(userId.asInt())
+						.append(", \"predicted_next_month_expense\": ").append(userId.asInt() * 10).append('}');
+			}
+			byte[] body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		stub.start();
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stub.stop(0);
+	}
+
+	@DynamicPropertySource
+	static void aiServiceUrl(DynamicPropertyRegistry registry) {
+		registry.add("ai.service.url", () -> "http://127.0.0.1:" + stub.getAddress().getPort());
+	}
+
+	@BeforeEach
+	void healthyStubAndClosedCircuit() throws Exception {
+		delayMs = 0;
+		status = 200;
+		nullPrediction = false;
+		// A previous test may have left the circuit open; let it expire and close it with a good call
+		if (aiPredictionService.getCircuitState() != CircuitBreaker.State.CLOSED) {
+			Thread.sleep(450);
+			aiPredictionService.getPredictionForUser(1);
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, aiPredictionService.getCircuitState());
+		calls.set(0);
+		batchCalls.set(0);
+		maxInFlight.set(0);
+	}
+
+	@Test
+	void returnsPrediction() {
+		NextMonthPredictionResponse response = aiPredictionService.getPredictionForUser(1);
+
+		assertNull(response.getError());
+		assertEquals(123.45, response.getPredictedNextMonthExpense());
+	}
+
+	@Test
+	void slowServiceTimesOutToFallback() {
+		delayMs = 2000;
+
+		long start = System.nanoTime();
+		NextMonthPredictionResponse response = aiPredictionService.getPredictionForUser(1);
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertNotNull(response.getError());
+		assertTrue(millis < 1500, "took " + millis + " ms");
+	}
+
+	@Test
+	void circuitOpensAfterFailuresAndRecovers() throws Exception {
+		status = 500;
+		for (int i = 0; i < 3; i++) {
+			assertNotNull(aiPredictionService.getPredictionForUser(1).getError());
+		}
+		assertEquals(CircuitBreaker.State.OPEN, aiPredictionService.getCircuitState());
+
+		// While open, calls fail fast without reaching the service
+		for (int i = 0; i < 10; i++) {
+			assertTrue(aiPredictionService.getPredictionForUser(1).getError().contains("circuit open"));
+		}
+		assertEquals(3, calls.get());
+
+		// After open-ms a single trial call goes through and closes the circuit again
+		status = 200;
+		Thread.sleep(450);
+		assertNull(aiPredictionService.getPredictionForUser(1).getError());
+		assertEquals(CircuitBreaker.State.CLOSED, aiPredictionService.getCircuitState());
+		assertEquals(4, calls.get());
+	}
+
+	@Test
+	void unexpectedErrorInTrialCallDoesNotWedgeTheCircuit() throws Exception {
+		status = 500;
+		for (int i = 0; i < 3; i++) {
+			aiPredictionService.getPredictionForUser(1);
+		}
+		assertEquals(CircuitBreaker.State.OPEN, aiPredictionService.getCircuitState());
+
+		// The trial call gets a 200 it cannot read (NullPointerException, not a RestClientException)
+		nullPrediction = true;
+		Thread.sleep(450);
+		List<NextMonthPredictionResponse> predictions = aiPredictionService.getPredictionsForUsersAsync(List.of(1)).join();
+		assertTrue(predictions.get(0).getError().contains("prediction failed"));
+		assertEquals(1, batchCalls.get());
+		// The trial was given back rather than left HALF_OPEN, so the next call is a new trial
+		assertEquals(CircuitBreaker.State.OPEN, aiPredictionService.getCircuitState());
+
+		status = 200;
+		assertNull(aiPredictionService.getPredictionForUser(1).getError());
+		assertEquals(CircuitBreaker.State.CLOSED, aiPredictionService.getCircuitState());
+	}
+
+	@Test
+	void bulkheadCapsConcurrentCalls() {
+		delayMs = 100;
+
+		// Async calls plus blocking calls from a dozen other threads, all sharing the three permits
+		ExecutorService callers = Executors.newFixedThreadPool(12);
+		try {
+			List<CompletableFuture<NextMonthPredictionResponse>> futures = new ArrayList<>();
+			for (int i = 0; i < 12; i++) {
+				futures.add(aiPredictionService.getPredictionForUserAsync(i));
+				int userId = i;
+				futures.add(CompletableFuture.supplyAsync(() -> aiPredictionService.getPredictionForUser(userId), callers));
+			}
+			futures.forEach(future -> assertNull(future.join().getError()));
+		} finally {
+			callers.shutdownNow();
+		}
+
+		assertEquals(24, calls.get());
+		assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+	}
+
+	@Test
+	void batchScoresUsersInChunks() {
+		List<Integer> userIds = new ArrayList<>();
+		for (int i = 1; i <= 250; i++) {
+			userIds.add(i);
+		}
+
+		List<NextMonthPredictionResponse> predictions = aiPredictionService.getPredictionsForUsersAsync(userIds).join();
+
+		// 250 users at 100 per round trip
+		assertEquals(3, batchCalls.get());
+		assertEquals(0, calls.get());
+		assertEquals(250, predictions.size());
+		for (int i = 0; i < 250; i++) {
+			assertEquals(userIds.get(i), predictions.get(i).getUserId());
+			assertEquals(userIds.get(i) * 10.0, predictions.get(i).getPredictedNextMonthExpense());
+			assertNull(predictions.get(i).getError());
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.example.demo;
+
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.entity.Category;
+import com.example.demo.entity.Expense;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.services.AnomalyDetector;
+import com.example.demo.services.CategoryService;
+import com.example.demo.services.ExpenseService;
+import com.example.demo.services.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Builds up a user's history in one category and checks which new expenses get flagged,
+ * that the flags are saved and listed, and that the statistics survive a save and reload.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AnomalyDetectorTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private AnomalyDetector anomalyDetector;
+	@Autowired
+	private ExpenseService expenseService;
+	@Autowired
+	private WalletService walletService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CategoryService categoryService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TestUsers testUsers;
+
+	private User user;
+	private Category category;
+
+	@BeforeEach
+	void createHistory() {
+		user = testUsers.createUser("anomaly");
+		walletService.setBalance(user.getUserId(), new BigDecimal("100000.00"));
+
+		category = testUsers.createCategory("anomaly");
+
+		// 30 ordinary amounts between 20 and 49
+		List<ExpenseRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			requests.add(request(String.valueOf(20 + (i * 7) % 30)));
+		}
+		expenseService.createExpenses(requests);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		testUsers.deleteUser(user);
+		testUsers.deleteCategory(category);
+	}
+
+	@Test
+	void flagsOnlyUnusualAmounts() throws Exception {
+		Expense usual = expenseService.createExpense(expense("35.00"));
+		Expense unusual = expenseService.createExpense(expense("900.00"));
+
+		assertFalse(usual.getAnomalous());
+		assertTrue(unusual.getAnomalous());
+		assertTrue(unusual.getAnomalyScore() > 3.0);
+
+		mockMvc.perform(get("/api/expenses/anomalies").param("userId", user.getUserId().toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].expenseId").value(unusual.getExpenseId()))
+				.andExpect(jsonPath("$[0].anomalous").value(true));
+	}
+
+	@Test
+	void newCategoriesAreNotScored() {
+		Category other = new Category();
+		other.setCategoryName("anomaly-other-" + System.nanoTime());
+		other = categoryService.createCategory(other);
+		try {
+			Expense expense = expense("900.00");
+			expense.setCategory(other);
+
+			Expense saved = expenseService.createExpense(expense);
+
+			assertNull(saved.getAnomalous());
+		} finally {
+			jdbcTemplate.update("DELETE FROM expenses WHERE category_id = ?", other.getCategoryId());
+			jdbcTemplate.update("DELETE FROM daily_spending WHERE category_id = ?", other.getCategoryId());
+			jdbcTemplate.update("DELETE FROM monthly_spending WHERE category_id = ?", other.getCategoryId());
+			jdbcTemplate.update("DELETE FROM spending_stats WHERE category_id = ?", other.getCategoryId());
+			categoryService.deleteCategory(other.getCategoryId());
+		}
+	}
+
+	@Test
+	void statisticsSurviveSaveAndReload() {
+		assertTrue(anomalyDetector.persistDirty() > 0);
+		Integer rows = jdbcTemplate.queryForObject(
+				"SELECT sample_count FROM spending_stats WHERE user_id = ? AND category_id = ?",
+				Integer.class, user.getUserId(), category.getCategoryId());
+		assertEquals(30, rows);
+		// Saved statistics are clean until new amounts come in
+		assertEquals(0, anomalyDetector.persistDirty());
+
+		anomalyDetector.load();
+
+		assertTrue(expenseService.createExpense(expense("900.00")).getAnomalous());
+	}
+
+	private Expense expense(String amount) {
+		Expense expense = new Expense();
+		expense.setUser(userRepository.findById(user.getUserId()).orElseThrow());
+		expense.setCategory(category);
+		expense.setExpenseAmount(new BigDecimal(amount));
+		expense.setExpenseDate(LocalDate.now());
+		return expense;
+	}
+
+	private ExpenseRequest request(String amount) {
+		ExpenseRequest request = new ExpenseRequest();
+		request.setUserId(user.getUserId());
+		request.setCategoryId(category.getCategoryId());
+		request.setExpenseAmount(new BigDecimal(amount));
+		request.setExpenseDate(LocalDate.now());
+		request.setNote("anomaly");
+		return request;
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.demo;
+
+import com.example.demo.dto.PasswordHashStats;
+import com.example.demo.services.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Registers and logs in through the hashing pool, checks the per-email login limit, and that a full
+ * hashing pool refuses work instead of queueing it without bound.
+ */
+@SpringBootTest(properties = {
+		"password.hash.threads=1",
+		"password.hash.queue-capacity=1",
+		"rate-limit.login.client.capacity=100",
+		"rate-limit.login.email.capacity=3",
+		"rate-limit.login.email.refill-per-minute=1"
+})
+@AutoConfigureMockMvc
+class AuthAdmissionTests {
+
+	private final String email = "auth-" + System.nanoTime() + "@example.com";
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private PasswordHasher passwordHasher;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM users WHERE email = ?", email);
+	}
+
+	@Test
+	void registerAndLoginRunOnTheHashingPool() throws Exception {
+		long hashesBefore = passwordHasher.stats().getHashes();
+
+		register("secret");
+		MvcResult login = mockMvc.perform(post("/api/auth/login")
+						.contentType(MediaType.APPLICATION_JSON).content(credentials("secret")))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(login))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.email").value(email));
+
+		assertTrue(passwordHasher.stats().getHashes() >= hashesBefore + 2);
+	}
+
+	@Test
+	void loginsPerEmailAreLimited() throws Exception {
+		register("secret");
+
+		// Three tries (wrong password) use up the bucket; the fourth is refused before any hashing
+		for (int i = 0; i < 3; i++) {
+			MvcResult attempt = mockMvc.perform(post("/api/auth/login")
+							.contentType(MediaType.APPLICATION_JSON).content(credentials("wrong")))
+					.andReturn();
+			assertTrue(attempt.getAsyncResult() instanceof RuntimeException);
+		}
+		MvcResult refused = mockMvc.perform(post("/api/auth/login")
+						.contentType(MediaType.APPLICATION_JSON).content(credentials("secret")))
+				.andReturn();
+		mockMvc.perform(asyncDispatch(refused))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().exists("Retry-After"));
+
+		mockMvc.perform(get("/api/auth/stats"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.rateLimited.LOGIN_EMAIL").value(greaterThanOrEqualTo(1)));
+	}
+
+	@Test
+	void fullPoolRefusesWork() {
+		long rejectedBefore = passwordHasher.stats().getRejected();
+
+		// One thread and one queue slot: a burst of twenty cannot all be accepted
+		List<CompletableFuture<String>> hashes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			hashes.add(passwordHasher.encodeAsync("password" + i));
+		}
+		long refused = hashes.stream().filter(future -> {
+			try {
+				future.join();
+				return false;
+			} catch (CompletionException e) {
+				return e.getCause() instanceof RejectedExecutionException;
+			}
+		}).count();
+
+		PasswordHashStats stats = passwordHasher.stats();
+		assertTrue(refused > 0);
+		assertTrue(stats.getRejected() >= rejectedBefore + refused);
+		assertTrue(stats.getLatencyMaxMs() >= stats.getLatencyMeanMs());
+	}
+
+	private void register(String password) throws Exception {
+		mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials(password)))
+				.andExpect(status().isOk());
+	}
+
+	private String credentials(String password) {
+		return "{\"name\": \"auth\", \"email\": \"" + email + "\", \"password\": \"" + password + "\"}";
+	}
+}
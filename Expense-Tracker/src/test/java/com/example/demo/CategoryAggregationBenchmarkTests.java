@@ -0,0 +1,99 @@
+package com.example.demo;
+
+import com.example.demo.dto.CategorySpending;
+import com.example.demo.dto.CategoryTotal;
+import com.example.demo.services.CentsByCategory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes allocated and time per report for the in-Java part of a rollup report (merging the
+ * head/whole-month/tail rows per category, the totals and the per-category percentages), in
+ * BigDecimal arithmetic versus CentsByCategory. Allocation is read from the thread's allocation
+ * counter, so it needs no profiler.
+ * Opt-in: mvn test -Dbenchmark=true -Dtest=CategoryAggregationBenchmarkTests
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CategoryAggregationBenchmarkTests {
+
+	private static final int WARMUP = 200_000;
+	private static final int ROUNDS = 1_000_000;
+
+	@Test
+	void centsVersusBigDecimal() {
+		for (int categories : new int[]{12, 100}) {
+			// Rows as the three rollup queries return them, plus the budget query
+			Random random = new Random(42);
+			List<CategoryTotal> rows = new ArrayList<>();
+			List<CategoryTotal> budgeted = new ArrayList<>();
+			for (int part = 0; part < 3; part++) {
+				for (int c = 0; c < categories; c++) {
+					rows.add(new CategoryTotal("Category " + c, BigDecimal.valueOf(random.nextInt(10_000_000), 2), 10L));
+				}
+			}
+			for (int c = 0; c < categories; c += 2) {
+				budgeted.add(new CategoryTotal("Category " + c, BigDecimal.valueOf(random.nextInt(20_000_000), 2)));
+			}
+
+			assertEquals(decimal(rows, budgeted).size(), cents(rows, budgeted).size());
+			long[] decimal = measure(() -> decimal(rows, budgeted));
+			long[] cents = measure(() -> cents(rows, budgeted));
+			System.out.printf("%3d categories: BigDecimal %6d B/op %7.2f us/op, cents %6d B/op %7.2f us/op%n",
+					categories, decimal[0], decimal[1] / 1000.0, cents[0], cents[1] / 1000.0);
+			assertTrue(cents[0] < decimal[0]);
+		}
+	}
+
+	private static List<CategorySpending> decimal(List<CategoryTotal> rows, List<CategoryTotal> budgeted) {
+		Map<String, CategoryTotal> merged = new LinkedHashMap<>();
+		for (CategoryTotal row : rows) {
+			merged.merge(row.getCategoryName(), row, (a, b) -> new CategoryTotal(
+					a.getCategoryName(), a.getTotal().add(b.getTotal()), a.getTransactions() + b.getTransactions()));
+		}
+		List<CategoryTotal> spent = new ArrayList<>(merged.values());
+		BigDecimal totalSpending = spent.stream().map(CategoryTotal::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+		budgeted.stream().map(CategoryTotal::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+		return CentsByCategoryTests.decimalSpendingByCategory(spent, totalSpending, budgeted);
+	}
+
+	private static List<CategorySpending> cents(List<CategoryTotal> rows, List<CategoryTotal> budgeted) {
+		CentsByCategory merged = new CentsByCategory();
+		for (CategoryTotal row : rows) {
+			merged.addSpent(row);
+		}
+		List<CategoryTotal> spent = merged.spentTotals();
+		BigDecimal totalSpending = CentsByCategory.sum(spent);
+		CentsByCategory.sum(budgeted);
+		return CentsByCategory.of(spent, budgeted).toCategorySpending(totalSpending);
+	}
+
+	// {bytes per op, nanoseconds per op}
+	private static long[] measure(Supplier<List<CategorySpending>> report) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long sink = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			sink += report.get().size();
+		}
+		long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			sink += report.get().size();
+		}
+		long nanos = System.nanoTime() - start;
+		long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+		assertTrue(sink > 0);
+		return new long[]{bytes / ROUNDS, nanos / ROUNDS};
+	}
+}
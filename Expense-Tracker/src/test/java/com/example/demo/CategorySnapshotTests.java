@@ -0,0 +1,58 @@
+package com.example.demo;
+
+import com.example.demo.entity.Category;
+import com.example.demo.services.CategoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the category snapshot finds categories written by another instance and that
+ * callers cannot change what it serves.
+ */
+@SpringBootTest
+class CategorySnapshotTests {
+
+	@Autowired
+	private CategoryService categoryService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final String name = "snapshot-test-" + System.nanoTime();
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM category WHERE category_name = ?", name);
+		categoryService.reload();
+	}
+
+	@Test
+	void categoriesCreatedElsewhereAreFoundOnFirstLookup() {
+		categoryService.getSnapshot();
+		// Written straight to the table, as another instance would
+		jdbcTemplate.update("INSERT INTO category (category_name, description) VALUES (?, 'elsewhere')", name);
+		Integer id = jdbcTemplate.queryForObject("SELECT category_id FROM category WHERE category_name = ?", Integer.class, name);
+
+		assertEquals(name, categoryService.getCategoryById(id).orElseThrow().getCategoryName());
+		assertEquals(id, categoryService.getCategoryByName(name.toUpperCase()).orElseThrow().getCategoryId());
+	}
+
+	@Test
+	void returnedCategoriesAreCopies() {
+		Category created = new Category();
+		created.setCategoryName(name);
+		Integer id = categoryService.createCategory(created).getCategoryId();
+
+		categoryService.getCategoryById(id).orElseThrow().setCategoryName("changed");
+		categoryService.getAllCategories().forEach(category -> category.setDescription("changed"));
+
+		Category category = categoryService.getCategoryById(id).orElseThrow();
+		assertEquals(name, category.getCategoryName());
+		assertTrue(categoryService.getAllCategories().stream().noneMatch(c -> "changed".equals(c.getDescription())));
+	}
+}
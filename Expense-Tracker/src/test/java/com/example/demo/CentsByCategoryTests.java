@@ -0,0 +1,166 @@
+package com.example.demo;
+
+import com.example.demo.dto.CategorySpending;
+import com.example.demo.dto.CategoryTotal;
+import com.example.demo.services.CentsByCategory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The cents aggregation against the BigDecimal arithmetic reports used before it: same amounts
+ * (value and scale), same percentage bits and same order, on random inputs and edge cases.
+ */
+class CentsByCategoryTests {
+
+	@Test
+	void matchesBigDecimalArithmeticOnRandomInputs() {
+		Random random = new Random(7);
+		for (int round = 0; round < 20_000; round++) {
+			int categories = 1 + random.nextInt(15);
+			List<CategoryTotal> spent = new ArrayList<>();
+			List<CategoryTotal> budgeted = new ArrayList<>();
+			for (int c = 0; c < categories; c++) {
+				if (random.nextInt(4) > 0) {
+					spent.add(new CategoryTotal("Category " + c, randomAmount(random), (long) random.nextInt(500)));
+				}
+				if (random.nextInt(3) > 0) {
+					budgeted.add(new CategoryTotal("Category " + c, randomAmount(random)));
+				}
+			}
+			BigDecimal totalSpending = random.nextInt(10) == 0
+					? randomAmount(random)
+					: spent.stream().map(CategoryTotal::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+			assertSame(decimalSpendingByCategory(spent, totalSpending, budgeted),
+					CentsByCategory.of(spent, budgeted).toCategorySpending(totalSpending));
+			assertEquals(budgeted.stream().map(CategoryTotal::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add),
+					CentsByCategory.sum(budgeted));
+		}
+	}
+
+	@Test
+	void keepsTheScaleAndZeroOfBigDecimalAdd() {
+		List<CategoryTotal> spent = List.of(new CategoryTotal("Food", new BigDecimal("10.5"), 1L));
+		List<CategoryTotal> budgeted = List.of(new CategoryTotal("Rent", new BigDecimal("800")));
+
+		List<CategorySpending> result = CentsByCategory.of(spent, budgeted).toCategorySpending(new BigDecimal("10.5"));
+
+		assertEquals(new BigDecimal("10.5"), result.get(0).getTotalSpent());
+		assertEquals(BigDecimal.ZERO, result.get(0).getBudgetedAmount());
+		assertEquals(100.0, result.get(0).getPercentageOfBudgetUsed()); // Unbudgeted spending
+		assertEquals(BigDecimal.ZERO, result.get(1).getTotalSpent());
+		assertEquals(new BigDecimal("800"), result.get(1).getBudgetedAmount());
+		assertEquals(new BigDecimal("0.00"), CentsByCategory.sum(List.of(new CategoryTotal("Food", new BigDecimal("0.00")))));
+		assertEquals(BigDecimal.ZERO, CentsByCategory.sum(List.of()));
+	}
+
+	@Test
+	void mergesRowsOfTheSameCategory() {
+		CentsByCategory totals = new CentsByCategory();
+		totals.addSpent(new CategoryTotal("Food", new BigDecimal("1.10"), 2L));
+		totals.addSpent(new CategoryTotal("Bills", new BigDecimal("5"), 1L));
+		totals.addSpent(new CategoryTotal("Food", new BigDecimal("2.25"), 3L));
+
+		List<CategoryTotal> rows = totals.spentTotals();
+
+		assertEquals(2, rows.size());
+		assertEquals("Food", rows.get(0).getCategoryName());
+		assertEquals(new BigDecimal("3.35"), rows.get(0).getTotal());
+		assertEquals(5L, rows.get(0).getTransactions());
+		assertEquals(new BigDecimal("5"), rows.get(1).getTotal());
+	}
+
+	@Test
+	void refusesFractionsOfACentAndOverflow() {
+		List<CategoryTotal> fraction = List.of(new CategoryTotal("Food", new BigDecimal("0.001")));
+		assertThrows(ArithmeticException.class, () -> CentsByCategory.of(fraction, List.of()));
+
+		BigDecimal huge = BigDecimal.valueOf(Long.MAX_VALUE / 100 - 1);
+		List<CategoryTotal> overflow = List.of(new CategoryTotal("Food", huge), new CategoryTotal("Food", huge));
+		assertThrows(ArithmeticException.class, () -> CentsByCategory.of(overflow, List.of()));
+
+		// sum() falls back to BigDecimal instead
+		assertEquals(huge.add(huge), CentsByCategory.sum(overflow));
+		assertEquals(new BigDecimal("0.001"), CentsByCategory.sum(fraction));
+	}
+
+	// Mostly cents, sometimes whole or one-decimal amounts, zeros and refunds
+	private static BigDecimal randomAmount(Random random) {
+		long unscaled = switch (random.nextInt(8)) {
+			case 0 -> 0;
+			case 1 -> -random.nextInt(10_000);
+			case 2 -> random.nextLong(1_000_000_000_000L);
+			default -> random.nextInt(1_000_000);
+		};
+		return BigDecimal.valueOf(unscaled, random.nextInt(10) == 0 ? random.nextInt(2) : 2);
+	}
+
+	// Same values in the same order; categories with equal spending may be in any order
+	private static void assertSame(List<CategorySpending> expected, List<CategorySpending> actual) {
+		assertEquals(expected.size(), actual.size());
+		Map<String, CategorySpending> byName = actual.stream()
+				.collect(Collectors.toMap(CategorySpending::getCategoryName, s -> s));
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(0, expected.get(i).getTotalSpent().compareTo(actual.get(i).getTotalSpent()));
+			CategorySpending want = expected.get(i);
+			CategorySpending got = byName.get(want.getCategoryName());
+			assertEquals(want.getTotalSpent(), got.getTotalSpent());
+			assertEquals(want.getBudgetedAmount(), got.getBudgetedAmount());
+			assertEquals(Double.doubleToRawLongBits(want.getPercentageOfTotalSpending()),
+					Double.doubleToRawLongBits(got.getPercentageOfTotalSpending()), want.getCategoryName());
+			assertEquals(Double.doubleToRawLongBits(want.getPercentageOfBudgetUsed()),
+					Double.doubleToRawLongBits(got.getPercentageOfBudgetUsed()), want.getCategoryName());
+		}
+	}
+
+	// ReportService's calculation before the cents aggregation
+	static List<CategorySpending> decimalSpendingByCategory(List<CategoryTotal> spentPerCategory, BigDecimal totalSpending,
+															List<CategoryTotal> budgetPerCategory) {
+		Map<String, BigDecimal> categorySpendingMap = new HashMap<>();
+		spentPerCategory.forEach(row -> categorySpendingMap.put(row.getCategoryName(), row.getTotal()));
+		Map<String, BigDecimal> categoryBudgetMap = new HashMap<>();
+		budgetPerCategory.forEach(row -> categoryBudgetMap.put(row.getCategoryName(), row.getTotal()));
+
+		Set<String> allCategoryNames = new HashSet<>();
+		allCategoryNames.addAll(categorySpendingMap.keySet());
+		allCategoryNames.addAll(categoryBudgetMap.keySet());
+
+		return allCategoryNames.stream()
+				.map(categoryName -> {
+					BigDecimal totalSpent = categorySpendingMap.getOrDefault(categoryName, BigDecimal.ZERO);
+					BigDecimal totalBudgeted = categoryBudgetMap.getOrDefault(categoryName, BigDecimal.ZERO);
+					double percentageOfTotalSpending = 0;
+					if (totalSpending.compareTo(BigDecimal.ZERO) > 0) {
+						percentageOfTotalSpending = totalSpent.divide(totalSpending, 4, RoundingMode.HALF_UP)
+								.multiply(BigDecimal.valueOf(100))
+								.doubleValue();
+					}
+					double percentageOfBudgetUsed = 0;
+					if (totalBudgeted.compareTo(BigDecimal.ZERO) > 0) {
+						percentageOfBudgetUsed = totalSpent.divide(totalBudgeted, 4, RoundingMode.HALF_UP)
+								.multiply(BigDecimal.valueOf(100))
+								.doubleValue();
+					} else if (totalSpent.compareTo(BigDecimal.ZERO) > 0) {
+						percentageOfBudgetUsed = 100.0;
+					}
+					return new CategorySpending(categoryName, totalSpent, percentageOfTotalSpending,
+							totalBudgeted, percentageOfBudgetUsed);
+				})
+				.sorted(Comparator.comparing(CategorySpending::getTotalSpent).reversed())
+				.collect(Collectors.toList());
+	}
+}
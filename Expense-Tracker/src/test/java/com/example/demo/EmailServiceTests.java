@@ -0,0 +1,214 @@
+package com.example.demo;
+
+import com.example.demo.dto.MailQueueStats;
+import com.example.demo.services.EmailService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the mail queue against an in-process SMTP stub that can be made slow or refuse messages,
+ * and checks that sending OTPs does not wait for SMTP, that connections are reused and that
+ * refused messages are retried.
+ */
+@SpringBootTest(properties = {
+		"spring.mail.username=",
+		"spring.mail.password=",
+		"spring.mail.properties.mail.smtp.auth=false",
+		"spring.mail.properties.mail.smtp.starttls.enable=false",
+		"mail.from=noreply@example.com",
+		"mail.workers=2",
+		"mail.batch-size=10",
+		"mail.retry.initial-backoff-ms=50"
+})
+@AutoConfigureMockMvc
+class EmailServiceTests {
+
+	private static ServerSocket stub;
+	private static final ExecutorService sessions = Executors.newCachedThreadPool();
+	private static volatile int dataDelayMs;
+	private static final AtomicInteger refuseNext = new AtomicInteger();
+	private static final List<String> recipients = new CopyOnWriteArrayList<>();
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private EmailService emailService;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeAll
+	static void startStub() throws IOException {
+		stub = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		sessions.submit(() -> {
+			while (!stub.isClosed()) {
+				try {
+					Socket socket = stub.accept();
+					sessions.submit(() -> session(socket));
+				} catch (IOException e) {
+					return;
+				}
+			}
+		});
+	}
+
+	// Just enough SMTP for JavaMail: no AUTH, no STARTTLS
+	private static void session(Socket socket) {
+		try (socket;
+			 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+			reply(out, "220 stub ESMTP");
+			String recipient = null;
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+				switch (command) {
+					case "EHLO", "HELO" -> reply(out, "250 stub");
+					case "RCPT" -> {
+						recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+						reply(out, "250 OK");
+					}
+					case "DATA" -> {
+						reply(out, "354 End data with <CR><LF>.<CR><LF>");
+						while (!".".equals(in.readLine())) {
+							// Message body
+						}
+						Thread.sleep(dataDelayMs);
+						if (refuseNext.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+							reply(out, "451 Try again later");
+						} else {
+							recipients.add(recipient);
+							reply(out, "250 OK");
+						}
+					}
+					case "QUIT" -> {
+						reply(out, "221 Bye");
+						return;
+					}
+					default -> reply(out, "250 OK"); // MAIL, RSET, NOOP
+				}
+			}
+		} catch (IOException | InterruptedException e) {
+			// Client went away
+		}
+	}
+
+	private static void reply(Writer out, String line) throws IOException {
+		out.write(line + "\r\n");
+		out.flush();
+	}
+
+	@AfterAll
+	static void stopStub() throws IOException {
+		stub.close();
+		sessions.shutdownNow();
+	}
+
+	@DynamicPropertySource
+	static void smtpServer(DynamicPropertyRegistry registry) {
+		registry.add("spring.mail.host", () -> "127.0.0.1");
+		registry.add("spring.mail.port", () -> stub.getLocalPort());
+	}
+
+	@BeforeEach
+	void healthyStub() {
+		dataDelayMs = 0;
+		refuseNext.set(0);
+		recipients.clear();
+	}
+
+	@Test
+	void sendOtpReturnsBeforeTheMailIsSent() throws Exception {
+		dataDelayMs = 1000;
+		String to = "otp-" + System.nanoTime() + "@example.com";
+
+		long start = System.nanoTime();
+		mockMvc.perform(post("/otp/send")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"to\": \"" + to + "\"}"))
+				.andExpect(status().isOk());
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(millis < 500, "took " + millis + " ms");
+		assertTrue(await(() -> recipients.contains(to)));
+	}
+
+	@Test
+	void batchesShareConnections() {
+		long connectionsBefore = emailService.stats().getConnectionsOpened();
+		long sentBefore = emailService.stats().getSent();
+		long timedBefore = meterRegistry.get("mail.send").timer().count();
+
+		for (int i = 0; i < 50; i++) {
+			assertTrue(emailService.sendEmail("batch-" + i + "@example.com", "Hello", "Body " + i));
+		}
+
+		assertTrue(await(() -> recipients.size() == 50));
+		MailQueueStats stats = emailService.stats();
+		assertEquals(sentBefore + 50, stats.getSent());
+		assertEquals(timedBefore + 50, meterRegistry.get("mail.send").timer().count());
+		// At most one new connection per worker, not one per message
+		assertTrue(stats.getConnectionsOpened() - connectionsBefore <= 2,
+				"opened " + (stats.getConnectionsOpened() - connectionsBefore) + " connections");
+		assertTrue(stats.getBatches() > 0);
+		assertTrue(stats.getSendLatencyMaxMs() >= stats.getSendLatencyMeanMs());
+	}
+
+	@Test
+	void refusedMessagesAreRetried() {
+		long retriedBefore = emailService.stats().getRetried();
+		refuseNext.set(2);
+
+		assertTrue(emailService.sendEmail("retry@example.com", "Hello", "Body"));
+
+		assertTrue(await(() -> recipients.contains("retry@example.com")));
+		assertEquals(retriedBefore + 2, emailService.stats().getRetried());
+	}
+
+	private static boolean await(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (System.currentTimeMillis() < deadline) {
+			if (condition.getAsBoolean()) {
+				return true;
+			}
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return condition.getAsBoolean();
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.demo;
+
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.entity.Budget;
+import com.example.demo.entity.Category;
+import com.example.demo.entity.User;
+import com.example.demo.services.BudgetService;
+import com.example.demo.services.ExpenseService;
+import com.example.demo.services.WalletService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the expense and budget read endpoints cost one SQL statement per request,
+ * however many rows they return (no per-row user/category loading).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class EndpointQueryCountTests {
+
+	private static final int ROWS = 20;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private ExpenseService expenseService;
+	@Autowired
+	private BudgetService budgetService;
+	@Autowired
+	private WalletService walletService;
+	@Autowired
+	private TestUsers testUsers;
+
+	private User user;
+	private Category category;
+	private Integer expenseId;
+	private Integer budgetId;
+
+	@BeforeEach
+	void createRows() {
+		user = testUsers.createUser("query-count");
+		walletService.setBalance(user.getUserId(), new BigDecimal("100000.00"));
+
+		category = testUsers.createCategory("query-count");
+
+		List<ExpenseRequest> requests = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			ExpenseRequest request = new ExpenseRequest();
+			request.setUserId(user.getUserId());
+			request.setCategoryId(category.getCategoryId());
+			request.setExpenseAmount(new BigDecimal("1.00"));
+			request.setExpenseDate(LocalDate.of(2025, 1, 1).plusDays(i));
+			request.setNote("query count " + i);
+			requests.add(request);
+		}
+		expenseId = expenseService.createExpenses(requests).get(0).getExpenseId();
+
+		for (int i = 0; i < ROWS; i++) {
+			Budget budget = new Budget();
+			budget.setUser(user);
+			budget.setCategory(category);
+			budget.setBudgetAmount(new BigDecimal("10.00"));
+			budget.setStartDate(LocalDate.of(2025, 1, 1));
+			budget.setEndDate(LocalDate.of(2025, 1, 31));
+			Budget saved = budgetService.createBudget(budget);
+			if (budgetId == null) {
+				budgetId = saved.getBudgetId();
+			}
+		}
+	}
+
+	@AfterEach
+	void cleanUp() {
+		testUsers.deleteUser(user);
+		testUsers.deleteCategory(category);
+	}
+
+	@Test
+	void expenseListsUseOneStatement() throws Exception {
+		assertStatements("/api/expenses?userId=" + user.getUserId(), ROWS);
+		assertStatements("/api/expenses/user/" + user.getUserId(), ROWS);
+		assertStatements("/api/expenses/category/" + category.getCategoryName(), ROWS);
+		assertStatements("/api/expenses/" + expenseId, -1);
+	}
+
+	@Test
+	void budgetListsUseOneStatement() throws Exception {
+		assertStatements("/api/budget?userId=" + user.getUserId(), ROWS);
+		assertStatements("/api/budget/user/" + user.getUserId(), ROWS);
+		assertStatements("/api/budget/" + budgetId, -1);
+	}
+
+	// Calls the endpoint and checks it ran exactly one statement and loaded no entities; rows < 0 means a single object
+	private void assertStatements(String url, int rows) throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		var result = mockMvc.perform(get(url)).andExpect(status().isOk());
+		if (rows >= 0) {
+			result.andExpect(jsonPath("$.length()").value(rows))
+					.andExpect(jsonPath("$[0].user.name").value(user.getName()))
+					.andExpect(jsonPath("$[0].category.categoryName").value(category.getCategoryName()));
+		} else {
+			result.andExpect(jsonPath("$.user.userId").value(user.getUserId()));
+		}
+
+		assertEquals(1, statistics.getPrepareStatementCount(), url);
+		assertEquals(0, statistics.getEntityLoadCount(), url);
+	}
+}
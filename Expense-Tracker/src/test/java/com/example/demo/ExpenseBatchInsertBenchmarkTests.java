@@ -0,0 +1,108 @@
+package com.example.demo;
+
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.entity.Category;
+import com.example.demo.entity.Expense;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.services.CategoryService;
+import com.example.demo.services.ExpenseService;
+import com.example.demo.services.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares POST /api/expenses style single inserts (one transaction each) with
+ * ExpenseService.createExpenses (one batched transaction) against the configured database.
+ * Opt-in because it writes real rows: mvn test -Dbenchmark=true -Dtest=ExpenseBatchInsertBenchmarkTests
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExpenseBatchInsertBenchmarkTests {
+
+	private static final int ROWS = 5_000;
+
+	@Autowired
+	private ExpenseService expenseService;
+	@Autowired
+	private WalletService walletService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CategoryService categoryService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TestUsers testUsers;
+
+	private User user;
+	private Category category;
+
+	@BeforeEach
+	void createUserAndCategory() {
+		user = testUsers.createUser("batch-benchmark");
+		walletService.setBalance(user.getUserId(), new BigDecimal("1000000.00"));
+
+		category = testUsers.createCategory("batch-benchmark");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		testUsers.deleteUser(user);
+		testUsers.deleteCategory(category);
+	}
+
+	@Test
+	void batchInsertVersusSingleInserts() {
+		List<ExpenseRequest> requests = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			requests.add(new ExpenseRequest(user.getUserId(), category.getCategoryId(),
+					new BigDecimal("1.25"), LocalDate.of(2025, 1, 1).plusDays(i % 365), "benchmark " + i));
+		}
+
+		// Warm up both paths
+		insertOneByOne(requests.subList(0, 200));
+		expenseService.createExpenses(requests.subList(0, 200));
+
+		long start = System.nanoTime();
+		insertOneByOne(requests);
+		long singleNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		expenseService.createExpenses(requests);
+		long batchNanos = System.nanoTime() - start;
+
+		System.out.printf("single inserts: %d rows in %d ms (%.0f rows/s)%n",
+				ROWS, singleNanos / 1_000_000, ROWS / (singleNanos / 1e9));
+		System.out.printf("batch insert:   %d rows in %d ms (%.0f rows/s), %.1fx faster%n",
+				ROWS, batchNanos / 1_000_000, ROWS / (batchNanos / 1e9), (double) singleNanos / batchNanos);
+
+		Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE user_id = ?", Integer.class, user.getUserId());
+		assertEquals(2 * ROWS + 400, rows);
+	}
+
+	// What a client does today: one POST /api/expenses, and so one transaction, per expense
+	private void insertOneByOne(List<ExpenseRequest> requests) {
+		for (ExpenseRequest request : requests) {
+			Expense expense = new Expense();
+			expense.setUser(userRepository.findById(request.getUserId()).orElseThrow());
+			expense.setCategory(categoryService.getCategoryById(request.getCategoryId()).orElseThrow());
+			expense.setExpenseAmount(request.getExpenseAmount());
+			expense.setExpenseDate(request.getExpenseDate());
+			expense.setNote(request.getNote());
+			expenseService.createExpense(expense);
+		}
+	}
+}
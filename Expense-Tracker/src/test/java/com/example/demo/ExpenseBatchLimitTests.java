@@ -0,0 +1,34 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The batch endpoint refuses empty and oversized batches before touching the database.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExpenseBatchLimitTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void rejectsEmptyAndOversizedBatches() throws Exception {
+		String item = "{\"userId\":1,\"categoryId\":1,\"expenseAmount\":1.00,\"expenseDate\":\"2025-01-01\"}";
+		mockMvc.perform(post("/api/expenses/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/expenses/batch").contentType(MediaType.APPLICATION_JSON)
+						.content("[" + String.join(",", Collections.nCopies(1_001, item)) + "]"))
+				.andExpect(status().isBadRequest());
+	}
+}
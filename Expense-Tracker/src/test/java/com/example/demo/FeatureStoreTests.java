@@ -0,0 +1,119 @@
+package com.example.demo;
+
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.entity.Category;
+import com.example.demo.entity.User;
+import com.example.demo.services.CategoryService;
+import com.example.demo.services.ExpenseService;
+import com.example.demo.services.FeatureStore;
+import com.example.demo.services.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the feature vectors built from the monthly_spending rollup, and that they follow expense writes.
+ */
+@SpringBootTest
+class FeatureStoreTests {
+
+	@Autowired
+	private FeatureStore featureStore;
+	@Autowired
+	private ExpenseService expenseService;
+	@Autowired
+	private WalletService walletService;
+	@Autowired
+	private CategoryService categoryService;
+	@Autowired
+	private TestUsers testUsers;
+
+	private User user;
+	private User idleUser;
+	private Category food;
+	private boolean createdFood;
+	private Category other;
+
+	@BeforeEach
+	void createRows() {
+		user = testUsers.createUser("feature-store");
+		idleUser = testUsers.createUser("feature-store-idle");
+		walletService.setBalance(user.getUserId(), new BigDecimal("1000.00"));
+
+		food = categoryService.getCategoryByName("Food").orElse(null);
+		if (food == null) {
+			food = new Category();
+			food.setCategoryName("Food");
+			food = categoryService.createCategory(food);
+			createdFood = true;
+		}
+		other = testUsers.createCategory("feature-store");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		testUsers.deleteUser(user);
+		testUsers.deleteUser(idleUser);
+		testUsers.deleteCategory(other);
+		if (createdFood) {
+			testUsers.deleteCategory(food);
+		}
+	}
+
+	@Test
+	void lastMonthsSpendingPerColumn() {
+		LocalDate lastMonth = YearMonth.now().minusMonths(1).atDay(1);
+		expenseService.createExpenses(List.of(
+				request(food, "10.00", lastMonth),
+				request(food, "5.50", lastMonth.plusDays(3)),
+				request(other, "7.25", lastMonth.plusDays(5)),
+				// This month's spending is not a feature yet
+				request(food, "100.00", LocalDate.now())));
+
+		Map<Integer, FeatureStore.Features> features = featureStore.getFeatures(List.of(user.getUserId(), idleUser.getUserId()));
+
+		Map<String, Double> values = features.get(user.getUserId()).asMap();
+		assertEquals(15.5, values.get("Food"));
+		assertEquals(7.25, values.get("Others"));
+		assertEquals(22.75, values.get("Total_Expense"));
+		assertEquals(0.0, values.get("Transport"));
+		assertTrue(Double.isNaN(features.get(user.getUserId()).values()[FeatureStore.COLUMNS.indexOf("Income")]));
+		assertEquals(YearMonth.now().minusMonths(1), features.get(user.getUserId()).month());
+
+		// No spending last month: every column is left to the model's defaults
+		assertTrue(features.get(idleUser.getUserId()).asMap().isEmpty());
+	}
+
+	@Test
+	void followsExpenseWrites() {
+		LocalDate lastMonth = YearMonth.now().minusMonths(1).atDay(1);
+		Integer expenseId = expenseService.createExpenses(List.of(request(food, "10.00", lastMonth))).get(0).getExpenseId();
+		assertEquals(10.0, featureStore.getFeatures(user.getUserId()).asMap().get("Food"));
+
+		expenseService.deleteExpense(expenseId);
+
+		// The rollup row is gone, so the user is back to having no features
+		assertTrue(featureStore.getFeatures(user.getUserId()).asMap().isEmpty());
+	}
+
+	private ExpenseRequest request(Category category, String amount, LocalDate date) {
+		ExpenseRequest request = new ExpenseRequest();
+		request.setUserId(user.getUserId());
+		request.setCategoryId(category.getCategoryId());
+		request.setExpenseAmount(new BigDecimal(amount));
+		request.setExpenseDate(date);
+		request.setNote("feature store");
+		return request;
+	}
+}
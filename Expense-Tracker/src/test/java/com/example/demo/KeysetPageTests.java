@@ -0,0 +1,108 @@
+package com.example.demo;
+
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseView;
+import com.example.demo.dto.UserResponse;
+import com.example.demo.entity.Category;
+import com.example.demo.entity.User;
+import com.example.demo.services.ExpenseService;
+import com.example.demo.services.UserService;
+import com.example.demo.services.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pages through filtered lists: only the rows matching the filters that are set, in id order,
+ * with the cursor and next-page flag carried from page to page.
+ */
+@SpringBootTest
+class KeysetPageTests {
+
+	@Autowired
+	private ExpenseService expenseService;
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private WalletService walletService;
+	@Autowired
+	private TestUsers testUsers;
+
+	private final String name = "keyset-" + System.nanoTime();
+	private final List<User> users = new ArrayList<>();
+	private Category category;
+
+	@BeforeEach
+	void createRows() {
+		for (int i = 0; i < 3; i++) {
+			users.add(testUsers.createUser(name));
+		}
+		walletService.setBalance(users.get(0).getUserId(), new BigDecimal("100.00"));
+		category = testUsers.createCategory(name);
+
+		LocalDate today = LocalDate.now();
+		expenseService.createExpenses(List.of(
+				request(today.minusDays(2)), request(today.minusDays(1)), request(today)));
+	}
+
+	@AfterEach
+	void cleanUp() {
+		users.forEach(testUsers::deleteUser);
+		testUsers.deleteCategory(category);
+	}
+
+	@Test
+	void userSearchPagesCarryTheCursorAndBalance() {
+		Slice<UserResponse> first = userService.getUsersPage(null, 2, false, name.toUpperCase());
+		assertEquals(List.of(users.get(0).getUserId(), users.get(1).getUserId()),
+				first.getContent().stream().map(UserResponse::getUserID).toList());
+		assertTrue(first.hasNext());
+		assertEquals(0, new BigDecimal("94.00").compareTo(first.getContent().get(0).getWalletBalance()));
+		assertEquals(0, BigDecimal.ZERO.compareTo(first.getContent().get(1).getWalletBalance()));
+
+		Slice<UserResponse> second = userService.getUsersPage(users.get(1).getUserId(), 2, false, name);
+		assertEquals(List.of(users.get(2).getUserId()), second.getContent().stream().map(UserResponse::getUserID).toList());
+		assertFalse(second.hasNext());
+	}
+
+	@Test
+	void expensePagesApplyOnlyTheFiltersThatAreSet() {
+		Integer userId = users.get(0).getUserId();
+		LocalDate today = LocalDate.now();
+
+		assertEquals(3, expenseService.getExpensesPage(null, 10, true, userId, null, null, null).getNumberOfElements());
+		assertEquals(3, expenseService.getExpensesPage(null, 10, false, null, category.getCategoryId(), null, null).getNumberOfElements());
+
+		Slice<ExpenseView> recent = expenseService.getExpensesPage(null, 1, true, userId, category.getCategoryId(),
+				today.minusDays(1), today);
+		assertEquals(today, recent.getContent().get(0).getExpenseDate());
+		assertTrue(recent.hasNext());
+
+		Slice<ExpenseView> next = expenseService.getExpensesPage(recent.getContent().get(0).getExpenseId(), 1, true,
+				userId, category.getCategoryId(), today.minusDays(1), today);
+		assertEquals(today.minusDays(1), next.getContent().get(0).getExpenseDate());
+		assertFalse(next.hasNext());
+	}
+
+	private ExpenseRequest request(LocalDate date) {
+		ExpenseRequest request = new ExpenseRequest();
+		request.setUserId(users.get(0).getUserId());
+		request.setCategoryId(category.getCategoryId());
+		request.setExpenseAmount(new BigDecimal("2.00"));
+		request.setExpenseDate(date);
+		request.setNote("keyset");
+		return request;
+	}
+}
@@ -0,0 +1,265 @@
+package com.example.demo;
+
+import com.example.demo.dto.BudgetRequest;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.services.CategoryService;
+import com.example.demo.services.PasswordHasher;
+import com.example.demo.services.UserService;
+import com.example.demo.services.WalletService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test: bulk-loads a SyntheticDataset, then has `concurrency` clients call the real
+ * controllers over HTTP for `duration-seconds` (after `warmup-seconds` that are not counted) and
+ * prints requests, errors, throughput and p50/p99/max latency per endpoint. The data is removed
+ * afterwards unless -Dloadtest.keep=true.
+ *
+ * Runs against a throwaway embedded PostgreSQL 16 started for the class (the schema comes from
+ * ddl-auto), or against the configured database with -Dloadtest.external=true.
+ * Opt-in because of its run time:
+ * mvn test -Dloadtest=true -Dtest=LoadTests -Dloadtest.users=5000 -Dloadtest.expenses-per-user=4000 -Dloadtest.concurrency=64
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class LoadTests {
+
+	private static final int USERS = Integer.getInteger("loadtest.users", 1_000);
+	private static final int EXPENSES_PER_USER = Integer.getInteger("loadtest.expenses-per-user", 1_000);
+	private static final int MONTHS = Integer.getInteger("loadtest.months", 12);
+	private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+	private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup-seconds", 10);
+	private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 30);
+	private static final boolean KEEP = Boolean.getBoolean("loadtest.keep");
+	private static final boolean EXTERNAL = Boolean.getBoolean("loadtest.external");
+
+	// Stopped by its own shutdown hook, after @DirtiesContext has closed the application context
+	private static EmbeddedPostgres postgres;
+
+	@LocalServerPort
+	private int port;
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private CategoryService categoryService;
+	@Autowired
+	private WalletService walletService;
+	@Autowired
+	private PasswordHasher passwordHasher;
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private SyntheticDataset dataset;
+	private SyntheticDataset.Loaded loaded;
+	private HttpClient client;
+
+	// Latencies in nanoseconds and the number of non-2xx responses of one endpoint
+	private static final class Recorder {
+		private long[] latencies = new long[1024];
+		private int count;
+		private int errors;
+
+		synchronized void record(long nanos, boolean ok) {
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = nanos;
+			if (!ok) {
+				errors++;
+			}
+		}
+
+		synchronized void reset() {
+			count = 0;
+			errors = 0;
+		}
+	}
+
+	@DynamicPropertySource
+	static void embeddedDatabase(DynamicPropertyRegistry registry) throws IOException {
+		if (EXTERNAL) {
+			return;
+		}
+		postgres = EmbeddedPostgres.builder().start();
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@BeforeEach
+	void loadDataset() throws Exception {
+		dataset = new SyntheticDataset(dataSource, jdbcTemplate, categoryService, walletService, passwordHasher,
+				userService, SyntheticDataset.DEFAULT_CSV);
+		long start = System.nanoTime();
+		loaded = dataset.load("loadtest-" + System.currentTimeMillis() + "-", USERS, EXPENSES_PER_USER, MONTHS, 42);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Loaded %d users and %d expenses in %.1f s (%.0f rows/s)%n",
+				USERS, loaded.expenses(), seconds, loaded.expenses() / seconds);
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+	}
+
+	@AfterEach
+	void deleteDataset() {
+		if (loaded != null && !KEEP) {
+			dataset.delete(loaded.tag());
+		}
+	}
+
+	@Test
+	void endpointsUnderLoad() throws Exception {
+		Map<String, Recorder> recorders = new LinkedHashMap<>();
+		for (String endpoint : List.of("POST /api/expenses", "GET /api/reports/user/{id}",
+				"POST /api/budget", "GET /api/budget/user/{id}")) {
+			recorders.put(endpoint, new Recorder());
+		}
+
+		// 1. Warm up (JIT, connection pools, report cache), then count only the measured window
+		run(recorders, WARMUP_SECONDS);
+		recorders.values().forEach(Recorder::reset);
+		long start = System.nanoTime();
+		run(recorders, DURATION_SECONDS);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		// 2. Report
+		System.out.printf("%d users, %d expenses, %d clients, %d s%n", USERS, loaded.expenses(), CONCURRENCY, DURATION_SECONDS);
+		System.out.printf("%-28s %9s %7s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+		for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+			Recorder recorder = entry.getValue();
+			long[] sorted = Arrays.copyOf(recorder.latencies, recorder.count);
+			Arrays.sort(sorted);
+			System.out.printf("%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", entry.getKey(), sorted.length, recorder.errors,
+					sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99),
+					sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+		}
+
+		for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+			assertTrue(entry.getValue().count > 0, entry.getKey() + " was never called");
+			assertEquals(0, entry.getValue().errors, entry.getKey() + " failed");
+		}
+	}
+
+	// Every client picks one of the four calls at random, for a random loaded user, until the time is up
+	private void run(Map<String, Recorder> recorders, int seconds) throws Exception {
+		long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < CONCURRENCY; i++) {
+				futures.add(clients.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						call(recorders);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+
+	private void call(Map<String, Recorder> recorders) throws Exception {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Integer userId = loaded.userIds().get(random.nextInt(loaded.userIds().size()));
+		Integer categoryId = loaded.categoryIds().get(random.nextInt(loaded.categoryIds().size()));
+		int days = (int) ChronoUnit.DAYS.between(loaded.firstDay(), loaded.lastDay());
+		LocalDate day = loaded.firstDay().plusDays(random.nextInt(days + 1));
+
+		String endpoint;
+		HttpRequest request;
+		switch (random.nextInt(4)) {
+			case 0 -> {
+				endpoint = "POST /api/expenses";
+				request = post("/api/expenses", new ExpenseRequest(userId, categoryId,
+						BigDecimal.valueOf(random.nextInt(100, 5_000), 2), day, "load test"));
+			}
+			case 1 -> {
+				// A month up to the whole range, like the dashboard's period picker
+				LocalDate start = random.nextBoolean() ? loaded.firstDay() : day.withDayOfMonth(1);
+				endpoint = "GET /api/reports/user/{id}";
+				request = get("/api/reports/user/" + userId + "?startDate=" + start + "&endDate=" + loaded.lastDay());
+			}
+			case 2 -> {
+				endpoint = "POST /api/budget";
+				request = post("/api/budget", new BudgetRequest(userId, categoryId,
+						BigDecimal.valueOf(random.nextInt(100, 1_000), 2), day.withDayOfMonth(1),
+						day.withDayOfMonth(day.lengthOfMonth())));
+			}
+			default -> {
+				endpoint = "GET /api/budget/user/{id}";
+				request = get("/api/budget/user/" + userId);
+			}
+		}
+
+		long start = System.nanoTime();
+		boolean ok;
+		try {
+			HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+			ok = response.statusCode() / 100 == 2;
+		} catch (IOException e) {
+			ok = false;
+		}
+		recorders.get(endpoint).record(System.nanoTime() - start, ok);
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+	}
+
+	private HttpRequest post(String path, Object body) throws Exception {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+				.build();
+	}
+
+	// Nearest-rank percentile in milliseconds
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(quantile * sorted.length);
+		return sorted[Math.max(rank - 1, 0)] / 1e6;
+	}
+}
@@ -0,0 +1,135 @@
+package com.example.demo;
+
+import com.example.demo.services.FeatureStore;
+import com.example.demo.services.LocalModelScorer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scores hand-written model exports (same JSON as ml_utils.export_model_json).
+ */
+class LocalModelScorerTests {
+
+	// Two features scaled by (x - 10) / 2; tree 0 splits on "a" by name, tree 1 on f1 by index
+	private static final String TWO_TREES = """
+			{"feature_columns": ["a", "b"], "defaults": [10.0, 30.0],
+			 "scaler": {"mean": [10.0, 10.0], "scale": [2.0, 2.0]},
+			 "base_score": 100.0, "fallback_value": 1.0,
+			 "trees": [
+			   {"nodeid": 0, "split": "a", "split_condition": 0.0, "yes": 1, "no": 2, "missing": 1,
+			    "children": [{"nodeid": 1, "leaf": -5.0}, {"nodeid": 2, "leaf": 5.0}]},
+			   {"nodeid": 0, "split": "f1", "split_condition": 5.0, "yes": 1, "no": 2, "missing": 1,
+			    "children": [{"nodeid": 1, "leaf": 1.5},
+			                 {"nodeid": 2, "split": "a", "split_condition": 1.0, "yes": 3, "no": 4, "missing": 3,
+			                  "children": [{"nodeid": 3, "leaf": 20.0}, {"nodeid": 4, "leaf": -250.0}]}]}
+			 ]}
+			""";
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void walksEveryTreeOnScaledFeatures() throws IOException {
+		LocalModelScorer scorer = scorer(TWO_TREES);
+
+		assertTrue(scorer.isLoaded());
+		assertEquals(2, scorer.getFeatureCount());
+		// a=8 -> -1 (left), b=12 -> 1 (left): 100 - 5 + 1.5
+		assertEquals(96.5, scorer.score(new double[]{8, 12}));
+		// a=11 -> 0.5 (right, then left on a < 1), b=40 -> 15 (right): 100 + 5 + 20
+		assertEquals(125.0, scorer.score(new double[]{11, 40}));
+		// a=20 -> 5 (right, right): 100 + 5 - 250 is negative, so 0
+		assertEquals(0.0, scorer.score(new double[]{20, 40}));
+	}
+
+	@Test
+	void missingFeaturesTakeTheirDefaults() throws IOException {
+		LocalModelScorer scorer = scorer(TWO_TREES);
+
+		// Defaults a=10, b=30: 100 + 5 + 20
+		assertEquals(125.0, scorer.score(new double[]{Double.NaN, Double.NaN}));
+		assertEquals(125.0, scorer.score(new double[0]));
+	}
+
+	@Test
+	void prunedTreesWithSparseNodeIdsAreWalked() throws IOException {
+		// XGBoost keeps the ids of pruned nodes unused: this tree has ids 0, 1, 2, 5, 6
+		LocalModelScorer scorer = scorer("""
+				{"feature_columns": ["a"], "defaults": [0.0], "scaler": {"mean": [0.0], "scale": [1.0]},
+				 "base_score": 10.0, "fallback_value": 1.0,
+				 "trees": [
+				   {"nodeid": 0, "split": "a", "split_condition": 1.0, "yes": 1, "no": 2, "missing": 1,
+				    "children": [{"nodeid": 1, "leaf": 1.0},
+				                 {"nodeid": 2, "split": "a", "split_condition": 5.0, "yes": 5, "no": 6, "missing": 6,
+				                  "children": [{"nodeid": 5, "leaf": 2.0}, {"nodeid": 6, "leaf": 3.0}]}]}
+				 ]}
+				""");
+
+		assertEquals(11.0, scorer.score(new double[]{0}));
+		assertEquals(12.0, scorer.score(new double[]{3}));
+		assertEquals(13.0, scorer.score(new double[]{9}));
+	}
+
+	@Test
+	void featuresWithoutDefaultFollowTheMissingBranch() throws IOException {
+		// "b" has no default; its split sends missing values right ("no"), unlike a value of 0
+		LocalModelScorer scorer = scorer("""
+				{"feature_columns": ["a", "b"], "defaults": [0.0, null],
+				 "scaler": {"mean": [0.0, 0.0], "scale": [1.0, 1.0]},
+				 "base_score": 0.0, "fallback_value": 1.0,
+				 "trees": [
+				   {"nodeid": 0, "split": "b", "split_condition": 1.0, "yes": 1, "no": 2, "missing": 2,
+				    "children": [{"nodeid": 1, "leaf": 4.0}, {"nodeid": 2, "leaf": 8.0}]}
+				 ]}
+				""");
+
+		assertEquals(4.0, scorer.score(new double[]{0, 0}));
+		assertEquals(8.0, scorer.score(new double[]{0, Double.NaN}));
+	}
+
+	@Test
+	void exportWithoutTreesIsNotAModel() throws IOException {
+		// A DummyRegressor's export: a constant, which the Python service serves just as well
+		LocalModelScorer scorer = scorer("""
+				{"feature_columns": ["a"], "defaults": [1.0], "scaler": {"mean": [1.0], "scale": [1.0]},
+				 "base_score": 32789.305, "fallback_value": 32789.305, "trees": []}
+				""");
+
+		assertFalse(scorer.isLoaded());
+	}
+
+	@Test
+	void trainedExportReadsTheFeatureStoreColumns() {
+		// models/expense_model.json: export_model_json output of a pipeline trained on FEATURE_COLUMNS
+		LocalModelScorer scorer = new LocalModelScorer(new ObjectMapper(), "classpath:models/expense_model.json");
+
+		assertTrue(scorer.isLoaded());
+		assertEquals(FeatureStore.COLUMNS, scorer.getFeatureColumns());
+		// A FeatureStore vector (Income unknown) for a light and a heavy spender
+		double[] light = {2000, 500, 300, 400, 3000, 200, 100, 6500, Double.NaN};
+		double[] heavy = {12000, 3000, 2500, 4000, 15000, 2500, 2000, 41000, Double.NaN};
+		assertEquals(32789.305 - 420.5 - 60.0 + 18.0, scorer.score(light), 1e-6);
+		assertEquals(32789.305 + 310.75 + 140.5 + 18.0, scorer.score(heavy), 1e-6);
+	}
+
+	@Test
+	void missingOrBrokenFileIsNotLoaded() throws IOException {
+		assertFalse(new LocalModelScorer(new ObjectMapper(), "").isLoaded());
+		assertFalse(new LocalModelScorer(new ObjectMapper(), dir.resolve("absent.json").toString()).isLoaded());
+		assertFalse(scorer("{\"feature_columns\": [\"a\"], \"defaults\": []}").isLoaded());
+	}
+
+	private LocalModelScorer scorer(String json) throws IOException {
+		Path file = Files.writeString(dir.resolve("model.json"), json);
+		return new LocalModelScorer(new ObjectMapper(), file.toString());
+	}
+}
@@ -0,0 +1,98 @@
+package com.example.demo;
+
+import com.example.demo.services.AIPredictionService;
+import com.example.demo.services.ExpenseService;
+import com.example.demo.services.ReportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Calls a few timed service methods and checks what the Prometheus endpoint reports for them,
+ * along with the connection pool, executor, Hibernate and application metrics.
+ */
+// Tests leave metrics export off unless asked for
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ReportService reportService;
+	@Autowired
+	private ExpenseService expenseService;
+	@Autowired
+	private AIPredictionService aiPredictionService;
+
+	@Test
+	void timedMethodsAreExported() throws Exception {
+		long reportsBefore = value(scrape(), "report_generate_seconds_count");
+		long failedDeletesBefore = value(scrape(), "expense_delete_seconds_count", "exception=\"RuntimeException\"");
+
+		reportService.generateReport(Integer.MAX_VALUE, LocalDate.now().withDayOfMonth(1), LocalDate.now(), List.of());
+		assertThrows(RuntimeException.class, () -> expenseService.deleteExpense(-1));
+
+		String metrics = scrape();
+		assertEquals(reportsBefore + 1, value(metrics, "report_generate_seconds_count"));
+		assertEquals(value(metrics, "report_generate_seconds_count"), value(metrics, "report_generate_seconds_bucket", "le=\"+Inf\""));
+		assertEquals(failedDeletesBefore + 1, value(metrics, "expense_delete_seconds_count", "exception=\"RuntimeException\""));
+		assertTrue(value(metrics, "hikaricp_connections_max") > 0);
+		assertTrue(value(metrics, "hibernate_query_executions_total") > 0);
+		assertTrue(value(metrics, "executor_pool_max_threads", "name=\"passwordHashExecutor\"") > 0);
+		assertTrue(metrics.contains("# TYPE mail_queue_depth gauge"));
+		assertTrue(metrics.contains("# TYPE mail_send_seconds histogram"));
+		assertTrue(metrics.contains("# TYPE mail_connections_opened_total counter"));
+		assertTrue(metrics.contains("# TYPE report_cache_hits_total counter"));
+		assertTrue(metrics.contains("# TYPE report_cache_evictions_total counter"));
+	}
+
+	@Test
+	void predictionsAreTimedOnTheAsyncPaths() throws Exception {
+		long predictionsBefore = value(scrape(), "ai_prediction_seconds_count");
+		long batchesBefore = value(scrape(), "ai_prediction_batch_seconds_count");
+
+		// The controller's path (through PredictionStore) and the batch path; neither goes through the proxy
+		aiPredictionService.getPredictionForUserAsync(Integer.MAX_VALUE).join();
+		aiPredictionService.getPredictionsForUsersAsync(List.of(Integer.MAX_VALUE)).join();
+
+		String metrics = scrape();
+		assertEquals(predictionsBefore + 1, value(metrics, "ai_prediction_seconds_count"));
+		assertEquals(batchesBefore + 1, value(metrics, "ai_prediction_batch_seconds_count"));
+	}
+
+	private String scrape() throws Exception {
+		return mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+	}
+
+	// The sum of the metric's samples whose labels contain every given label, 0 if there are none yet
+	private static long value(String metrics, String name, String... labels) {
+		Matcher matcher = Pattern.compile("^" + Pattern.quote(name) + "(\\{.*})? (\\S+)$", Pattern.MULTILINE).matcher(metrics);
+		double sum = 0;
+		while (matcher.find()) {
+			String sampleLabels = matcher.group(1) == null ? "" : matcher.group(1);
+			if (Arrays.stream(labels).allMatch(sampleLabels::contains)) {
+				sum += Double.parseDouble(matcher.group(2));
+			}
+		}
+		return (long) sum;
+	}
+}
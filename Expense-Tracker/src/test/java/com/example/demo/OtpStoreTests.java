@@ -0,0 +1,124 @@
+package com.example.demo;
+
+import com.example.demo.repository.OtpCodeRepository;
+import com.example.demo.services.DatabaseOtpStore;
+import com.example.demo.services.InMemoryOtpStore;
+import com.example.demo.services.OtpService;
+import com.example.demo.services.OtpStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks single use, expiry, the attempt limit and concurrent verification against both OTP stores,
+ * and the size bound of the in-memory one.
+ */
+@SpringBootTest(properties = "otp.max-attempts=3")
+class OtpStoreTests {
+
+	private static final String EMAIL = "otp-store-test@example.com";
+
+	@Autowired
+	private OtpService otpService;
+	@Autowired
+	private OtpCodeRepository otpCodeRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM otp_codes WHERE email = ?", EMAIL);
+	}
+
+	@Test
+	void codesAreSingleUse() {
+		String otp = otpService.generateOtp(EMAIL);
+
+		assertFalse(otpService.verifyOtp(EMAIL, otp.equals("000000") ? "000001" : "000000"));
+		assertTrue(otpService.verifyOtp(" OTP-Store-Test@example.com ", otp));
+		assertEquals(OtpStore.Result.NOT_FOUND, otpService.verify(EMAIL, otp));
+	}
+
+	@Test
+	void wrongGuessesLockTheCode() {
+		String otp = otpService.generateOtp(EMAIL);
+		String wrong = otp.equals("000000") ? "000001" : "000000";
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(OtpStore.Result.INVALID, otpService.verify(EMAIL, wrong));
+		}
+		assertEquals(OtpStore.Result.TOO_MANY_ATTEMPTS, otpService.verify(EMAIL, otp));
+
+		// A new code starts over
+		assertTrue(otpService.verifyOtp(EMAIL, otpService.generateOtp(EMAIL)));
+	}
+
+	@Test
+	void inMemoryStoreRules() throws Exception {
+		checkStore(new InMemoryOtpStore(1000));
+	}
+
+	@Test
+	void databaseStoreRules() throws Exception {
+		checkStore(new DatabaseOtpStore(otpCodeRepository));
+	}
+
+	@Test
+	void inMemoryStoreStaysBounded() {
+		InMemoryOtpStore store = new InMemoryOtpStore(10);
+		for (int i = 0; i < 100; i++) {
+			store.put("user" + i + "@example.com", "hash" + i, Duration.ofMinutes(5));
+		}
+
+		assertTrue(store.size() <= 10, "size " + store.size());
+		// The newest code is kept
+		assertEquals(OtpStore.Result.VERIFIED, store.verify("user99@example.com", "hash99", 3));
+	}
+
+	private void checkStore(OtpStore store) throws Exception {
+		// Expired
+		store.put(EMAIL, "expired", Duration.ZERO);
+		Thread.sleep(5);
+		assertEquals(OtpStore.Result.EXPIRED, store.verify(EMAIL, "expired", 3));
+		assertEquals(OtpStore.Result.NOT_FOUND, store.verify(EMAIL, "expired", 3));
+
+		// Attempt limit
+		store.put(EMAIL, "right", Duration.ofMinutes(5));
+		assertEquals(OtpStore.Result.INVALID, store.verify(EMAIL, "wrong", 2));
+		assertEquals(OtpStore.Result.INVALID, store.verify(EMAIL, "wrong", 2));
+		assertEquals(OtpStore.Result.TOO_MANY_ATTEMPTS, store.verify(EMAIL, "right", 2));
+
+		// Many concurrent verifies of the right code: exactly one wins
+		store.put(EMAIL, "right", Duration.ofMinutes(5));
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try {
+			List<CompletableFuture<OtpStore.Result>> results = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				results.add(CompletableFuture.supplyAsync(() -> store.verify(EMAIL, "right", 100), callers));
+			}
+			long verified = results.stream().map(CompletableFuture::join).filter(r -> r == OtpStore.Result.VERIFIED).count();
+			assertEquals(1, verified);
+		} finally {
+			callers.shutdownNow();
+		}
+
+		// Purge
+		store.put(EMAIL, "expired", Duration.ZERO);
+		Thread.sleep(5);
+		assertTrue(store.purgeExpired() >= 1);
+		assertEquals(OtpStore.Result.NOT_FOUND, store.verify(EMAIL, "expired", 3));
+	}
+}
@@ -0,0 +1,188 @@
+package com.example.demo;
+
+import com.example.demo.dto.NextMonthPredictionResponse;
+import com.example.demo.entity.User;
+import com.example.demo.services.PredictionStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Runs PredictionStore against a local stub of the Python service and checks what ends up in the
+ * predictions table: writes during a recompute keep the row dirty, fallback DTOs are not stored,
+ * and a new month is recomputed instead of serving last month's prediction.
+ */
+@SpringBootTest(properties = {
+		"ai.model.path=",
+		"ai.service.circuit.failure-threshold=100",
+		"ai.predictions.recompute-cron=-"
+})
+class PredictionStoreTests {
+
+	private static HttpServer stub;
+	private static volatile int status;
+	private static final AtomicInteger calls = new AtomicInteger();
+	// Run once, while the stub is answering a batch call
+	private static final AtomicReference<Runnable> duringBatch = new AtomicReference<>();
+
+	@Autowired
+	private PredictionStore predictionStore;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TestUsers testUsers;
+
+	private User user;
+
+	@BeforeAll
+	static void startStub() throws IOException {
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.createContext("/predict", exchange -> {
+			calls.incrementAndGet();
+			respond(exchange, "{\"user_id\": 1, \"predicted_next_month_expense\": 123.45}");
+		});
+		// One prediction per requested id (user id * 10), in request order
+		stub.createContext("/predict/batch", exchange -> {
+			JsonNode request = new ObjectMapper().readTree(exchange.getRequestBody());
+			Runnable hook = duringBatch.getAndSet(null);
+			if (hook != null) {
+				hook.run();
+			}
+			StringBuilder json = new StringBuilder("{\"predictions\": [");
+			for (JsonNode userId : request.get("user_ids")) {
+				if (json.charAt(json.length() - 1) != '[') {
+					json.append(',');
+				}
+				json.append("{\"user_id\": ").append(userId.asInt())
+						.append(", \"predicted_next_month_expense\": ").append(userId.asInt() * 10).append('}');
+			}
+			respond(exchange, json.append("]}").toString());
+		});
+		stub.start();
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stub.stop(0);
+	}
+
+	@DynamicPropertySource
+	static void aiServiceUrl(DynamicPropertyRegistry registry) {
+		registry.add("ai.service.url", () -> "http://127.0.0.1:" + stub.getAddress().getPort());
+	}
+
+	@BeforeEach
+	void createUser() {
+		status = 200;
+		calls.set(0);
+		duringBatch.set(null);
+		user = testUsers.createUser("prediction");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		testUsers.deleteUser(user);
+	}
+
+	@Test
+	void writeDuringRecomputeKeepsTheRowDirty() {
+		insertRow(targetMonth(), 1.0, true);
+		duringBatch.set(() -> predictionStore.markDirty(user.getUserId()));
+
+		predictionStore.recomputeStale();
+
+		Map<String, Object> row = row(targetMonth());
+		assertEquals(user.getUserId() * 10.0, ((Number) row.get("predicted_amount")).doubleValue());
+		assertEquals(true, row.get("dirty"));
+
+		// The next run has nothing in between and clears it
+		predictionStore.recomputeStale();
+		assertEquals(false, row(targetMonth()).get("dirty"));
+	}
+
+	@Test
+	void fallbackPredictionsAreNotStored() {
+		status = 500;
+
+		NextMonthPredictionResponse prediction = predictionStore.getPrediction(user.getUserId()).join();
+
+		assertNotNull(prediction.getError());
+		assertEquals(0, rowCount(targetMonth()));
+
+		// Nothing was stored, so the next read calls the service again
+		status = 200;
+		assertEquals(123.45, predictionStore.getPrediction(user.getUserId()).join().getPredictedNextMonthExpense());
+		assertEquals(2, calls.get());
+		assertEquals(1, rowCount(targetMonth()));
+	}
+
+	@Test
+	void newMonthIsNotServedLastMonthsPrediction() {
+		LocalDate lastMonth = YearMonth.now().atDay(1);
+		insertRow(lastMonth, 1.0, false);
+
+		assertEquals(123.45, predictionStore.getPrediction(user.getUserId()).join().getPredictedNextMonthExpense());
+		assertEquals(1, calls.get());
+		jdbcTemplate.update("DELETE FROM predictions WHERE user_id = ? AND target_month = ?", user.getUserId(), targetMonth());
+
+		// The recompute job also picks the user up, as they have no row for the new target month
+		predictionStore.recomputeStale();
+		assertEquals(user.getUserId() * 10.0, ((Number) row(targetMonth()).get("predicted_amount")).doubleValue());
+		assertEquals(1, rowCount(lastMonth));
+	}
+
+	private static void respond(HttpExchange exchange, String json) throws IOException {
+		byte[] body = (status == 200 ? json : "{\"error\": \"boom\"}").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static LocalDate targetMonth() {
+		return YearMonth.now().plusMonths(1).atDay(1);
+	}
+
+	private void insertRow(LocalDate month, double amount, boolean dirty) {
+		jdbcTemplate.update("INSERT INTO predictions (user_id, target_month, predicted_amount, dirty, changes, computed_at) " +
+				"VALUES (?, ?, ?, ?, 0, now())", user.getUserId(), month, amount, dirty);
+	}
+
+	private Map<String, Object> row(LocalDate month) {
+		List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+				"SELECT predicted_amount, dirty FROM predictions WHERE user_id = ? AND target_month = ?", user.getUserId(), month);
+		assertEquals(1, rows.size());
+		return rows.get(0);
+	}
+
+	private int rowCount(LocalDate month) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM predictions WHERE user_id = ? AND target_month = ?",
+				Integer.class, user.getUserId(), month);
+	}
+}
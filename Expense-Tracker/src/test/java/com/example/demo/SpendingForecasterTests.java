@@ -0,0 +1,152 @@
+package com.example.demo;
+
+import com.example.demo.dto.BudgetBurnRate;
+import com.example.demo.dto.CategoryForecast;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.entity.Budget;
+import com.example.demo.entity.Category;
+import com.example.demo.entity.User;
+import com.example.demo.services.BudgetService;
+import com.example.demo.services.ExpenseService;
+import com.example.demo.services.SpendingForecaster;
+import com.example.demo.services.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the Holt-Winters projections and budget burn rates against a user with a flat spending history,
+ * and that expense writes (current and earlier months) move them.
+ */
+@SpringBootTest
+class SpendingForecasterTests {
+
+	@Autowired
+	private SpendingForecaster spendingForecaster;
+	@Autowired
+	private ExpenseService expenseService;
+	@Autowired
+	private BudgetService budgetService;
+	@Autowired
+	private WalletService walletService;
+	@Autowired
+	private TestUsers testUsers;
+
+	private User user;
+	private Category category;
+	private Integer lastMonthExpenseId;
+
+	@BeforeEach
+	void createHistory() {
+		user = testUsers.createUser("forecast");
+		walletService.setBalance(user.getUserId(), new BigDecimal("10000.00"));
+
+		category = testUsers.createCategory("forecast");
+
+		// 100.00 in each of the last three months
+		YearMonth current = YearMonth.now();
+		lastMonthExpenseId = expenseService.createExpenses(List.of(
+				request("100.00", current.minusMonths(1).atDay(10)),
+				request("100.00", current.minusMonths(2).atDay(10)),
+				request("100.00", current.minusMonths(3).atDay(10)))).get(0).getExpenseId();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		testUsers.deleteUser(user);
+		testUsers.deleteCategory(category);
+	}
+
+	@Test
+	void flatHistoryProjectsTheSameMonthlyTotal() {
+		CategoryForecast forecast = forecast();
+
+		// Nothing spent yet this month: the rest of the month at 100.00 a month
+		assertEquals(money(0), forecast.getSpentThisMonth());
+		assertEquals(money(100 * (1 - elapsed())), forecast.getProjectedThisMonth());
+		assertTrue(forecast.getProjectedNextMonth().doubleValue() <= 100.0);
+	}
+
+	@Test
+	void currentMonthWritesUpdateTheState() {
+		BigDecimal before = forecast().getProjectedThisMonth();
+
+		expenseService.createExpenses(List.of(request("50.00", LocalDate.now())));
+
+		CategoryForecast after = forecast();
+		assertEquals(money(50), after.getSpentThisMonth());
+		assertEquals(before.add(money(50)), after.getProjectedThisMonth());
+	}
+
+	@Test
+	void changesToClosedMonthsRebuildTheState() {
+		BigDecimal before = forecast().getProjectedNextMonth();
+
+		// Last month drops to 0, so the level (and everything after it) goes down
+		expenseService.deleteExpense(lastMonthExpenseId);
+
+		assertTrue(forecast().getProjectedNextMonth().compareTo(before) < 0);
+	}
+
+	@Test
+	void budgetBurnRateProjectsToTheEndDate() {
+		LocalDate today = LocalDate.now();
+		expenseService.createExpenses(List.of(request("50.00", today)));
+		Budget budget = new Budget();
+		budget.setUser(user);
+		budget.setCategory(category);
+		budget.setBudgetAmount(new BigDecimal("1000.00"));
+		budget.setStartDate(today.withDayOfMonth(1));
+		budget.setEndDate(YearMonth.now().atEndOfMonth());
+		budgetService.createBudget(budget);
+
+		List<BudgetBurnRate> burnRates = spendingForecaster.budgetBurnRates(user.getUserId());
+
+		assertEquals(1, burnRates.size());
+		BudgetBurnRate burn = burnRates.get(0);
+		assertEquals(0, new BigDecimal("50.00").compareTo(burn.getSpent()));
+		assertEquals(money(50.0 / today.getDayOfMonth()), burn.getDailyBurnRate());
+		// 50.00 spent plus the model's 100.00 a month for the days left
+		int daysLeft = today.lengthOfMonth() - today.getDayOfMonth();
+		assertEquals(money(50 + 100.0 / today.lengthOfMonth() * daysLeft), burn.getProjectedSpend());
+		assertTrue(burn.isOnTrack());
+		assertNull(burn.getProjectedExhaustionDate());
+	}
+
+	private CategoryForecast forecast() {
+		List<CategoryForecast> forecasts = spendingForecaster.forecast(user.getUserId(), List.of(category.getCategoryId()));
+		assertEquals(1, forecasts.size());
+		return forecasts.get(0);
+	}
+
+	private static double elapsed() {
+		LocalDate today = LocalDate.now();
+		return today.getDayOfMonth() / (double) today.lengthOfMonth();
+	}
+
+	private static BigDecimal money(double value) {
+		return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+	}
+
+	private ExpenseRequest request(String amount, LocalDate date) {
+		ExpenseRequest request = new ExpenseRequest();
+		request.setUserId(user.getUserId());
+		request.setCategoryId(category.getCategoryId());
+		request.setExpenseAmount(new BigDecimal(amount));
+		request.setExpenseDate(date);
+		request.setNote("forecast");
+		return request;
+	}
+}
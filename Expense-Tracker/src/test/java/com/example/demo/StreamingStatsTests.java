@@ -0,0 +1,64 @@
+package com.example.demo;
+
+import com.example.demo.services.StreamingStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the running statistics with exact ones computed from all the values.
+ */
+class StreamingStatsTests {
+
+	@Test
+	void meanAndDeviationMatchTheExactValues() {
+		double[] values = {12.5, 40, 7.25, 19.99, 3, 150, 22.1, 18};
+		StreamingStats stats = new StreamingStats(0.95);
+		for (double value : values) {
+			stats.add(value);
+		}
+
+		double mean = Arrays.stream(values).average().orElseThrow();
+		double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / (values.length - 1);
+		assertEquals(values.length, stats.getCount());
+		assertEquals(mean, stats.getMean(), 1e-9);
+		assertEquals(Math.sqrt(variance), stats.getStdDev(), 1e-9);
+	}
+
+	@Test
+	void quantileTracksSkewedAmounts() {
+		// Log-normal, like expense amounts: mostly small, a long tail of large ones
+		Random random = new Random(42);
+		double[] values = new double[20_000];
+		StreamingStats stats = new StreamingStats(0.95);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.exp(3 + random.nextGaussian());
+			stats.add(values[i]);
+		}
+
+		Arrays.sort(values);
+		double exact = values[(int) (0.95 * (values.length - 1))];
+		assertEquals(exact, stats.getQuantile(), exact * 0.05);
+	}
+
+	@Test
+	void restoredStateContinuesWhereItLeftOff() {
+		StreamingStats original = new StreamingStats(0.5);
+		for (int i = 1; i <= 100; i++) {
+			original.add(i);
+		}
+		StreamingStats restored = new StreamingStats(0.5, original.getCount(), original.getMean(), original.getM2(),
+				original.getHeights(), original.getPositions());
+		for (int i = 101; i <= 200; i++) {
+			original.add(i);
+			restored.add(i);
+		}
+
+		assertEquals(original.getMean(), restored.getMean());
+		assertEquals(original.getQuantile(), restored.getQuantile());
+		assertEquals(100.5, restored.getQuantile(), 2.0);
+	}
+}
@@ -0,0 +1,255 @@
+package com.example.demo;
+
+import com.example.demo.entity.Category;
+import com.example.demo.services.CategoryService;
+import com.example.demo.services.PasswordHasher;
+import com.example.demo.services.UserService;
+import com.example.demo.services.WalletService;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bulk-loads a synthetic dataset for load tests: users, their expenses and one budget per user
+ * and category, written with COPY FROM STDIN rather than through JPA.
+ *
+ * Every user follows one month of fallback_dataset.csv (the ML module's training data): the
+ * category of each expense is drawn with that month's category shares, and the amounts are
+ * log-normal around the share of the month's total, so a user's monthly spending per category
+ * matches the CSV row on average. Expenses are spread evenly over the last `months` months.
+ *
+ * The users' emails start with the tag passed to load(), which is how the rollups, wallets and
+ * delete() find them. Loaded expenses do not go through the wallet; each user instead gets a
+ * starting balance covering their budgets plus a year of income.
+ */
+class SyntheticDataset {
+
+	static final Path DEFAULT_CSV = Path.of("src/main/java/com/example/demo/ML module/model/fallback_dataset.csv");
+
+	private static final int FLUSH_BYTES = 1 << 16;
+
+	/** What load() created. */
+	record Loaded(String tag, List<Integer> userIds, List<Integer> categoryIds, LocalDate firstDay, LocalDate lastDay,
+				  long expenses) {
+	}
+
+	// One CSV row: spending per category (same order as the header) and the income of that month
+	private record Profile(double income, double[] amounts, double total) {
+	}
+
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+	private final CategoryService categoryService;
+	private final WalletService walletService;
+	private final PasswordHasher passwordHasher;
+	private final UserService userService;
+
+	private final List<String> categoryNames = new ArrayList<>();
+	private final List<Profile> profiles = new ArrayList<>();
+
+	SyntheticDataset(DataSource dataSource, JdbcTemplate jdbcTemplate, CategoryService categoryService,
+					 WalletService walletService, PasswordHasher passwordHasher, UserService userService,
+					 Path csv) throws IOException {
+		this.dataSource = dataSource;
+		this.jdbcTemplate = jdbcTemplate;
+		this.categoryService = categoryService;
+		this.walletService = walletService;
+		this.passwordHasher = passwordHasher;
+		this.userService = userService;
+		readProfiles(csv);
+	}
+
+	// Month,Income,<categories...>,Total_Expense,Savings
+	private void readProfiles(Path csv) throws IOException {
+		List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+		String[] header = lines.get(0).split(",");
+		categoryNames.addAll(Arrays.asList(header).subList(2, header.length - 2));
+		for (String line : lines.subList(1, lines.size())) {
+			if (line.isBlank()) {
+				continue;
+			}
+			String[] fields = line.split(",");
+			double[] amounts = new double[categoryNames.size()];
+			double total = 0;
+			for (int i = 0; i < amounts.length; i++) {
+				amounts[i] = Double.parseDouble(fields[i + 2]);
+				total += amounts[i];
+			}
+			profiles.add(new Profile(Double.parseDouble(fields[1]), amounts, total));
+		}
+	}
+
+	/**
+	 * Loads `users` users with `expensesPerUser` expenses each over the last `months` months.
+	 * @param tag email prefix of the new users; must not be shared with other data
+	 */
+	Loaded load(String tag, int users, int expensesPerUser, int months, long seed) throws SQLException {
+		Random random = new Random(seed);
+		LocalDate lastDay = LocalDate.now();
+		LocalDate firstDay = lastDay.minusMonths(months).plusDays(1);
+		int days = (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+		double expensesPerMonth = (double) expensesPerUser / months;
+
+		// 1. Categories named after the CSV columns, created if missing
+		List<Integer> categoryIds = new ArrayList<>();
+		for (String name : categoryNames) {
+			Category category = categoryService.getCategoryByName(name).orElseGet(() -> {
+				Category created = new Category();
+				created.setCategoryName(name);
+				return categoryService.createCategory(created);
+			});
+			categoryIds.add(category.getCategoryId());
+		}
+
+		// 2. Users, then their generated ids in the order they were copied
+		String password = passwordHasher.encode("loadtest");
+		LocalDateTime now = LocalDateTime.now();
+		try (Connection connection = dataSource.getConnection()) {
+			CopyWriter copy = new CopyWriter(connection, "COPY users (name, email, password, created_at) FROM STDIN");
+			for (int u = 0; u < users; u++) {
+				copy.row("Load test " + u, tag + u + "@example.com", password, now.toString());
+			}
+			copy.end();
+		}
+		List<Integer> userIds = jdbcTemplate.queryForList(
+				"SELECT user_id FROM users WHERE email LIKE ? ORDER BY user_id", Integer.class, tag + "%");
+
+		// 3. Expenses and budgets; expense ids come from a block reserved on expenses_seq (increment 50)
+		//    past anything Hibernate may already hold
+		long total = (long) users * expensesPerUser;
+		long blocks = (total + 49) / 50;
+		long lastId = jdbcTemplate.queryForObject(
+				"SELECT setval('expenses_seq', nextval('expenses_seq') + ?)", Long.class, blocks * 50);
+		long nextId = lastId - blocks * 50 + 1;
+		Profile[] userProfiles = new Profile[users];
+		try (Connection connection = dataSource.getConnection()) {
+			CopyWriter expenses = new CopyWriter(connection, "COPY expenses (expense_id, user_id, category_id, "
+					+ "expense_amount, expense_date, note, anomalous, created_at) FROM STDIN");
+			for (int u = 0; u < users; u++) {
+				Profile profile = profiles.get(random.nextInt(profiles.size()));
+				userProfiles[u] = profile;
+				String userId = userIds.get(u).toString();
+				for (int e = 0; e < expensesPerUser; e++) {
+					int c = pickCategory(profile, random);
+					// Mean of exp(N(-0.18, 0.6)) is 1, so category totals per month match the profile on average
+					double amount = profile.total() / expensesPerMonth * Math.exp(0.6 * random.nextGaussian() - 0.18);
+					LocalDate day = firstDay.plusDays(random.nextInt(days));
+					expenses.row(Long.toString(nextId++), userId, categoryIds.get(c).toString(),
+							BigDecimal.valueOf(Math.max(Math.round(amount * 100), 1), 2).toPlainString(),
+							day.toString(), categoryNames.get(c), "f", now.toString());
+				}
+			}
+			expenses.end();
+
+			CopyWriter budgets = new CopyWriter(connection,
+					"COPY budget (user_id, category_id, budget_amount, start_date, end_date, created_at) FROM STDIN");
+			for (int u = 0; u < users; u++) {
+				Profile profile = userProfiles[u];
+				for (int c = 0; c < categoryIds.size(); c++) {
+					budgets.row(userIds.get(u).toString(), categoryIds.get(c).toString(),
+							BigDecimal.valueOf(Math.round(profile.amounts()[c] * months * 1.1)).toPlainString(),
+							firstDay.toString(), lastDay.toString(), now.toString());
+				}
+			}
+			budgets.end();
+		}
+
+		// 4. What the services keep next to the rows: rollups, budget allocations and wallets
+		String tagged = "SELECT user_id FROM users WHERE email LIKE ?";
+		jdbcTemplate.update("INSERT INTO daily_spending (user_id, category_id, spend_date, total_amount, transaction_count) "
+				+ "SELECT user_id, category_id, expense_date, SUM(expense_amount), COUNT(*) FROM expenses "
+				+ "WHERE user_id IN (" + tagged + ") GROUP BY user_id, category_id, expense_date", tag + "%");
+		jdbcTemplate.update("INSERT INTO monthly_spending (user_id, category_id, spend_month, total_amount, transaction_count) "
+				+ "SELECT user_id, category_id, CAST(date_trunc('month', expense_date) AS date), SUM(expense_amount), COUNT(*) "
+				+ "FROM expenses WHERE user_id IN (" + tagged + ") "
+				+ "GROUP BY user_id, category_id, CAST(date_trunc('month', expense_date) AS date)", tag + "%");
+		jdbcTemplate.update("INSERT INTO budget_allocations (user_id, allocated_amount) "
+				+ "SELECT user_id, SUM(budget_amount) FROM budget WHERE user_id IN (" + tagged + ") GROUP BY user_id", tag + "%");
+		for (int u = 0; u < users; u++) {
+			Profile profile = userProfiles[u];
+			walletService.setBalance(userIds.get(u),
+					BigDecimal.valueOf(Math.round(profile.income() * 12 + profile.total() * months * 1.1)));
+		}
+		jdbcTemplate.execute("ANALYZE expenses");
+		jdbcTemplate.execute("ANALYZE budget");
+		jdbcTemplate.execute("ANALYZE daily_spending");
+		jdbcTemplate.execute("ANALYZE monthly_spending");
+
+		return new Loaded(tag, userIds, categoryIds, firstDay, lastDay, total);
+	}
+
+	/** Removes the tagged users and everything that belongs to them. */
+	void delete(String tag) {
+		List<Integer> userIds = jdbcTemplate.queryForList(
+				"SELECT user_id FROM users WHERE email LIKE ?", Integer.class, tag + "%");
+		String users = "(SELECT user_id FROM users WHERE email LIKE ?)";
+		for (String table : TestUsers.USER_TABLES) {
+			jdbcTemplate.update("DELETE FROM " + table + " WHERE user_id IN " + users, tag + "%");
+		}
+		userIds.forEach(userService::deleteUser);
+	}
+
+	private static int pickCategory(Profile profile, Random random) {
+		double target = random.nextDouble() * profile.total();
+		double[] amounts = profile.amounts();
+		for (int i = 0; i < amounts.length - 1; i++) {
+			target -= amounts[i];
+			if (target < 0) {
+				return i;
+			}
+		}
+		return amounts.length - 1;
+	}
+
+	// Rows in COPY's text format, sent to the server in 64 KB chunks
+	private static final class CopyWriter {
+
+		private final CopyIn copyIn;
+		private final StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 1024);
+
+		CopyWriter(Connection connection, String sql) throws SQLException {
+			this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+		}
+
+		// Values must not contain tabs, newlines or backslashes
+		void row(String... values) throws SQLException {
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					buffer.append('\t');
+				}
+				buffer.append(values[i]);
+			}
+			buffer.append('\n');
+			if (buffer.length() >= FLUSH_BYTES) {
+				flush();
+			}
+		}
+
+		void end() throws SQLException {
+			flush();
+			copyIn.endCopy();
+		}
+
+		private void flush() throws SQLException {
+			byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+			copyIn.writeToCopy(bytes, 0, bytes.length);
+			buffer.setLength(0);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.demo;
+
+import com.example.demo.entity.Category;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.services.CategoryService;
+import com.example.demo.services.UserService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the throwaway users and categories the database-backed tests work on, and removes them
+ * again: first the rows keyed by the user in USER_TABLES, then the user through
+ * UserService.deleteUser, which also drops what the services keep in memory (wallet balance,
+ * predictions, forecasts, anomaly statistics).
+ */
+@Component
+class TestUsers {
+
+	/** Every table with rows keyed by user_id, children before what they reference. */
+	static final List<String> USER_TABLES = List.of("expenses", "budget", "budget_allocations", "daily_spending",
+			"monthly_spending", "wallet_ledger", "wallet_snapshots", "wallet_balances", "predictions", "spending_stats");
+
+	private final UserRepository userRepository;
+	private final UserService userService;
+	private final CategoryService categoryService;
+	private final JdbcTemplate jdbcTemplate;
+
+	TestUsers(UserRepository userRepository, UserService userService, CategoryService categoryService,
+			  JdbcTemplate jdbcTemplate) {
+		this.userRepository = userRepository;
+		this.userService = userService;
+		this.categoryService = categoryService;
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/** A saved user with a unique email starting with `name`. */
+	User createUser(String name) {
+		User user = new User();
+		user.setName(name);
+		user.setEmail(name + "-" + System.nanoTime() + "@example.com");
+		user.setPassword("unused");
+		return userRepository.save(user);
+	}
+
+	/** A saved category with a unique name starting with `name`. */
+	Category createCategory(String name) {
+		Category category = new Category();
+		category.setCategoryName(name + "-" + System.nanoTime());
+		return categoryService.createCategory(category);
+	}
+
+	void deleteUser(User user) {
+		for (String table : USER_TABLES) {
+			jdbcTemplate.update("DELETE FROM " + table + " WHERE user_id = ?", user.getUserId());
+		}
+		userService.deleteUser(user.getUserId());
+	}
+
+	void deleteCategory(Category category) {
+		categoryService.deleteCategory(category.getCategoryId());
+	}
+}
@@ -0,0 +1,42 @@
+package com.example.demo;
+
+import com.example.demo.services.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Burst, refusal, refill and the reported wait of a token bucket, on a made-up clock.
+ */
+class TokenBucketTests {
+
+	@Test
+	void allowsABurstThenRefillsAtTheRate() {
+		// 3 tokens, one every 500 ms
+		TokenBucket bucket = new TokenBucket(3, 2.0, 0);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, bucket.tryAcquire(0));
+		}
+		assertEquals(500, bucket.tryAcquire(0));
+		assertEquals(200, bucket.tryAcquire(300));
+
+		assertEquals(0, bucket.tryAcquire(500));
+		assertTrue(bucket.tryAcquire(500) > 0);
+	}
+
+	@Test
+	void neverHoldsMoreThanItsCapacity() {
+		TokenBucket bucket = new TokenBucket(2, 1.0, 0);
+		bucket.tryAcquire(0);
+		assertFalse(bucket.isFull(0));
+
+		// An hour idle still only allows a burst of two
+		assertTrue(bucket.isFull(3_600_000));
+		assertEquals(0, bucket.tryAcquire(3_600_000));
+		assertEquals(0, bucket.tryAcquire(3_600_000));
+		assertTrue(bucket.tryAcquire(3_600_000) > 0);
+	}
+}
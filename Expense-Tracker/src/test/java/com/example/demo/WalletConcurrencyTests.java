@@ -0,0 +1,189 @@
+package com.example.demo;
+
+import com.example.demo.entity.Category;
+import com.example.demo.entity.Expense;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.services.ExpenseService;
+import com.example.demo.services.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers a single wallet from many threads through ExpenseService and checks that
+ * no debit is lost and the wallet never goes below zero, also while snapshots are being taken.
+ * Overdrafts are refused by the conditional UPDATE of the wallet_balances row, whatever balance
+ * this instance has cached.
+ */
+// Every new ledger entry is due for a snapshot
+@SpringBootTest(properties = "wallet.snapshot.min-entries=1")
+class WalletConcurrencyTests {
+
+	private static final int THREADS = 16;
+	private static final int EXPENSES_PER_THREAD = 50;
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	@Autowired
+	private ExpenseService expenseService;
+	@Autowired
+	private WalletService walletService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TestUsers testUsers;
+
+	private User user;
+	private Category category;
+
+	@BeforeEach
+	void createUserAndCategory() {
+		user = testUsers.createUser("wallet-stress");
+
+		category = testUsers.createCategory("wallet-stress");
+	}
+
+	@AfterEach
+	void cleanUp() {
+		testUsers.deleteUser(user);
+		testUsers.deleteCategory(category);
+	}
+
+	@Test
+	void concurrentDebitsAreNeverLost() throws Exception {
+		walletService.setBalance(user.getUserId(), new BigDecimal("5000.00"));
+
+		int succeeded = hammer();
+
+		assertEquals(THREADS * EXPENSES_PER_THREAD, succeeded);
+		BigDecimal expected = new BigDecimal("5000.00").subtract(AMOUNT.multiply(BigDecimal.valueOf(succeeded)));
+		assertBalance(expected);
+	}
+
+	@Test
+	void concurrentDebitsStopExactlyAtZero() throws Exception {
+		// Enough for only a quarter of the attempts
+		int affordable = THREADS * EXPENSES_PER_THREAD / 4;
+		walletService.setBalance(user.getUserId(), AMOUNT.multiply(BigDecimal.valueOf(affordable)));
+
+		int succeeded = hammer();
+
+		assertEquals(affordable, succeeded);
+		assertBalance(BigDecimal.ZERO);
+		Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expenses WHERE user_id = ?", Integer.class, user.getUserId());
+		assertEquals(affordable, rows);
+	}
+
+	@Test
+	void theDatabaseRowDecidesNotTheCachedBalance() throws Exception {
+		walletService.setBalance(user.getUserId(), new BigDecimal("5000.00"));
+		walletService.getBalance(user.getUserId());
+		// Another instance spends most of the wallet; this instance still has 5000.00 cached
+		int affordable = THREADS * EXPENSES_PER_THREAD / 4;
+		jdbcTemplate.update("UPDATE wallet_balances SET balance = ? WHERE user_id = ?",
+				AMOUNT.multiply(BigDecimal.valueOf(affordable)), user.getUserId());
+
+		int succeeded = hammer();
+
+		assertEquals(affordable, succeeded);
+		assertEquals(0, BigDecimal.ZERO.compareTo(jdbcTemplate.queryForObject(
+				"SELECT balance FROM wallet_balances WHERE user_id = ?", BigDecimal.class, user.getUserId())));
+	}
+
+	@Test
+	void snapshotsTakenDuringWritesMissNoEntry() throws Exception {
+		walletService.setBalance(user.getUserId(), new BigDecimal("5000.00"));
+		AtomicBoolean writing = new AtomicBoolean(true);
+		Thread snapshotter = new Thread(() -> {
+			while (writing.get()) {
+				walletService.takeSnapshots();
+			}
+		});
+		try {
+			snapshotter.start();
+			hammer();
+		} finally {
+			writing.set(false);
+			snapshotter.join();
+		}
+		walletService.takeSnapshots();
+
+		BigDecimal expected = new BigDecimal("5000.00").subtract(AMOUNT.multiply(BigDecimal.valueOf(THREADS * EXPENSES_PER_THREAD)));
+		assertBalance(expected);
+		assertEquals(0, expected.compareTo(walletService.getBalanceAt(user.getUserId(), LocalDateTime.now())));
+	}
+
+	// The balance row, the sum of the ledger and the balance served by WalletService must all match
+	private void assertBalance(BigDecimal expected) {
+		assertEquals(0, expected.compareTo(jdbcTemplate.queryForObject(
+				"SELECT balance FROM wallet_balances WHERE user_id = ?", BigDecimal.class, user.getUserId())));
+		assertEquals(0, expected.compareTo(jdbcTemplate.queryForObject(
+				"SELECT SUM(amount) FROM wallet_ledger WHERE user_id = ?", BigDecimal.class, user.getUserId())));
+		assertEquals(0, expected.compareTo(walletService.getBalance(user.getUserId())));
+	}
+
+	// Every thread creates EXPENSES_PER_THREAD expenses as fast as it can; returns how many were accepted
+	private int hammer() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger succeeded = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		List<Future<?>> workers = new ArrayList<>();
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				workers.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < EXPENSES_PER_THREAD; i++) {
+						Expense expense = new Expense();
+						expense.setUser(userRepository.findById(user.getUserId()).orElseThrow());
+						expense.setCategory(category);
+						expense.setExpenseAmount(AMOUNT);
+						expense.setExpenseDate(LocalDate.of(2025, 1, 1).plusDays(i % 28));
+						expense.setNote("stress " + i);
+						try {
+							expenseService.createExpense(expense);
+							succeeded.incrementAndGet();
+						} catch (RuntimeException e) {
+							assertTrue(e.getMessage().startsWith("Insufficient wallet balance"), e.getMessage());
+							rejected.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			long startNanos = System.nanoTime();
+			start.countDown();
+			for (Future<?> worker : workers) {
+				worker.get(2, TimeUnit.MINUTES);
+			}
+			long nanos = System.nanoTime() - startNanos;
+			System.out.printf("wallet stress: %d threads, %d accepted, %d rejected in %d ms (%.0f ops/s)%n",
+					THREADS, succeeded.get(), rejected.get(), nanos / 1_000_000,
+					THREADS * EXPENSES_PER_THREAD / (nanos / 1e9));
+		} finally {
+			pool.shutdownNow();
+		}
+		return succeeded.get();
+	}
+}
@@ -1,58 +1,108 @@
 let allBudgets = [];
-let allUsers = [];
+let modalUsers = []; // Users matching the modal's search box, plus the one being edited
 let allCategories = [];
 const modal = document.getElementById('budgetModal');
+let nextBudgetsAfter = null; // Cursor for the next page of budgets, null when there are no more
+let budgetUserFilter = null;   // User ID typed into the search box, filtered server-side
 
 document.addEventListener('DOMContentLoaded', () => {
     Promise.all([
         fetchAllBudgets(),
-        loadAllUsers(),
+        loadModalUsers(),
         loadAllCategories()
     ]).then(() => {
+        attachUserSearch('modalUserSearch', showModalUsers); // From common.js
         populateModalDropdowns();
     }).catch(error => {
         console.error("Error during initial data load:", error);
     });
 });
 
+/**
+ * Loads the first page of budgets (respecting the current user filter) and renders it.
+ */
 async function fetchAllBudgets() {
     showLoader();
     const tableBody = document.getElementById('budgetsTableBody');
     tableBody.innerHTML = `<tr><td colspan="8">Loading budgets...</td></tr>`;
 
     try {
-        const response = await fetch(BUDGET_API_URL);
-        if (response.status === 204) {
+        const page = await fetchPage(budgetsListUrl()); // From common.js
+        allBudgets = page.items;
+        nextBudgetsAfter = page.nextAfter;
+
+        if (allBudgets.length === 0 && budgetUserFilter === null) {
             tableBody.innerHTML = `<tr><td colspan="8">No budgets found in the system.</td></tr>`;
-            allBudgets = [];
-            return;
+        } else {
+            renderBudgetsTable(allBudgets);
         }
-        if (!response.ok) throw new Error('Failed to fetch budgets');
-        
-        allBudgets = await response.json();
-        renderBudgetsTable(allBudgets);
     } catch (error) {
         console.error('Error fetching budgets:', error);
         tableBody.innerHTML = `<tr><td colspan="8">Error loading budgets.</td></tr>`;
     } finally {
+        updateLoadMoreButton();
         hideLoader();
     }
 }
 
-async function loadAllUsers() {
+/**
+ * Appends the next page of budgets to the table.
+ */
+async function loadMoreBudgets() {
+    if (nextBudgetsAfter === null) return;
+    showLoader();
     try {
-        const response = await fetch(USER_API_URL);
-        if (response.status === 204) {
-            allUsers = [];
-            return;
-        }
-        if (!response.ok) throw new Error('Failed to fetch users');
-        allUsers = await response.json();
+        const page = await fetchPage(budgetsListUrl(), nextBudgetsAfter); // From common.js
+        allBudgets = allBudgets.concat(page.items);
+        nextBudgetsAfter = page.nextAfter;
+        renderBudgetsTable(allBudgets);
+    } catch (error) {
+        console.error('Error fetching budgets:', error);
+        alert(`Error: ${error.message}`);
+    } finally {
+        updateLoadMoreButton();
+        hideLoader();
+    }
+}
+
+function budgetsListUrl() {
+    return budgetUserFilter === null ? BUDGET_API_URL : `${BUDGET_API_URL}?userId=${budgetUserFilter}`;
+}
+
+function updateLoadMoreButton() {
+    document.getElementById('loadMoreBudgets').classList.toggle('hidden', nextBudgetsAfter === null);
+}
+
+/**
+ * Loads the users matching the modal's search box (from common.js) into the user dropdown.
+ */
+async function loadModalUsers() {
+    try {
+        showModalUsers(await searchUsers(document.getElementById('modalUserSearch').value.trim()));
     } catch (error) {
         console.error('Error loading users:', error);
     }
 }
 
+function showModalUsers(users) {
+    modalUsers = users;
+    renderUserOptions('modalUser', modalUsers); // From common.js
+    onUserChange();
+}
+
+/**
+ * Makes sure the given user is in the dropdown, fetching them if the search did not return them.
+ */
+async function includeModalUser(userId) {
+    if (modalUsers.some(u => u.userID === userId)) return;
+    try {
+        modalUsers = [await fetchUser(userId)].concat(modalUsers); // From common.js
+        renderUserOptions('modalUser', modalUsers);
+    } catch (error) {
+        console.error('Error loading user:', error);
+    }
+}
+
 async function loadAllCategories() {
     try {
         const response = await fetch(CATEGORY_API_URL);
@@ -68,13 +118,7 @@ async function loadAllCategories() {
 }
 
 function populateModalDropdowns() {
-    const userDropdown = document.getElementById('modalUser');
     const categoryDropdown = document.getElementById('modalCategory');
-    
-    userDropdown.innerHTML = '<option value="">Select a User</option>';
-    allUsers.forEach(user => {
-        userDropdown.innerHTML += `<option value="${user.userID}">${user.name} (ID: ${user.userID})</option>`;
-    });
 
     categoryDropdown.innerHTML = '<option value="">Select a Category</option>';
     allCategories.forEach(category => {
@@ -112,24 +156,17 @@ function renderBudgetsTable(budgets) {
 
 function filterBudgets() {
     const searchTerm = document.getElementById('budgetSearch').value.trim();
-    
-    if (!searchTerm) {
-        renderBudgetsTable(allBudgets);
-        return;
-    }
-    
-    const searchId = parseInt(searchTerm);
-    const filteredBudgets = allBudgets.filter(budget => {
-        const userId = budget.user ? budget.user.userId : null;
-        return userId === searchId;
-    });
-    
-    renderBudgetsTable(filteredBudgets);
+    budgetUserFilter = searchTerm ? parseInt(searchTerm) : null;
+    fetchAllBudgets();
 }
 
+/**
+ * Clears the search input and shows all budgets.
+ */
 function clearSearch() {
     document.getElementById('budgetSearch').value = '';
-    renderBudgetsTable(allBudgets);
+    budgetUserFilter = null;
+    fetchAllBudgets();
 }
 
 async function deleteBudget(budgetId) {
@@ -156,7 +193,7 @@ function openCreateModal() {
     modal.style.display = 'flex';
 }
 
-function openEditModal(budgetId) {
+async function openEditModal(budgetId) {
     const budget = allBudgets.find(b => b.budgetId === budgetId);
     if (!budget) {
         alert('Error: Could not find budget data.');
@@ -166,6 +203,7 @@ function openEditModal(budgetId) {
     document.getElementById('budgetForm').reset();
     document.getElementById('modalTitle').textContent = `Edit Budget ID: ${budget.budgetId}`;
     document.getElementById('modalBudgetId').value = budget.budgetId;
+    await includeModalUser(budget.user.userId);
     document.getElementById('modalUser').value = budget.user.userId;
     document.getElementById('modalCategory').value = budget.category.categoryId;
     document.getElementById('modalAmount').value = budget.budgetAmount;
@@ -194,7 +232,7 @@ function onUserChange() {
         return;
     }
     
-    const user = allUsers.find(u => u.userID === parseInt(userId));
+    const user = modalUsers.find(u => u.userID === parseInt(userId));
     
     if (user) {
         walletBalanceEl.textContent = formatCurrency(user.walletBalance || 0);
@@ -220,7 +258,7 @@ async function submitBudgetForm() {
         return;
     }
 
-    const user = allUsers.find(u => u.userID === parseInt(userId));
+    const user = modalUsers.find(u => u.userID === parseInt(userId));
     
     let existingBudgetSum = 0;
     allBudgets.forEach(b => {
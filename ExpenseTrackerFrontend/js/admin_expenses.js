@@ -1,18 +1,21 @@
 // Global variables
 let allExpenses = [];
-let allUsers = [];
+let modalUsers = []; // Users matching the modal's search box, plus the one being edited
 let allCategories = [];
 let allBudgets = []; // <-- NEW: To store all budget data
 const modal = document.getElementById('expenseModal');
+let nextExpensesAfter = null; // Cursor for the next page of expenses, null when there are no more
+let expenseUserFilter = null;   // User ID typed into the search box, filtered server-side
 
 // Initialize page
 document.addEventListener('DOMContentLoaded', () => {
     Promise.all([
         fetchAllExpenses(),
-        loadAllUsers(),
+        loadModalUsers(),
         loadAllCategories(),
         loadAllBudgets() 
     ]).then(() => {
+        attachUserSearch('modalUserSearch', showModalUsers); // From common.js
         populateModalDropdowns();
     }).catch(error => {
         console.error("Error during initial data load:", error);
@@ -20,45 +23,92 @@ document.addEventListener('DOMContentLoaded', () => {
 });
 
 
+/**
+ * Loads the first page of expenses (respecting the current user filter) and renders it.
+ */
 async function fetchAllExpenses() {
     showLoader();
     const tableBody = document.getElementById('expensesTableBody');
     tableBody.innerHTML = `<tr><td colspan="8">Loading expenses...</td></tr>`;
 
     try {
-        const response = await fetch(EXPENSE_API_URL);
-        if (response.status === 204) {
+        const page = await fetchPage(expensesListUrl()); // From common.js
+        allExpenses = page.items;
+        nextExpensesAfter = page.nextAfter;
+
+        if (allExpenses.length === 0 && expenseUserFilter === null) {
             tableBody.innerHTML = `<tr><td colspan="8">No expenses found in the system.</td></tr>`;
-            allExpenses = [];
-            return;
+        } else {
+            renderExpensesTable(allExpenses);
         }
-        if (!response.ok) throw new Error('Failed to fetch expenses');
-        
-        allExpenses = await response.json();
-        renderExpensesTable(allExpenses);
     } catch (error) {
         console.error('Error fetching expenses:', error);
         tableBody.innerHTML = `<tr><td colspan="8">Error loading expenses.</td></tr>`;
     } finally {
+        updateLoadMoreButton();
+        hideLoader();
+    }
+}
+
+/**
+ * Appends the next page of expenses to the table.
+ */
+async function loadMoreExpenses() {
+    if (nextExpensesAfter === null) return;
+    showLoader();
+    try {
+        const page = await fetchPage(expensesListUrl(), nextExpensesAfter); // From common.js
+        allExpenses = allExpenses.concat(page.items);
+        nextExpensesAfter = page.nextAfter;
+        renderExpensesTable(allExpenses);
+    } catch (error) {
+        console.error('Error fetching expenses:', error);
+        alert(`Error: ${error.message}`);
+    } finally {
+        updateLoadMoreButton();
         hideLoader();
     }
 }
 
+function expensesListUrl() {
+    return expenseUserFilter === null ? EXPENSE_API_URL : `${EXPENSE_API_URL}?userId=${expenseUserFilter}`;
+}
+
+function updateLoadMoreButton() {
+    document.getElementById('loadMoreExpenses').classList.toggle('hidden', nextExpensesAfter === null);
+}
+
 
-async function loadAllUsers() {
+/**
+ * Loads the users matching the modal's search box (from common.js) into the user dropdown.
+ */
+async function loadModalUsers() {
     try {
-        const response = await fetch(USER_API_URL);
-        if (response.status === 204) {
-            allUsers = [];
-            return;
-        }
-        if (!response.ok) throw new Error('Failed to fetch users');
-        allUsers = await response.json();
+        showModalUsers(await searchUsers(document.getElementById('modalUserSearch').value.trim()));
     } catch (error) {
         console.error('Error loading users:', error);
     }
 }
 
+function showModalUsers(users) {
+    modalUsers = users;
+    renderUserOptions('modalUser', modalUsers); // From common.js
+    onModalSelectionChange();
+}
+
+/**
+ * Makes sure the given user is in the dropdown, fetching them if the search did not return them.
+ */
+async function includeModalUser(userId) {
+    if (modalUsers.some(u => u.userID === userId)) return;
+    try {
+        modalUsers = [await fetchUser(userId)].concat(modalUsers); // From common.js
+        renderUserOptions('modalUser', modalUsers);
+    } catch (error) {
+        console.error('Error loading user:', error);
+    }
+}
+
 
 async function loadAllCategories() {
     try {
@@ -95,16 +145,10 @@ async function loadAllBudgets() {
 // --- END NEW FUNCTION ---
 
 /**
- * Populates the User and Category dropdowns in the modal.
+ * Populates the Category dropdown in the modal (users come from the search box).
  */
 function populateModalDropdowns() {
-    const userDropdown = document.getElementById('modalUser');
     const categoryDropdown = document.getElementById('modalCategory');
-    
-    userDropdown.innerHTML = '<option value="">Select a User</option>';
-    allUsers.forEach(user => {
-        userDropdown.innerHTML += `<option value="${user.userID}">${user.name} (ID: ${user.userID})</option>`;
-    });
 
     categoryDropdown.innerHTML = '<option value="">Select a Category</option>';
     allCategories.forEach(category => {
@@ -148,19 +192,8 @@ function renderExpensesTable(expenses) {
  */
 function filterExpenses() {
     const searchTerm = document.getElementById('expenseSearch').value.trim();
-    
-    if (!searchTerm) {
-        renderExpensesTable(allExpenses);
-        return;
-    }
-    
-    const searchId = parseInt(searchTerm);
-    const filteredExpenses = allExpenses.filter(expense => {
-        const userId = expense.user ? expense.user.userId : null;
-        return userId === searchId;
-    });
-    
-    renderExpensesTable(filteredExpenses);
+    expenseUserFilter = searchTerm ? parseInt(searchTerm) : null;
+    fetchAllExpenses();
 }
 
 /**
@@ -168,7 +201,8 @@ function filterExpenses() {
  */
 function clearSearch() {
     document.getElementById('expenseSearch').value = '';
-    renderExpensesTable(allExpenses);
+    expenseUserFilter = null;
+    fetchAllExpenses();
 }
 
 /**
@@ -188,7 +222,7 @@ async function deleteExpense(expenseId) {
         
         // Refresh all data
         await fetchAllExpenses();
-        await loadAllUsers(); // Reload users to get updated wallet balance
+        await loadModalUsers(); // Reload users to get updated wallet balance
 
     } catch (error) {
         console.error('Error deleting expense:', error);
@@ -216,7 +250,7 @@ function openCreateModal() {
 /**
  * Opens the modal in "Edit" mode and populates it with data.
  */
-function openEditModal(expenseId) {
+async function openEditModal(expenseId) {
     const expense = allExpenses.find(e => e.expenseId === expenseId);
     if (!expense) {
         alert('Error: Could not find expense data.');
@@ -226,6 +260,7 @@ function openEditModal(expenseId) {
     document.getElementById('expenseForm').reset();
     document.getElementById('modalTitle').textContent = `Edit Expense ID: ${expense.expenseId}`;
     document.getElementById('modalExpenseId').value = expense.expenseId;
+    await includeModalUser(expense.user.userId);
     document.getElementById('modalUser').value = expense.user.userId;
     document.getElementById('modalCategory').value = expense.category.categoryId;
     document.getElementById('modalAmount').value = expense.expenseAmount;
@@ -262,7 +297,7 @@ function onModalSelectionChange() {
     if (!userId) {
         walletDisplay.classList.add('hidden');
     } else {
-        const user = allUsers.find(u => u.userID === parseInt(userId));
+        const user = modalUsers.find(u => u.userID === parseInt(userId));
         if (user) {
             walletBalanceEl.textContent = formatCurrency(user.walletBalance || 0);
             walletBalanceEl.className = (user.walletBalance || 0) < 0 ? 'wallet-amount negative' : 'wallet-amount';
@@ -333,7 +368,7 @@ async function submitExpenseForm() {
     }
 
     const isEditing = expenseId !== '';
-    const user = allUsers.find(u => u.userID === parseInt(userId));
+    const user = modalUsers.find(u => u.userID === parseInt(userId));
     const newExpenseAmount = parseFloat(amount);
     const walletBalance = user ? (user.walletBalance || 0) : 0;
 
@@ -379,7 +414,7 @@ async function submitExpenseForm() {
         }
         
         closeExpenseModal();
-        await loadAllUsers();
+        await loadModalUsers();
         await loadAllBudgets();
         await fetchAllExpenses(); 
         
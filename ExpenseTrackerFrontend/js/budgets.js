@@ -53,13 +53,7 @@ async function loadUserExpenses() {
     const user = getAuthInfo();
     if (!user) return;
     try {
-        const response = await fetch(`${EXPENSE_API_URL}/user/${user.userID}`); // From common.js
-        if (response.status === 204) {
-            userExpenses = [];
-            return;
-        }
-        if (!response.ok) throw new Error('Failed to fetch expenses');
-        userExpenses = await response.json();
+        userExpenses = await fetchAllPages(`${EXPENSE_API_URL}/user/${user.userID}`); // From common.js
     } catch (error) {
         console.error('Error loading expenses:', error);
     }
@@ -78,19 +72,18 @@ async function fetchAllData() {
 
     try {
         // Fetch budgets and expenses at the same time
-        const [budgetResponse, _] = await Promise.all([
-            fetch(`${BUDGET_API_URL}/user/${user.userID}`), // From common.js
+        const [budgets, _] = await Promise.all([
+            fetchAllPages(`${BUDGET_API_URL}/user/${user.userID}`), // From common.js
             loadUserExpenses() // Populates the global userExpenses array
         ]);
         
-        if (budgetResponse.status === 204) {
+        if (budgets.length === 0) {
              container.innerHTML = "<p class='empty-message'>No budgets found. Create one!</p>";
              userBudgets = []; // Ensure budgets array is empty
              return;
         }
-        if (!budgetResponse.ok) throw new Error('Failed to load budgets.');
 
-        userBudgets = await budgetResponse.json(); // Store budgets globally
+        userBudgets = budgets; // Store budgets globally
         container.innerHTML = ""; // Clear "Loading"
 
         // Now render the budget cards
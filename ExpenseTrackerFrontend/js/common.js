@@ -10,6 +10,10 @@ const REPORT_API_URL = `${BASE_API_URL}/api/reports`;
 // --- NEW AI API URL ---
 const AI_API_URL = `${BASE_API_URL}/api/ai`;
 
+// List endpoints return one page at a time; this header holds the id to pass as ?after= for the next page
+const NEXT_PAGE_HEADER = 'X-Next-After';
+const PAGE_SIZE = 50;
+
 
 // --- Loader Functions ---
 const loader = document.getElementById('loader');
@@ -66,6 +70,106 @@ function setAuthInfo(user) {
 }
 
 
+// --- Pagination Helpers ---
+
+/**
+ * Fetches one page from a keyset-paginated list endpoint.
+ * @param {string} url - The list URL (may already contain query params)
+ * @param {number | null} after - The id returned by the previous page, or null for the first page
+ * @returns {Promise<{items: Array, nextAfter: string | null}>}
+ */
+async function fetchPage(url, after = null, limit = PAGE_SIZE) {
+    const pageUrl = new URL(url);
+    pageUrl.searchParams.set('limit', limit);
+    if (after !== null) pageUrl.searchParams.set('after', after);
+
+    const response = await fetch(pageUrl);
+    if (response.status === 204) return { items: [], nextAfter: null };
+    if (!response.ok) throw new Error(`Failed to fetch ${url}`);
+
+    return {
+        items: await response.json(),
+        nextAfter: response.headers.get(NEXT_PAGE_HEADER)
+    };
+}
+
+/**
+ * Follows the pages of a list endpoint until the end and returns every row.
+ * Only use this for lists that are naturally small (one user's data). For users, use searchUsers.
+ */
+async function fetchAllPages(url) {
+    let items = [];
+    let after = null;
+    do {
+        const page = await fetchPage(url, after, 500);
+        items = items.concat(page.items);
+        after = page.nextAfter;
+    } while (after !== null);
+    return items;
+}
+
+
+// --- User Search (admin modals) ---
+
+const USER_SEARCH_LIMIT = 20;
+
+/**
+ * Looks up users by name or email on the server (?search=), one small page at a time,
+ * instead of loading every user.
+ * @param {string} term - Part of a name or email; empty for the first users by id
+ * @returns {Promise<Array>} At most USER_SEARCH_LIMIT users
+ */
+async function searchUsers(term) {
+    const url = new URL(USER_API_URL);
+    if (term) url.searchParams.set('search', term);
+    const page = await fetchPage(url.toString(), null, USER_SEARCH_LIMIT);
+    return page.items;
+}
+
+/**
+ * Fetches one user (with the current wallet balance) by id.
+ */
+async function fetchUser(userId) {
+    const response = await fetch(`${USER_API_URL}/${userId}`);
+    if (!response.ok) throw new Error(`Failed to fetch user ${userId}`);
+    return response.json();
+}
+
+/**
+ * Runs onResults with the users matching the search box, each time typing pauses.
+ * @param {string} inputId - The search box
+ * @param {function(Array, string)} onResults - Called with the matching users and the term
+ */
+function attachUserSearch(inputId, onResults) {
+    const input = document.getElementById(inputId);
+    let timer = null;
+    input.addEventListener('input', () => {
+        clearTimeout(timer);
+        timer = setTimeout(async () => {
+            const term = input.value.trim();
+            try {
+                onResults(await searchUsers(term), term);
+            } catch (error) {
+                console.error('Error searching users:', error);
+            }
+        }, 250);
+    });
+}
+
+/**
+ * Fills a user dropdown, keeping the selected user if they are still listed.
+ */
+function renderUserOptions(selectId, users) {
+    const dropdown = document.getElementById(selectId);
+    const selected = dropdown.value;
+    dropdown.innerHTML = '<option value="">Select a User</option>';
+    users.forEach(user => {
+        dropdown.innerHTML += `<option value="${user.userID}">${user.name} (ID: ${user.userID})</option>`;
+    });
+    dropdown.value = users.some(user => String(user.userID) === selected) ? selected : '';
+}
+
+
 // --- Utility Functions ---
 
 /**
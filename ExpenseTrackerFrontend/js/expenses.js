@@ -121,13 +121,7 @@ async function loadUserBudgets() {
     if (!user) return;
     
     try {
-        const response = await fetch(`${BUDGET_API_URL}/user/${user.userID}`); // From common.js
-        if (response.status === 204) {
-            userBudgets = []; 
-            return;
-        }
-        if (!response.ok) throw new Error('Failed to fetch budgets');
-        userBudgets = await response.json();
+        userBudgets = await fetchAllPages(`${BUDGET_API_URL}/user/${user.userID}`); // From common.js
         console.log('Budgets loaded:', userBudgets);
     } catch (error) {
         console.error('Error loading budgets:', error);
@@ -146,14 +140,12 @@ async function getAllExpenses() {
     tableBody.innerHTML = `<tr><td colspan="5">Loading expenses...</td></tr>`;
 
     try {
-        const response = await fetch(`${EXPENSE_API_URL}/user/${user.userID}`); // From common.js
-        if (response.status === 204) {
+        const expenses = await fetchAllPages(`${EXPENSE_API_URL}/user/${user.userID}`); // From common.js
+        if (expenses.length === 0) {
              tableBody.innerHTML = `<tr><td colspan="5">No expenses found. Add one!</td></tr>`;
              userExpenses = [];
              return;
         }
-        if (!response.ok) throw new Error('Failed to fetch expenses');
-        const expenses = await response.json();
         userExpenses = expenses;
         console.log('Expenses loaded:', userExpenses);
         
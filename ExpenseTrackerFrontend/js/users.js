@@ -81,14 +81,18 @@ async function createUser() {
     }
 }
 
-async function fetchAllUsers() {
+let nextUsersAfter = null; // Cursor sent back by the server in the X-Next-After header
+
+async function fetchAllUsers(after = null) {
     try{
-        const res = await fetchData('');
+        const res = await fetchData('?limit=50' + (after !== null ? '&after=' + after : ''));
         if(!res.ok) {
             showResponse("GetUser", "Failed To fetch users", true);
             return;
         }
         const result = await res.json();
+        nextUsersAfter = res.headers.get('X-Next-After');
+        document.getElementById("fetchNextUsers").disabled = nextUsersAfter === null;
         showJsonResponse("GetUser", result);
     }catch(error) {
         showResponse("GetUser", "Error Fetching Users", true);
@@ -96,6 +100,12 @@ async function fetchAllUsers() {
     }
 }
 
+async function fetchNextUsers() {
+    if (nextUsersAfter !== null) {
+        await fetchAllUsers(nextUsersAfter);
+    }
+}
+
 async function fetchUsersByID() {
     const id = document.getElementById("userId").value;
     if(!id){